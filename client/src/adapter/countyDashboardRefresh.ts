@@ -168,6 +168,7 @@ export function parse(data: JSON.CountyDashboard, state: County.AppState) {
         currentRound: data.current_round ? parseRound(data.current_round) : null,
         cvrExport: parseFile(data.cvr_export_file),
         cvrExportCount: data.cvr_export_count,
+        cvrImportQueuePosition: data.cvr_import_queue_position,
         cvrImportStatus: parseCVRImportStatus(data.cvr_import_status),
         disagreementCount: parseDisCount(data.disagreement_count),
         discrepancyCount: parseDisCount(data.discrepancy_count),
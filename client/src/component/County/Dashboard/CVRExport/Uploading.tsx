@@ -31,6 +31,21 @@ const Progress = (props: ProgressProps) => {
     );
 };
 
+interface QueuedProps {
+    position: number;
+}
+
+const Queued = (props: QueuedProps) => {
+    const { position } = props;
+
+    return (
+        <Card>
+            <Spinner className='pt-large' intent={ Intent.PRIMARY } />
+            <div>Waiting to import, position { position } in queue...</div>
+        </Card>
+    );
+};
+
 const UploadingFile = () => {
     return (
         <Card>
@@ -46,8 +61,16 @@ interface UploadingProps {
 
 const Uploading = (props: UploadingProps) => {
     const { countyState } = props;
-    const { cvrExportCount, cvrExport, cvrImportStatus } = countyState;
+    const {
+        cvrExportCount,
+        cvrExport,
+        cvrImportQueuePosition,
+        cvrImportStatus,
+    } = countyState;
 
+    if (cvrImportStatus.state === 'IN_PROGRESS' && cvrImportQueuePosition) {
+        return <Queued position={ cvrImportQueuePosition } />;
+    }
     if (!cvrExportCount) {
         return <UploadingFile />;
     }
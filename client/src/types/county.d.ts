@@ -22,6 +22,7 @@ declare namespace County {
         cvrExportHash?: string;
         cvrImportPending: CVRImportPending;
         cvrImportStatus: CVRImportStatus;
+        cvrImportQueuePosition?: number;
         cvrsToAudit?: JSON.CVR[];  // Sic
         disagreementCount?: number;
         discrepancyCount?: number;
@@ -71,6 +71,7 @@ declare namespace JSON {
         cvr_export_count: number;
         cvr_export_file: any;
         cvr_import_status: CVRImportStatus;
+        cvr_import_queue_position?: number;
         contests: number[];
         contests_under_audit: number[];
         disagreement_count: number;
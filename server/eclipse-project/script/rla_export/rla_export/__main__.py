@@ -405,8 +405,8 @@ SEQUENCE_SUBSEQUENCE_QUERY = """
     SELECT
        r.dashboard_id AS county_id,
        r.number AS round_number,
-       r.ballot_sequence,
-       r.audit_subsequence
+       unpack_long_list(r.ballot_sequence) AS ballot_sequence,
+       unpack_long_list(r.audit_subsequence) AS audit_subsequence
     FROM
        round AS r
     WHERE
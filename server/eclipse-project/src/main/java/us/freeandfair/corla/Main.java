@@ -68,6 +68,7 @@ import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.CountyDashboard;
 import us.freeandfair.corla.model.DoSDashboard;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.MigrationQueries;
 import us.freeandfair.corla.query.PersistentASMStateQueries;
 import us.freeandfair.corla.util.SuppressFBWarnings;
 
@@ -525,6 +526,9 @@ public final class Main {
     Persistence.setProperties(static_properties);
 
     if (Persistence.beginTransaction()) {
+      MigrationQueries.allowUploadedFilesOutsideDatabase();
+      MigrationQueries.packLongListColumns();
+      MigrationQueries.moveContestCVRIds();
       initializeASMsAndDashboards(initializeCounties());
       try {
         Persistence.commitTransaction();
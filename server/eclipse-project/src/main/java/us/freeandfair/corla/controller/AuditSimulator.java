@@ -0,0 +1,581 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import us.freeandfair.corla.math.Audit;
+import us.freeandfair.corla.model.AuditStatus;
+import us.freeandfair.corla.model.BallotManifestInfo;
+import us.freeandfair.corla.model.CVRAuditInfo;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.ComparisonAudit;
+import us.freeandfair.corla.model.ContestResult;
+
+/**
+ * Simulates comparison audits of a set of contests, to predict how many
+ * ballots each county will audit and how many rounds the audit will take
+ * under given discrepancy rates and risk limit. Each trial runs the
+ * targeted contests through ComparisonAudit counters round by round, the
+ * way StartAuditRound does: every round selects ballots up to the
+ * optimistic sample size, and a contest is done when its risk limit is
+ * achieved, or goes to a hand count when the sample size exceeds its
+ * ballots. Trials run in parallel on a fork-join pool, each with its own
+ * random number generator derived from the seed, so the results depend
+ * only on the seed and not on the scheduling.
+ */
+public final class AuditSimulator {
+  /**
+   * Class-wide logger
+   */
+  public static final Logger LOGGER = LogManager.getLogger(AuditSimulator.class);
+
+  /**
+   * The most rounds a simulated audit may run; one that needs more is
+   * treated as a hand count.
+   */
+  public static final int MAX_ROUNDS = 100;
+
+  /**
+   * The number of trials below which a task runs them rather than
+   * splitting them.
+   */
+  private static final int TRIALS_PER_TASK = 8;
+
+  /**
+   * The number of bits of a ballot key that hold the ballot's position in
+   * its county; the rest hold the county ID.
+   */
+  private static final int COUNTY_SHIFT = 40;
+
+  /**
+   * The contests to audit.
+   */
+  private final List<Target> my_targets;
+
+  /**
+   * The risk limit.
+   */
+  private final BigDecimal my_risk_limit;
+
+  /**
+   * The discrepancy rates.
+   */
+  private final Rates my_rates;
+
+  /**
+   * The IDs of the counties taking part, in order; county results are
+   * indexed by position in this list.
+   */
+  private final List<Long> my_county_ids;
+
+  /**
+   * The number of ballots in each county, by position in my_county_ids.
+   */
+  private final long[] my_county_ballots;
+
+  /**
+   * Constructs a simulator.
+   *
+   * @param the_targets The contests to audit.
+   * @param the_risk_limit The risk limit.
+   * @param the_rates The discrepancy rates.
+   */
+  public AuditSimulator(final List<Target> the_targets,
+                        final BigDecimal the_risk_limit,
+                        final Rates the_rates) {
+    my_targets = new ArrayList<>(the_targets);
+    my_risk_limit = the_risk_limit;
+    my_rates = the_rates;
+
+    final SortedMap<Long, Long> county_ballots = new TreeMap<>();
+    for (final Target t : my_targets) {
+      county_ballots.putAll(t.my_county_ballots);
+    }
+    my_county_ids = new ArrayList<>(county_ballots.keySet());
+    my_county_ballots = new long[my_county_ids.size()];
+    for (int i = 0; i < my_county_ballots.length; i++) {
+      my_county_ballots[i] = county_ballots.get(my_county_ids.get(i));
+    }
+  }
+
+  /**
+   * Runs the simulation.
+   *
+   * @param the_trials The number of audits to simulate.
+   * @param the_seed The seed for the random number generators.
+   * @param the_pool The pool to run the trials on.
+   * @return the results.
+   */
+  public Result simulate(final int the_trials, final long the_seed,
+                         final ForkJoinPool the_pool) {
+    final Result result = new Result(the_trials, my_county_ids);
+    the_pool.invoke(new TrialTask(result, the_seed, 0, the_trials));
+    LOGGER.info(String.format("[simulate: %d trials of %d contests in %d counties]",
+                              the_trials, my_targets.size(), my_county_ids.size()));
+    return result;
+  }
+
+  /**
+   * Runs one simulated audit and stores its results.
+   *
+   * @param the_result The results.
+   * @param the_trial The index of the trial.
+   * @param the_seed The seed for the random number generators.
+   */
+  @SuppressWarnings("PMD.CyclomaticComplexity")
+  private void runTrial(final Result the_result, final int the_trial, final long the_seed) {
+    final SplittableRandom random = new SplittableRandom(trialSeed(the_seed, the_trial));
+    final Set<Long> ballots = new HashSet<>();
+    final long[] county_ballots = new long[my_county_ids.size()];
+    final boolean[] county_hand_count = new boolean[my_county_ids.size()];
+    boolean hand_count = false;
+
+    // the audits still in progress, by target; null once done
+    final ComparisonAudit[] audits = new ComparisonAudit[my_targets.size()];
+    final List<Map<Long, Integer>> discrepancies = new ArrayList<>();
+    int in_progress = 0;
+    for (int i = 0; i < audits.length; i++) {
+      final ComparisonAudit ca = my_targets.get(i).audit(my_risk_limit);
+      if (ca.auditStatus() == AuditStatus.NOT_AUDITABLE) {
+        hand_count = true;
+        handCount(my_targets.get(i), county_hand_count);
+      } else {
+        audits[i] = ca;
+        in_progress = in_progress + 1;
+      }
+      discrepancies.add(new HashMap<>());
+    }
+
+    int round = 0;
+    while (in_progress > 0) {
+      round = round + 1;
+      for (int i = 0; i < audits.length; i++) {
+        final Target t = my_targets.get(i);
+        final ComparisonAudit ca = audits[i];
+        if (ca == null) {
+          continue;
+        }
+        final int end = ca.optimisticSamplesToAudit();
+        if (end > t.my_index.ballotCount() || round > MAX_ROUNDS) {
+          hand_count = true;
+          handCount(t, county_hand_count);
+          audits[i] = null;
+          in_progress = in_progress - 1;
+          continue;
+        }
+
+        final List<Long> drawn = new ArrayList<>();
+        for (int j = ca.getAuditedSampleCount(); j < end; j++) {
+          final long rand = 1L + random.nextLong(t.my_index.ballotCount());
+          final BallotManifestInfo bmi = t.my_index.holding(rand);
+          final long key = (bmi.countyID() << COUNTY_SHIFT) +
+                           bmi.sequenceStart() + t.my_index.sequencePosition(rand) - 1L;
+          if (ballots.add(key)) {
+            county_ballots[my_county_ids.indexOf(bmi.countyID())]++;
+          }
+          drawn.add(key);
+        }
+        ca.addContestCVRIds(drawn, round);
+        for (final Long key : drawn) {
+          // a ballot drawn again has the same discrepancy, counted again
+          if (!discrepancies.get(i).containsKey(key)) {
+            discrepancies.get(i).put(key, my_rates.draw(random));
+          }
+          final Integer type = discrepancies.get(i).get(key);
+          if (type != null) {
+            ca.recordDiscrepancy(auditInfo(key), type);
+          }
+        }
+        ca.signalSampleAudited(drawn.size());
+        ca.optimisticSamplesToAudit();
+        ca.updateAuditStatus();
+        if (ca.auditStatus() == AuditStatus.RISK_LIMIT_ACHIEVED) {
+          audits[i] = null;
+          in_progress = in_progress - 1;
+        }
+      }
+    }
+
+    the_result.my_rounds[the_trial] = round;
+    the_result.my_hand_counts[the_trial] = hand_count;
+    for (int c = 0; c < county_ballots.length; c++) {
+      if (county_hand_count[c]) {
+        county_ballots[c] = my_county_ballots[c];
+      }
+      the_result.my_county_ballots[c][the_trial] = county_ballots[c];
+    }
+  }
+
+  /**
+   * Marks the counties of a contest as hand counting all their ballots.
+   *
+   * @param the_target The contest.
+   * @param the_county_hand_count The hand count flags, by county position.
+   */
+  private void handCount(final Target the_target, final boolean[] the_county_hand_count) {
+    for (final Long county_id : the_target.my_county_ballots.keySet()) {
+      the_county_hand_count[my_county_ids.indexOf(county_id)] = true;
+    }
+  }
+
+  /**
+   * A stand-in for the audit record of a simulated ballot.
+   *
+   * @param the_key The ballot key.
+   * @return a CVRAuditInfo with the ballot key as its ID.
+   */
+  private static CVRAuditInfo auditInfo(final Long the_key) {
+    final CastVoteRecord cvr = new CastVoteRecord();
+    cvr.setID(the_key);
+    return new CVRAuditInfo(cvr);
+  }
+
+  /**
+   * The seed of a trial's random number generator; a trial gets the same
+   * numbers whichever thread runs it.
+   *
+   * @param the_seed The simulation seed.
+   * @param the_trial The index of the trial.
+   * @return the trial seed.
+   */
+  private static long trialSeed(final long the_seed, final int the_trial) {
+    return new SplittableRandom(the_seed ^ the_trial * 0x9E3779B97F4A7C15L).nextLong();
+  }
+
+  /**
+   * A contest to audit: its result and the manifests of its counties.
+   */
+  public static final class Target {
+    /**
+     * A detached copy of the contest result, holding what ComparisonAudit
+     * reads, so that trials do not touch the persistence session.
+     */
+    private final ContestResult my_contest_result;
+
+    /**
+     * The manifest index of the contest's counties.
+     */
+    private final ManifestIndex my_index;
+
+    /**
+     * The number of ballots in each of the contest's counties.
+     */
+    private final Map<Long, Long> my_county_ballots = new HashMap<>();
+
+    /**
+     * Constructs a target.
+     *
+     * @param the_contest_result The contest result.
+     * @param the_bmis The manifests of the contest's counties, in the order
+     * of the ultimate sequence (as returned by
+     * BallotManifestInfoQueries.getMatching).
+     */
+    public Target(final ContestResult the_contest_result,
+                  final Collection<BallotManifestInfo> the_bmis) {
+      my_contest_result = new ContestResult(the_contest_result.getContestName());
+      my_contest_result.setDilutedMargin(the_contest_result.getDilutedMargin());
+      my_contest_result.setAuditReason(the_contest_result.getAuditReason());
+      my_index = new ManifestIndex(the_bmis);
+      for (final BallotManifestInfo bmi : the_bmis) {
+        my_county_ballots.merge(bmi.countyID(), (long) bmi.batchSize(), Long::sum);
+      }
+    }
+
+    /**
+     * Starts a new audit of this contest.
+     *
+     * @param the_risk_limit The risk limit.
+     * @return the audit.
+     */
+    private ComparisonAudit audit(final BigDecimal the_risk_limit) {
+      return new ComparisonAudit(my_contest_result, the_risk_limit,
+                                 my_contest_result.getDilutedMargin(), Audit.GAMMA,
+                                 my_contest_result.getAuditReason());
+    }
+  }
+
+  /**
+   * The rates of each kind of discrepancy, as fractions of the ballots
+   * audited.
+   */
+  public static final class Rates {
+    /**
+     * The cumulative rates, in the order two-vote understatement, one-vote
+     * understatement, one-vote overstatement, two-vote overstatement.
+     */
+    private final double[] my_cumulative = new double[4];
+
+    /**
+     * Constructs the rates.
+     *
+     * @param the_two_under The two-vote understatement rate.
+     * @param the_one_under The one-vote understatement rate.
+     * @param the_one_over The one-vote overstatement rate.
+     * @param the_two_over The two-vote overstatement rate.
+     * @exception IllegalArgumentException if a rate is negative or they
+     * add up to more than 1.
+     */
+    @SuppressWarnings("checkstyle:magicnumber")
+    public Rates(final double the_two_under, final double the_one_under,
+                 final double the_one_over, final double the_two_over) {
+      final double[] rates = {the_two_under, the_one_under, the_one_over, the_two_over};
+      double sum = 0;
+      for (int i = 0; i < rates.length; i++) {
+        if (!(rates[i] >= 0)) {
+          throw new IllegalArgumentException("invalid discrepancy rate: " + rates[i]);
+        }
+        sum = sum + rates[i];
+        my_cumulative[i] = sum;
+      }
+      if (sum > 1) {
+        throw new IllegalArgumentException("discrepancy rates add up to " + sum);
+      }
+    }
+
+    /**
+     * Draws the discrepancy of a ballot.
+     *
+     * @param the_random The random number generator.
+     * @return the discrepancy type (-2 .. 2, as for ComparisonAudit), or
+     * null for none.
+     */
+    @SuppressWarnings("checkstyle:magicnumber")
+    private Integer draw(final SplittableRandom the_random) {
+      final double r = the_random.nextDouble();
+      if (r < my_cumulative[0]) {
+        return -2;
+      } else if (r < my_cumulative[1]) {
+        return -1;
+      } else if (r < my_cumulative[2]) {
+        return 1;
+      } else if (r < my_cumulative[3]) {
+        return 2;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * The results of a simulation, by trial.
+   */
+  public static final class Result {
+    /**
+     * The number of rounds each trial took.
+     */
+    private final int[] my_rounds;
+
+    /**
+     * Whether each trial ended with a hand count of some contest.
+     */
+    private final boolean[] my_hand_counts;
+
+    /**
+     * The IDs of the counties, in order.
+     */
+    private final List<Long> my_county_ids;
+
+    /**
+     * The number of ballots each county audited in each trial, by county
+     * position and trial.
+     */
+    private final long[][] my_county_ballots;
+
+    /**
+     * Constructs an empty result.
+     *
+     * @param the_trials The number of trials.
+     * @param the_county_ids The IDs of the counties, in order.
+     */
+    private Result(final int the_trials, final List<Long> the_county_ids) {
+      my_rounds = new int[the_trials];
+      my_hand_counts = new boolean[the_trials];
+      my_county_ids = Collections.unmodifiableList(new ArrayList<>(the_county_ids));
+      my_county_ballots = new long[the_county_ids.size()][the_trials];
+    }
+
+    /**
+     * @return the number of trials.
+     */
+    public int trials() {
+      return my_rounds.length;
+    }
+
+    /**
+     * @param the_trial The index of a trial.
+     * @return the number of rounds the trial took.
+     */
+    public int rounds(final int the_trial) {
+      return my_rounds[the_trial];
+    }
+
+    /**
+     * @param the_trial The index of a trial.
+     * @return true if some contest went to a hand count in the trial.
+     */
+    public boolean handCount(final int the_trial) {
+      return my_hand_counts[the_trial];
+    }
+
+    /**
+     * @return the IDs of the counties, in order.
+     */
+    public List<Long> countyIDs() {
+      return my_county_ids;
+    }
+
+    /**
+     * @param the_county_id The ID of a county.
+     * @param the_trial The index of a trial.
+     * @return the number of ballots the county audited in the trial.
+     */
+    public long countyBallots(final Long the_county_id, final int the_trial) {
+      return my_county_ballots[my_county_ids.indexOf(the_county_id)][the_trial];
+    }
+
+    /**
+     * Finds a percentile of the number of rounds (by nearest rank).
+     *
+     * @param the_percentile The percentile, from 0 to 100.
+     * @return the percentile.
+     */
+    public long roundsPercentile(final int the_percentile) {
+      final long[] values = new long[my_rounds.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = my_rounds[i];
+      }
+      return percentile(values, the_percentile);
+    }
+
+    /**
+     * Finds a percentile of the number of ballots a county audited (by
+     * nearest rank).
+     *
+     * @param the_county_id The ID of the county.
+     * @param the_percentile The percentile, from 0 to 100.
+     * @return the percentile.
+     */
+    public long countyBallotsPercentile(final Long the_county_id,
+                                        final int the_percentile) {
+      return percentile(my_county_ballots[my_county_ids.indexOf(the_county_id)].clone(),
+                        the_percentile);
+    }
+
+    /**
+     * @return the number of trials that ended with a hand count.
+     */
+    public int handCountTrials() {
+      int result = 0;
+      for (final boolean b : my_hand_counts) {
+        if (b) {
+          result = result + 1;
+        }
+      }
+      return result;
+    }
+
+    /**
+     * Finds a percentile by nearest rank.
+     *
+     * @param the_values The values; they are sorted in place.
+     * @param the_percentile The percentile, from 0 to 100.
+     * @return the percentile, or 0 if there are no values.
+     */
+    @SuppressWarnings("checkstyle:magicnumber")
+    private static long percentile(final long[] the_values, final int the_percentile) {
+      if (the_values.length == 0) {
+        return 0;
+      }
+      Arrays.sort(the_values);
+      final int rank = (int) Math.ceil(the_percentile / 100.0 * the_values.length);
+      return the_values[Math.max(0, rank - 1)];
+    }
+  }
+
+  /**
+   * A task that runs a range of trials, splitting it while it is large.
+   */
+  private final class TrialTask extends RecursiveAction {
+    /**
+     * The serialVersionUID.
+     */
+    private static final long serialVersionUID = 1;
+
+    /**
+     * The results.
+     */
+    private final Result my_result;
+
+    /**
+     * The seed.
+     */
+    private final long my_seed;
+
+    /**
+     * The first trial of the range.
+     */
+    private final int my_from;
+
+    /**
+     * The end of the range, exclusive.
+     */
+    private final int my_to;
+
+    /**
+     * Constructs a task.
+     *
+     * @param the_result The results.
+     * @param the_seed The seed.
+     * @param the_from The first trial of the range.
+     * @param the_to The end of the range, exclusive.
+     */
+    TrialTask(final Result the_result, final long the_seed,
+              final int the_from, final int the_to) {
+      super();
+      my_result = the_result;
+      my_seed = the_seed;
+      my_from = the_from;
+      my_to = the_to;
+    }
+
+    /**
+     * Runs the trials, or splits them in two.
+     */
+    @Override
+    protected void compute() {
+      if (my_to - my_from <= TRIALS_PER_TASK) {
+        for (int trial = my_from; trial < my_to; trial++) {
+          runTrial(my_result, trial, my_seed);
+        }
+      } else {
+        final int middle = (my_from + my_to) >>> 1;
+        invokeAll(new TrialTask(my_result, my_seed, my_from, middle),
+                  new TrialTask(my_result, my_seed, middle, my_to));
+      }
+    }
+  }
+}
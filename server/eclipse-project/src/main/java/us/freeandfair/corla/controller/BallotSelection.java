@@ -23,10 +23,10 @@ import us.freeandfair.corla.json.CVRToAuditResponse;
 import us.freeandfair.corla.model.BallotManifestInfo;
 import us.freeandfair.corla.model.CastVoteRecord;
 import us.freeandfair.corla.model.ContestResult;
-import us.freeandfair.corla.model.CVRAuditInfo;
 import us.freeandfair.corla.model.Tribute;
 import us.freeandfair.corla.persistence.Persistence;
 import us.freeandfair.corla.query.BallotManifestInfoQueries;
+import us.freeandfair.corla.query.CVRAuditInfoQueries;
 import us.freeandfair.corla.query.CastVoteRecordQueries;
 import us.freeandfair.corla.util.BallotSequencer;
 import us.freeandfair.corla.util.PhantomBallots;
@@ -254,6 +254,49 @@ public final class BallotSelection {
                                           final String seed,
                                           final Integer minIndex,
                                           final Integer maxIndex) {
+    return randomSelection(contestResult, seed, minIndex, maxIndex, new HashMap<>());
+  }
+
+  /**
+   * create a random list of numbers and divide them into the appropriate
+   * counties, using (and adding to) manifest indexes by county set, so
+   * contests with the same counties share one index
+   **/
+  public static Selection randomSelection(final ContestResult contestResult,
+                                          final String seed,
+                                          final Integer minIndex,
+                                          final Integer maxIndex,
+                                          final Map<Set<Long>, ManifestIndex> indexes) {
+    final Selection selection = drawSelection(contestResult, contestResult.countyIDs(),
+                                              seed, minIndex, maxIndex, indexes);
+    if (minIndex <= maxIndex) {
+      // get the CVRs from the theoretical
+      resolveSelection(selection);
+    }
+    return selection;
+  }
+
+  /**
+   * create a random list of numbers and divide them into the appropriate
+   * counties, without finding the CVRs; this only reads the database, so
+   * the selections of different contests can be drawn on different
+   * threads (each with its own session) and resolved afterward
+   *
+   * @param contestResult the contest
+   * @param countyIds the contest's counties, copied so that the contest's
+   * collections are not loaded on another thread
+   * @param seed the random seed
+   * @param minIndex the index of the first random number to draw
+   * @param maxIndex the index of the last random number to draw
+   * @param indexes manifest indexes by county set, used and added to; must
+   * be thread-safe if shared by threads
+   **/
+  public static Selection drawSelection(final ContestResult contestResult,
+                                        final Set<Long> countyIds,
+                                        final String seed,
+                                        final Integer minIndex,
+                                        final Integer maxIndex,
+                                        final Map<Set<Long>, ManifestIndex> indexes) {
     if (minIndex > maxIndex) {
       // you are done, silly
       final Selection selection = new Selection();
@@ -261,7 +304,7 @@ public final class BallotSelection {
       return selection;
     }
 
-    final int domainSize = ballotsCast(contestResult.countyIDs()).intValue();
+    final int domainSize = ballotsCast(countyIds).intValue();
     final PseudoRandomNumberGenerator gen =
       new PseudoRandomNumberGenerator(seed, true, 1, domainSize);
 
@@ -274,14 +317,15 @@ public final class BallotSelection {
     selection.generatedNumbers = generatedNumbers; //posterity
 
     // make the theoretical selections (avoiding cvrs)
-    selectTributes(selection, contestResult.countyIDs());
+    final ManifestIndex index =
+      indexes.computeIfAbsent(new HashSet<>(countyIds),
+                              ids -> new ManifestIndex(BallotManifestInfoQueries.getMatching(ids)));
+    selectTributes(selection, countyIds, index);
 
     LOGGER.info(String.format("[randomSelection] selected %s samples for %s ",
                               selection.generatedNumbers.size(),
-                              contestResult.getContestName()));
+                              selection.contestName));
     LOGGER.debug("randomSelection: selection= " + selection);
-    // get the CVRs from the theoretical
-    resolveSelection(selection);
     return selection;
   }
 
@@ -311,13 +355,23 @@ public final class BallotSelection {
   public static void selectTributes(final Selection selection,
                                     final Set<Long> countyIds,
                                     final Set<BallotManifestInfo> contestBmis) {
+    selectTributes(selection, countyIds, new ManifestIndex(contestBmis));
+  }
+
+  /**
+   * Divide a list of random numbers into segments by county, finding the
+   * batch of each in an index of the contest's manifests
+   **/
+  public static void selectTributes(final Selection selection,
+                                    final Set<Long> countyIds,
+                                    final ManifestIndex index) {
     countyIds.forEach(id -> selection.initCounty(id));
     int i = 0;
     for (final Integer rand: selection.generatedNumbers) {
-      final BallotManifestInfo bmi = selectCountyId(Long.valueOf(rand), contestBmis);
+      final BallotManifestInfo bmi = index.holding(rand);
       selection.addBallotPosition(bmi,
                                   // translate rand from Contest scope to bmi/batch scope
-                                  bmi.translateRand(rand),
+                                  index.sequencePosition(rand),
                                   // keep rand around to store on cvr for reporting
                                   rand,
                                   // preserve the order of random selections, 0-based
@@ -395,34 +449,33 @@ public final class BallotSelection {
    * @return the number of ballot cards that have been audited
    */
   public static Integer auditedPrefixLength(final List<Long> cvrIds) {
-    // FIXME extract-fn, then use
-    // Map <Long, Boolean> isAuditedById = checkAudited(cvrIds);
-
     if (cvrIds.isEmpty()) { return 0; }
 
-    final Map <Long, Boolean> isAuditedById = new HashMap<>();
-
-    for (final Long cvrId: cvrIds) {
-      final CVRAuditInfo cvrai = Persistence.getByID(cvrId, CVRAuditInfo.class);
-      // has an acvr
-      final boolean isAudited = cvrai != null && cvrai.acvr() != null;
-      isAuditedById.put(cvrId, isAudited);
-    }
+    // one query for the audited flags, rather than one per CVR
+    return auditedPrefixLength(cvrIds, CVRAuditInfoQueries.auditedIDs(cvrIds));
+  }
 
-    Integer idx = 0;
-    for (int i=0; i < cvrIds.size(); i++) {
-      final boolean audited = isAuditedById.get(cvrIds.get(i));
-      if (audited) {
-        idx = i + 1;
-      } else { break; }
+  /**
+   * How much of an audit sequence have we checked?
+   *
+   * @param cvrIds A list of IDs to check, in audit sequence order.
+   * @param auditedIds The IDs of the CVRs that have been audited.
+   * @return the length of the prefix of cvrIds that has been audited
+   */
+  public static Integer auditedPrefixLength(final List<Long> cvrIds,
+                                            final Set<Long> auditedIds) {
+    int idx = 0;
+    while (idx < cvrIds.size() && auditedIds.contains(cvrIds.get(idx))) {
+      idx++;
     }
-    LOGGER.debug(String.format("[auditedPrefixLength: isAuditedById=%s, apl=%d]",
-                                isAuditedById, idx));
+    LOGGER.debug(String.format("[auditedPrefixLength: audited=%d of %d, apl=%d]",
+                                auditedIds.size(), cvrIds.size(), idx));
     return idx;
   }
 
   /**
-   * Find the manifest entry holding a random selection
+   * Find the manifest entry holding a random selection; this projects and
+   * scans the whole set, so use a ManifestIndex for more than one lookup
    */
   public static BallotManifestInfo selectCountyId(final Long rand,
                                                   final Set<BallotManifestInfo> bmis) {
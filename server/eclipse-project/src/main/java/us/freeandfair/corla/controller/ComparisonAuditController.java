@@ -35,6 +35,7 @@ import us.freeandfair.corla.model.ComparisonAudit;
 import us.freeandfair.corla.model.CountyDashboard;
 import us.freeandfair.corla.model.Round;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.CVRAuditInfoQueries;
 import us.freeandfair.corla.query.CastVoteRecordQueries;
 
 /**
@@ -76,11 +77,12 @@ public final class ComparisonAuditController {
     final Round round = the_cdb.rounds().get(the_round_number - 1);
     final Set<Long> id_set = new HashSet<>();
     final List<CVRAuditInfo> result = new ArrayList<>();
+    final Map<Long, CVRAuditInfo> infos = CVRAuditInfoQueries.byIds(round.auditSubsequence());
 
     for (final Long cvr_id : round.auditSubsequence()) {
       if (!id_set.contains(cvr_id)) {
         id_set.add(cvr_id);
-        result.add(Persistence.getByID(cvr_id, CVRAuditInfo.class));
+        result.add(infos.get(cvr_id));
       }
     }
 
@@ -376,12 +378,15 @@ public final class ComparisonAuditController {
    */
   private static void updateRound(final CountyDashboard cdb,
                                   final Round round) {
-    for (final Long cvrID : new HashSet<>(round.auditSubsequence())) {
+    final Set<Long> cvrIDs = new HashSet<>(round.auditSubsequence());
+    // this also loads the CVRs of any that don't exist yet
+    final Map<Long, CVRAuditInfo> infos = CVRAuditInfoQueries.byIds(cvrIDs);
+    for (final Long cvrID : cvrIDs) {
       final Map<String, AuditReason> auditReasons = new HashMap<>();
       final Set<AuditReason> discrepancies = new HashSet<>();
       final Set<AuditReason> disagreements = new HashSet<>();
 
-      CVRAuditInfo cvrai = Persistence.getByID(cvrID, CVRAuditInfo.class);
+      CVRAuditInfo cvrai = infos.get(cvrID);
       if (cvrai == null) {
         cvrai = new CVRAuditInfo(Persistence.getByID(cvrID, CastVoteRecord.class));
       }
@@ -650,13 +655,27 @@ public final class ComparisonAuditController {
     if (round != null) {
       final Set<Long> checked_ids = new HashSet<>();
       int index = round.actualAuditedPrefixLength() - round.startAuditedPrefixLength();
+      // load only the ballots up to the first one not yet audited, since
+      // this usually runs after each submission
+      final List<Long> remaining =
+          round.auditSubsequence().subList(Math.min(index, round.auditSubsequence().size()),
+                                           round.auditSubsequence().size());
+      final Set<Long> audited_ids = CVRAuditInfoQueries.auditedIDs(remaining);
+      final List<Long> audited_prefix = new ArrayList<>();
+      for (final Long cvr_id : remaining) {
+        if (!audited_ids.contains(cvr_id)) {
+          break;
+        }
+        audited_prefix.add(cvr_id);
+      }
+      final Map<Long, CVRAuditInfo> infos = CVRAuditInfoQueries.byIds(audited_prefix);
 
       while (index < round.auditSubsequence().size()) {
         final Long cvr_id = round.auditSubsequence().get(index);
         if (!checked_ids.contains(cvr_id)) {
           checked_ids.add(cvr_id);
 
-          final CVRAuditInfo cai = Persistence.getByID(cvr_id, CVRAuditInfo.class);
+          final CVRAuditInfo cai = infos.get(cvr_id);
 
           if (cai == null || cai.acvr() == null) {
             break;              // ok, so this hasn't been audited yet.
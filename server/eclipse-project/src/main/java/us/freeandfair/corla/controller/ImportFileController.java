@@ -13,18 +13,23 @@ import us.freeandfair.corla.asm.ASMUtilities;
 import us.freeandfair.corla.csv.DominionCVRExportParser;
 import us.freeandfair.corla.csv.Result;
 import us.freeandfair.corla.json.UploadedFileDTO;
+import us.freeandfair.corla.model.CVRImportCheckpoint;
 import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.model.CountyContestResult;
 import us.freeandfair.corla.model.CountyDashboard;
 import us.freeandfair.corla.model.ImportStatus;
 import us.freeandfair.corla.model.ImportStatus.ImportState;
 import us.freeandfair.corla.model.UploadedFile.FileStatus;
+import us.freeandfair.corla.persistence.DirectoryFileStore;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.persistence.UploadedFileStores;
+import us.freeandfair.corla.query.CVRImportCheckpointQueries;
 import us.freeandfair.corla.query.CastVoteRecordQueries;
 import us.freeandfair.corla.query.CountyContestResultQueries;
 import us.freeandfair.corla.query.UploadedFileQueries;
 import us.freeandfair.corla.util.UploadedFileStreamer;
 
-public class ImportFileController implements Runnable {
+public class ImportFileController implements ImportScheduler.ImportJob {
 
   /**
    * Class-wide logger
@@ -36,6 +41,19 @@ public class ImportFileController implements Runnable {
   private UploadedFileDTO uploadedFileDTO;
   private Long countyId;
 
+  /** the number of CVRs imported, once the import has succeeded **/
+  private int importedCount;
+
+  /** where the import records its progress, so it can be resumed **/
+  private CVRImportCheckpoint checkpoint;
+
+  /**
+   * whether the import failed in a way that retrying might fix (an
+   * exception rather than bad data), in which case the committed CVRs are
+   * kept for a retry to resume from
+   **/
+  private boolean resumable;
+
   /**
    * Constructs a new ImportFileController for the given file info which can be run
    * in a separate, independent, thread.
@@ -46,6 +64,16 @@ public class ImportFileController implements Runnable {
     this.countyId = upF.getCountyId();
   }
 
+  /** the county this import is for **/
+  public Long countyId() {
+    return this.countyId;
+  }
+
+  /** the number of CVRs imported, or 0 if the import has not succeeded **/
+  public int importedCount() {
+    return this.importedCount;
+  }
+
   public void run() {
     LOGGER.debug("run()");
     try {
@@ -64,7 +92,7 @@ public class ImportFileController implements Runnable {
       // have a UploadedFileDTO(Data Transfer Object) which is not a hibernate
       // object and does not get updates across threads.
       Persistence.beginTransaction();
-      cleanSlate();
+      startOrResume();
       commit();
 
       setCVRFile();
@@ -74,6 +102,7 @@ public class ImportFileController implements Runnable {
       Persistence.flush();
       Persistence.commitTransaction();
     } catch (final RuntimeException | java.lang.InterruptedException e) {
+      this.resumable = true;
       final Result result = new Result();
       result.success = false;
       result.errorMessage = e.getClass() +" "+ e.getMessage();
@@ -83,9 +112,38 @@ public class ImportFileController implements Runnable {
     }
   }
 
+  /**
+   * Resumes the import from the county's checkpoint if it is for the same
+   * file, or starts over, deleting the county's CVRs and any checkpoint.
+   */
+  public void startOrResume() {
+    final CVRImportCheckpoint existing =
+      CVRImportCheckpointQueries.forCounty(this.countyId);
+    if (existing != null && existing.fileHash().equals(this.uploadedFileDTO.getHash())) {
+      LOGGER.info("resuming import from " + existing);
+      this.checkpoint = existing;
+    } else {
+      cleanSlate();
+      this.checkpoint = new CVRImportCheckpoint(this.countyId,
+                                                this.uploadedFileDTO.getHash());
+    }
+  }
+
   public void runOnThread() {
     LOGGER.debug("runOnThread()");
-    Result result = parse();
+    Result result;
+    try {
+      result = parse();
+    } catch (final DominionCVRExportParser.CheckpointMismatchException e) {
+      // the committed CVRs don't line up with the file, so start over
+      LOGGER.info("cannot resume import: " + e.getMessage());
+      Persistence.rollbackTransaction();
+      Persistence.beginTransaction();
+      cleanSlate();
+      this.checkpoint = new CVRImportCheckpoint(this.countyId,
+                                                this.uploadedFileDTO.getHash());
+      result = parse();
+    }
     if (result.success) {
       success(result);
     } else {
@@ -114,6 +172,18 @@ public class ImportFileController implements Runnable {
   public void error(final Result result) {
     LOGGER.debug("error("+ result.errorMessage + ")");
 
+    // a retry can only resume from the checkpoint if nothing past it is
+    // committed, so roll back the unfinished transaction instead of
+    // committing it
+    if (this.resumable) {
+      if (Persistence.canTransactionRollback()) {
+        Persistence.rollbackTransaction();
+      }
+      Persistence.beginTransaction();
+    }
+    final CVRImportCheckpoint committed = committedCheckpoint();
+    final boolean keep = this.resumable && committed != null;
+
     // record the result
     commit();
     this.uploadedFileDTO.setStatus(FileStatus.FAILED.toString());
@@ -129,13 +199,23 @@ public class ImportFileController implements Runnable {
       ASMUtilities.asmFor(CountyDashboardASM.class, this.countyId.toString());
 
     cdb.setCVRImportStatus(new ImportStatus(ImportState.FAILED, result.errorMessage));
-    cdb.setCVRsImported(0);
+    // the committed CVRs are still in the database when they are kept
+    cdb.setCVRsImported(keep ? committed.recordCount() : 0);
     cdb_asm.stepEvent(CountyDashboardEvent.CVR_IMPORT_FAILURE_EVENT);
     ASMUtilities.save(cdb_asm);
     Persistence.saveOrUpdate(cdb);
 
-    // then delete any imported cvrs
-    cleanSlate();
+    // then delete any imported cvrs, unless a retry can resume from them;
+    // the partial tallies are cleared either way, so that contest counting
+    // never sees them, and a retry restores them from the checkpoint
+    if (keep) {
+      LOGGER.info("keeping " + committed.recordCount() +
+                  " committed CVRs for a retry to resume from " +
+                  this.uploadedFileDTO.toString());
+      clearTallies();
+    } else {
+      cleanSlate();
+    }
 
     LOGGER.error(result.errorMessage + this.uploadedFileDTO.toString());
   }
@@ -155,6 +235,9 @@ public class ImportFileController implements Runnable {
     ASMUtilities.save(cdb_asm);
     Persistence.saveOrUpdate(cdb);
 
+    // the import is complete, so there is nothing to resume
+    CVRImportCheckpointQueries.deleteForCounty(this.countyId);
+
     // record the result
     commit();
     this.uploadedFileDTO.setStatus(FileStatus.IMPORTED.toString());
@@ -162,12 +245,14 @@ public class ImportFileController implements Runnable {
     UploadedFileQueries.updateStatusAndResult(this.uploadedFileDTO);
     commit();
 
+    this.importedCount = result.importedCount;
     LOGGER.info(result.importedCount + " CVRs parsed from file " + this.uploadedFileDTO.toString());
   }
 
   public void cleanSlate() {
     LOGGER.debug("cleanSlate()");
 
+    CVRImportCheckpointQueries.deleteForCounty(this.countyId);
     CastVoteRecordQueries.deleteAll(this.countyId);
     //seems like an extra saftey gaurantee is needed here to protect
     //against foreign key violations, not sure why
@@ -176,6 +261,29 @@ public class ImportFileController implements Runnable {
     commit();
   }
 
+  /**
+   * Zeroes the county's contest results, keeping the contests that the
+   * checkpoint refers to.
+   */
+  public void clearTallies() {
+    final County county = Persistence.getByID(this.countyId, County.class);
+    for (final CountyContestResult r : CountyContestResultQueries.forCounty(county)) {
+      r.reset();
+      Persistence.saveOrUpdate(r);
+    }
+  }
+
+  /** this import's checkpoint, if it has committed CVRs, or null **/
+  private CVRImportCheckpoint committedCheckpoint() {
+    final CVRImportCheckpoint committed =
+      CVRImportCheckpointQueries.forCounty(this.countyId);
+    if (committed != null && committed.recordCount() > 0 &&
+        committed.fileHash().equals(this.uploadedFileDTO.getHash())) {
+      return committed;
+    }
+    return null;
+  }
+
   public void commit() {
     Persistence.flush();
     Persistence.commitTransaction();
@@ -184,10 +292,24 @@ public class ImportFileController implements Runnable {
 
   /**
    * Parses an uploaded CVR export and attempts to persist it to the database.
-   * with the default impl UploadedFileStreamer
+   * The file is read from the directory store if it is there, which needs
+   * no database connection; otherwise it is read from its blob with the
+   * default impl UploadedFileStreamer
    *
    */
   public Result parse() {
+    final DirectoryFileStore store = UploadedFileStores.directory();
+    if (store.contains(this.uploadedFileDTO.getHash())) {
+      try (InputStream inputStream = store.open(this.uploadedFileDTO.getHash())) {
+        return parse(inputStream);
+      } catch (final java.io.IOException e) {
+        LOGGER.error(e.getMessage());
+        Result parseResult = new Result();
+        parseResult.success = false;
+        parseResult.errorMessage = "System Error";
+        return parseResult;
+      }
+    }
     UploadedFileStreamer ufs = new UploadedFileStreamer(this.uploadedFileDTO);
     try {
       (new Thread(ufs)).start();
@@ -213,8 +335,12 @@ public class ImportFileController implements Runnable {
                                                         County.class),
                                     Main.properties(),
                                     true);
+      parser.setCheckpoint(this.checkpoint);
       return parser.parse();
+    } catch (final DominionCVRExportParser.CheckpointMismatchException e) {
+      throw e;
     } catch (final RuntimeException | java.io.IOException e) {
+      this.resumable = true;
       // we could make parse() catch all possible exceptions because it already
       // catches some, but we'll keep this here for now as a short cut.
       LOGGER.error(e.getMessage());
@@ -0,0 +1,347 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import us.freeandfair.corla.Main;
+
+/**
+ * Runs CVR imports on a bounded pool of worker threads, so that the number
+ * of concurrent imports (each of which holds database connections for its
+ * whole duration) is capped at what the database can sustain.
+ *
+ * Queued imports are kept in a FIFO queue per county, and counties take
+ * turns: when a worker becomes free, it takes the oldest import of the
+ * county whose turn it is, and that county goes to the back of the line.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class ImportScheduler {
+  /**
+   * Class-wide logger
+   */
+  public static final Logger LOGGER =
+    LogManager.getLogger(ImportScheduler.class);
+
+  /**
+   * The name of the property that sets the number of concurrent imports.
+   */
+  public static final String THREADS_PROPERTY = "cvr_import_threads";
+
+  /**
+   * The default number of concurrent imports.
+   */
+  public static final int DEFAULT_THREADS = 4;
+
+  /**
+   * The milliseconds in a second.
+   */
+  private static final double MSEC_PER_SECOND = 1000.0;
+
+  /**
+   * The scheduler used by the server.
+   */
+  private static ImportScheduler instance;
+
+  /**
+   * The maximum number of concurrent imports.
+   */
+  private final int my_max_active;
+
+  /**
+   * The worker threads.
+   */
+  private final ExecutorService my_executor;
+
+  /**
+   * The queued imports for each county.
+   */
+  private final Map<Long, Deque<ImportJob>> my_queues = new HashMap<>();
+
+  /**
+   * The counties with queued imports, in the order they will be served.
+   */
+  private final Deque<Long> my_turns = new ArrayDeque<>();
+
+  /**
+   * The number of imports currently running.
+   */
+  private int my_active;
+
+  /**
+   * The number of imports that have finished.
+   */
+  private long my_completed;
+
+  /**
+   * The number of rows imported by finished imports.
+   */
+  private long my_rows_imported;
+
+  /**
+   * The milliseconds spent by finished imports.
+   */
+  private long my_import_msec;
+
+  /**
+   * An import that can be scheduled.
+   */
+  public interface ImportJob extends Runnable {
+    /**
+     * @return the ID of the county the import is for.
+     */
+    Long countyId();
+
+    /**
+     * @return the number of rows imported; only meaningful once the import
+     * has run.
+     */
+    int importedCount();
+  }
+
+  /**
+   * A snapshot of the scheduler's state, for the dashboards and logs.
+   */
+  @SuppressWarnings({"PMD.UnusedPrivateField", "PMD.SingularField"})
+  public static final class Metrics {
+    /**
+     * The number of imports waiting for a worker.
+     */
+    private final int my_queue_depth;
+
+    /**
+     * The number of imports running.
+     */
+    private final int my_active_imports;
+
+    /**
+     * The maximum number of imports that may run at once.
+     */
+    private final int my_max_active_imports;
+
+    /**
+     * The number of imports that have finished.
+     */
+    private final long my_completed_imports;
+
+    /**
+     * The rows per second achieved by finished imports.
+     */
+    private final double my_rows_per_second;
+
+    /**
+     * Constructs a new snapshot.
+     *
+     * @param the_queue_depth The queue depth.
+     * @param the_active_imports The active imports.
+     * @param the_max_active_imports The maximum active imports.
+     * @param the_completed_imports The finished imports.
+     * @param the_rows_per_second The rows per second.
+     */
+    Metrics(final int the_queue_depth, final int the_active_imports,
+            final int the_max_active_imports, final long the_completed_imports,
+            final double the_rows_per_second) {
+      my_queue_depth = the_queue_depth;
+      my_active_imports = the_active_imports;
+      my_max_active_imports = the_max_active_imports;
+      my_completed_imports = the_completed_imports;
+      my_rows_per_second = the_rows_per_second;
+    }
+
+    /**
+     * @return the number of imports waiting for a worker.
+     */
+    public int queueDepth() {
+      return my_queue_depth;
+    }
+
+    /**
+     * @return the number of imports running.
+     */
+    public int activeImports() {
+      return my_active_imports;
+    }
+
+    /**
+     * @return the rows per second achieved by finished imports.
+     */
+    public double rowsPerSecond() {
+      return my_rows_per_second;
+    }
+
+    /**
+     * @return a String representation of this snapshot.
+     */
+    @Override
+    public String toString() {
+      return String.format("[queue_depth=%d, active=%d/%d, completed=%d, rows_per_second=%.1f]",
+                           my_queue_depth, my_active_imports, my_max_active_imports,
+                           my_completed_imports, my_rows_per_second);
+    }
+  }
+
+  /**
+   * Constructs a new scheduler.
+   *
+   * @param the_max_active The maximum number of concurrent imports.
+   */
+  public ImportScheduler(final int the_max_active) {
+    my_max_active = Math.max(1, the_max_active);
+    my_executor = Executors.newFixedThreadPool(my_max_active, new ImportThreadFactory());
+  }
+
+  /**
+   * @return the scheduler used by the server, which is created on first use
+   * with the number of workers given by the cvr_import_threads property.
+   */
+  public static synchronized ImportScheduler instance() {
+    if (instance == null) {
+      final Properties properties = Main.properties();
+      int threads = DEFAULT_THREADS;
+      try {
+        threads = Integer.parseInt(properties.getProperty(THREADS_PROPERTY,
+                                                          String.valueOf(DEFAULT_THREADS)));
+      } catch (final NumberFormatException e) {
+        LOGGER.error("invalid " + THREADS_PROPERTY + ", using " + DEFAULT_THREADS);
+      }
+      instance = new ImportScheduler(threads);
+    }
+    return instance;
+  }
+
+  /**
+   * Queues an import; it runs when a worker is free and its county's turn
+   * comes up.
+   *
+   * @param the_job The import.
+   */
+  public synchronized void submit(final ImportJob the_job) {
+    final Long county_id = the_job.countyId();
+    my_queues.computeIfAbsent(county_id, id -> new ArrayDeque<>()).add(the_job);
+    if (!my_turns.contains(county_id)) {
+      my_turns.add(county_id);
+    }
+    LOGGER.info("queued CVR import for county " + county_id + ", " + metrics());
+    dispatch();
+  }
+
+  /**
+   * The position of the specified county's next import in the queue.
+   *
+   * @param the_county_id The county ID.
+   * @return the 1-based position, or empty if the county has no queued
+   * imports (including when its import is already running).
+   */
+  public synchronized OptionalInt queuePosition(final Long the_county_id) {
+    int position = 1;
+    final Iterator<Long> turns = my_turns.iterator();
+    while (turns.hasNext()) {
+      if (turns.next().equals(the_county_id)) {
+        return OptionalInt.of(position);
+      }
+      position = position + 1;
+    }
+    return OptionalInt.empty();
+  }
+
+  /**
+   * @return a snapshot of the scheduler's state.
+   */
+  public synchronized Metrics metrics() {
+    int queued = 0;
+    for (final Deque<ImportJob> queue : my_queues.values()) {
+      queued = queued + queue.size();
+    }
+    double rows_per_second = 0;
+    if (my_import_msec > 0) {
+      rows_per_second = my_rows_imported * MSEC_PER_SECOND / my_import_msec;
+    }
+    return new Metrics(queued, my_active, my_max_active, my_completed, rows_per_second);
+  }
+
+  /**
+   * Starts queued imports, in county turn order, until all the workers are
+   * busy or nothing is queued.
+   */
+  private synchronized void dispatch() {
+    while (my_active < my_max_active && !my_turns.isEmpty()) {
+      final Long county_id = my_turns.poll();
+      final Deque<ImportJob> queue = my_queues.get(county_id);
+      final ImportJob job = queue.poll();
+      if (queue.isEmpty()) {
+        my_queues.remove(county_id);
+      } else {
+        my_turns.add(county_id);
+      }
+      my_active = my_active + 1;
+      my_executor.execute(() -> run(job));
+    }
+  }
+
+  /**
+   * Runs an import on a worker thread, and then starts the next one.
+   *
+   * @param the_job The import.
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private void run(final ImportJob the_job) {
+    final long start = System.currentTimeMillis();
+    try {
+      the_job.run();
+    } catch (final RuntimeException e) {
+      LOGGER.error("CVR import for county " + the_job.countyId() + " failed: " + e);
+    } finally {
+      synchronized (this) {
+        my_active = my_active - 1;
+        my_completed = my_completed + 1;
+        my_rows_imported = my_rows_imported + the_job.importedCount();
+        my_import_msec = my_import_msec + System.currentTimeMillis() - start;
+        LOGGER.info("finished CVR import for county " + the_job.countyId() + ", " +
+                    metrics());
+        dispatch();
+      }
+    }
+  }
+
+  /**
+   * Names the worker threads, and makes them daemons so they do not keep
+   * the server from shutting down.
+   */
+  private static final class ImportThreadFactory implements ThreadFactory {
+    /**
+     * The number of threads created.
+     */
+    private final AtomicInteger my_count = new AtomicInteger();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Thread newThread(final Runnable the_runnable) {
+      final Thread thread =
+          new Thread(the_runnable, "cvr-import-" + my_count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
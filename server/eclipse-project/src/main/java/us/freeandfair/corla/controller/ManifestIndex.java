@@ -0,0 +1,145 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import us.freeandfair.corla.controller.BallotSelection.MissingBallotManifestException;
+import us.freeandfair.corla.model.BallotManifestInfo;
+
+/**
+ * The ballot manifests of a set of counties, projected onto one sequence
+ * numbered from 1 (the "ultimate" sequence of a contest), so the batch
+ * holding a random number and the position within that batch can be found
+ * by binary search. An index is immutable once built, and does not depend
+ * on the ultimate sequence fields of the BallotManifestInfo records it
+ * holds, so one index can serve every contest with the same county set.
+ */
+public final class ManifestIndex {
+  /**
+   * The batches, in ultimate sequence order.
+   */
+  private final BallotManifestInfo[] my_batches;
+
+  /**
+   * The ultimate sequence start of each batch.
+   */
+  private final long[] my_starts;
+
+  /**
+   * The ultimate sequence end of each batch, inclusive.
+   */
+  private final long[] my_ends;
+
+  /**
+   * Constructs an index.
+   *
+   * @param the_bmis The batches, in the order of the ultimate sequence
+   * (as returned by BallotManifestInfoQueries.getMatching).
+   */
+  public ManifestIndex(final Collection<BallotManifestInfo> the_bmis) {
+    my_batches = the_bmis.toArray(new BallotManifestInfo[the_bmis.size()]);
+    my_starts = new long[my_batches.length];
+    my_ends = new long[my_batches.length];
+    long last = 0L;
+    for (int i = 0; i < my_batches.length; i++) {
+      // the same projection as BallotSelection.projectUltimateSequence
+      my_starts[i] = last + 1L;
+      my_ends[i] = my_starts[i] + my_batches[i].rangeSize();
+      last = my_ends[i];
+    }
+  }
+
+  /**
+   * @return the number of batches in the index.
+   */
+  public int size() {
+    return my_batches.length;
+  }
+
+  /**
+   * @return the number of ballots in the ultimate sequence.
+   */
+  public long ballotCount() {
+    if (my_ends.length == 0) {
+      return 0;
+    }
+    return my_ends[my_ends.length - 1];
+  }
+
+  /**
+   * Find the batch holding a random selection.
+   *
+   * @param the_rand The random number, in the ultimate sequence.
+   * @return the index of the holding batch.
+   * @exception MissingBallotManifestException if no batch holds it.
+   */
+  private int indexHolding(final long the_rand) {
+    final int result = indexHolding(my_ends, the_rand);
+    if (result < 0 || the_rand < my_starts[result]) {
+      final String msg = "Could not find BallotManifestInfo holding random number: " +
+                         the_rand;
+      throw new MissingBallotManifestException(msg);
+    }
+    return result;
+  }
+
+  /**
+   * Finds the batch holding a ballot position, given the sorted sequence
+   * ends of consecutive batches numbered from 1.
+   *
+   * @param the_sequence_ends The sequence ends.
+   * @param the_position The 1-based ballot position.
+   * @return the index of the batch holding the position, or -1 if no batch
+   * holds it.
+   */
+  public static int indexHolding(final long[] the_sequence_ends, final long the_position) {
+    if (the_position < 1 || the_sequence_ends.length == 0 ||
+        the_sequence_ends[the_sequence_ends.length - 1] < the_position) {
+      return -1;
+    }
+    // the first batch whose end is at or after the position
+    final int found = Arrays.binarySearch(the_sequence_ends, the_position);
+    if (found >= 0) {
+      // batches may be empty, so equal ends are possible; take the first
+      int first = found;
+      while (first > 0 && the_sequence_ends[first - 1] == the_position) {
+        first = first - 1;
+      }
+      return first;
+    }
+    return -found - 1;
+  }
+
+  /**
+   * Find the manifest entry holding a random selection.
+   *
+   * @param the_rand The random number, in the ultimate sequence.
+   * @return the holding batch.
+   * @exception MissingBallotManifestException if no batch holds it.
+   */
+  public BallotManifestInfo holding(final long the_rand) {
+    return my_batches[indexHolding(the_rand)];
+  }
+
+  /**
+   * Translate a random selection from contest scope to batch scope; the
+   * same as BallotManifestInfo.translateRand after projecting the ultimate
+   * sequence.
+   *
+   * @param the_rand The random number, in the ultimate sequence.
+   * @return the 1-based position of the ballot in its batch.
+   * @exception MissingBallotManifestException if no batch holds it.
+   */
+  public int sequencePosition(final long the_rand) {
+    return (int) (the_rand - my_starts[indexHolding(the_rand)] + 1L);
+  }
+}
@@ -77,8 +77,7 @@ public final class HashChecker {
         do {
           bytes = dis.read(buffer);
         } while (bytes != -1);
-        final BigInteger bi = new BigInteger(1, md.digest());
-        result = String.format("%0" + (md.digest().length << 1) + "X", bi);
+        result = hexDigest(md.digest());
       } catch (final FileNotFoundException e) {
         Main.LOGGER.error("File to hash '" + a_file +
                           "' disappeared before it could be hashed.");
@@ -98,4 +97,15 @@ public final class HashChecker {
 
     return result;
   }
+
+  /**
+   * Formats a digest the way hashFile does.
+   *
+   * @param the_digest The digest bytes.
+   * @return the digest, encoded as an upper case hexadecimal string.
+   */
+  public static String hexDigest(final byte[] the_digest) {
+    final BigInteger bi = new BigInteger(1, the_digest);
+    return String.format("%0" + (the_digest.length << 1) + "X", bi);
+  }
 }
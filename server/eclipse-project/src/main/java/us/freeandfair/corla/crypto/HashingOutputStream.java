@@ -0,0 +1,122 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.crypto;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An output stream that passes bytes through to another stream while
+ * computing their SHA-256 hash and counting their lines, so that an upload
+ * can be hashed and counted as it is written instead of being read back.
+ *
+ * Lines are counted as the Java 8 LineNumberReader counts them: a line ends
+ * with a line feed, a carriage return, or a carriage return followed by a
+ * line feed, and a final line without a terminator is not counted. Both
+ * terminators are single bytes in UTF-8 and never occur inside multi-byte
+ * sequences, so counting bytes gives the same answer as counting chars.
+ */
+public class HashingOutputStream extends FilterOutputStream {
+  /**
+   * The digest of the bytes written so far.
+   */
+  private final MessageDigest my_digest;
+
+  /**
+   * The number of lines written so far.
+   */
+  private int my_line_count;
+
+  /**
+   * The number of bytes written so far.
+   */
+  private long my_byte_count;
+
+  /**
+   * Whether the last byte written was a carriage return.
+   */
+  private boolean my_after_cr;
+
+  /**
+   * Constructs a new HashingOutputStream.
+   *
+   * @param the_stream The stream to write to.
+   * @exception NoSuchAlgorithmException if SHA-256 is not available.
+   */
+  public HashingOutputStream(final OutputStream the_stream)
+      throws NoSuchAlgorithmException {
+    super(the_stream);
+    my_digest = MessageDigest.getInstance("SHA-256");
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final int the_byte) throws IOException {
+    out.write(the_byte);
+    my_digest.update((byte) the_byte);
+    count((byte) the_byte);
+    my_byte_count = my_byte_count + 1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final byte[] the_bytes, final int the_offset, final int the_length)
+      throws IOException {
+    out.write(the_bytes, the_offset, the_length);
+    my_digest.update(the_bytes, the_offset, the_length);
+    for (int i = the_offset; i < the_offset + the_length; i++) {
+      count(the_bytes[i]);
+    }
+    my_byte_count = my_byte_count + the_length;
+  }
+
+  /**
+   * Counts a line if the specified byte ends one.
+   *
+   * @param the_byte The byte.
+   */
+  private void count(final byte the_byte) {
+    if (the_byte == '\r' || the_byte == '\n' && !my_after_cr) {
+      my_line_count = my_line_count + 1;
+    }
+    my_after_cr = the_byte == '\r';
+  }
+
+  /**
+   * Finishes the hash; no more bytes may be written afterwards.
+   *
+   * @return the SHA-256 hash of the bytes written, formatted as by
+   * HashChecker.hashFile.
+   */
+  public String hash() {
+    return HashChecker.hexDigest(my_digest.digest());
+  }
+
+  /**
+   * @return the number of lines written.
+   */
+  public int lineCount() {
+    return my_line_count;
+  }
+
+  /**
+   * @return the number of bytes written.
+   */
+  public long byteCount() {
+    return my_byte_count;
+  }
+}
@@ -11,12 +11,17 @@
 
 package us.freeandfair.corla.crypto;
 
-import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import us.freeandfair.corla.util.LongMultiset;
 
 /**
  * A pseudo-random number generator based on Philip Stark's pseudo-random number
@@ -38,14 +43,37 @@ public class PseudoRandomNumberGenerator {
   public static final int MINIMUM_SEED_LENGTH = 20;
   
   /**
-   * The message digest we will use for generating hashes.
+   * The draw we will use for generating random numbers in sequence.
+   */
+  private final Draw my_draw;
+
+  /**
+   * The initial capacity of the generated number array and of the drawn
+   * number set.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * The number of random numbers below which fill does not split its range
+   * into parallel tasks.
+   */
+  private static final int FILL_THRESHOLD = 2048;
+
+  /**
+   * The random numbers generated so far; only the first my_size are valid.
    */
-  private MessageDigest my_sha256_digest;
+  private int[] my_random_numbers;
 
   /**
-   * The random numbers generated so far.
+   * The number of random numbers generated so far.
    */
-  private final List<Integer> my_random_numbers;
+  private int my_size;
+
+  /**
+   * The numbers drawn so far, when drawing without replacement; null when
+   * drawing with replacement.
+   */
+  private final LongMultiset my_drawn;
 
   /**
    * The current number to use for generation.
@@ -103,18 +131,19 @@ public class PseudoRandomNumberGenerator {
                                      final int the_maximum) {
     // @trace randomness.seed side condition
     assert MINIMUM_SEED_LENGTH <= the_seed.length();
-    try {
-      my_sha256_digest = MessageDigest.getInstance("SHA-256");
-    } catch (final NoSuchAlgorithmException e) {
-      assert false;
-    }
-    my_random_numbers = new LinkedList<Integer>();
+    my_random_numbers = new int[INITIAL_CAPACITY];
     my_with_replacement = the_with_replacement;
+    if (the_with_replacement) {
+      my_drawn = null;
+    } else {
+      my_drawn = new LongMultiset();
+    }
     my_seed = the_seed;
     assert the_minimum < the_maximum;
     my_minimum = the_minimum;
     my_maximum = the_maximum;
     my_maximum_index = my_maximum - my_minimum + 1;
+    my_draw = new Draw(my_seed, my_minimum, my_maximum);
   }
 
   /**
@@ -131,11 +160,23 @@ public class PseudoRandomNumberGenerator {
   public List<Integer> getRandomNumbers(final int the_from, final int the_to) {
     assert the_from <= the_to;
     assert my_with_replacement || the_to <= my_maximum_index;
-    if (the_to + 1 > my_random_numbers.size()) {
-      extendList(the_to + 1);
+    if (the_to + 1 > my_size) {
+      if (my_with_replacement) {
+        // every draw is kept, so the draws can be made in parallel
+        growTo(the_to + 1);
+        draw(my_random_numbers, 0, my_size, the_to + 1);
+        my_size = the_to + 1;
+        my_count = my_size;
+      } else {
+        extendList(the_to + 1);
+      }
+    }
+    final List<Integer> result = new ArrayList<>(the_to - the_from + 1);
+    // the_to is inclusive
+    for (int i = the_from; i <= the_to; i++) {
+      result.add(my_random_numbers[i]);
     }
-    // subList has an exclusive upper bound, but we have an inclusive one
-    return my_random_numbers.subList(the_from, the_to + 1);
+    return result;
   }
 
   /**
@@ -144,13 +185,91 @@ public class PseudoRandomNumberGenerator {
    */
   //@ private behavior
   //@   requires 0 <= the_length;
-  //@   ensures my_random_numbers.size() == the_length;
+  //@   ensures my_size == the_length;
   private void extendList(final int the_length) {
-    while (my_random_numbers.size() < the_length) {
+    growTo(the_length);
+    while (my_size < the_length) {
       generateNext();
     }
   }
 
+  /**
+   * Ensures that the array of generated random numbers can hold at least
+   * the specified number of them.
+   * @param the_length the number of random numbers.
+   */
+  private void growTo(final int the_length) {
+    if (my_random_numbers.length < the_length) {
+      my_random_numbers = Arrays.copyOf(my_random_numbers,
+                                        Math.max(the_length, my_random_numbers.length * 2));
+    }
+  }
+
+  /**
+   * Gives the random number at an index of the sequence. With replacement,
+   * this is a pure function of the seed and the index, and does not
+   * generate the numbers before it.
+   *
+   * @param the_index the "index" of the random number to give
+   * @return the random number.
+   */
+  //@ requires 0 <= the_index;
+  public int numberAt(final int the_index) {
+    assert 0 <= the_index;
+    if (the_index < my_size) {
+      return my_random_numbers[the_index];
+    }
+    if (my_with_replacement) {
+      return my_draw.pick(the_index + 1);
+    }
+    extendList(the_index + 1);
+    return my_random_numbers[the_index];
+  }
+
+  /**
+   * Fills an array with the specified random numbers. With replacement, the
+   * range is split across the common fork-join pool, each task drawing with
+   * its own digest.
+   *
+   * @param the_out the array to fill; the random number at index i is
+   * stored at the_out[i - the_from]
+   * @param the_from the "index" of the first random number to give
+   * @param the_to the "index" of the final random number to give
+   */
+  //@ requires 0 <= the_from && the_from <= the_to;
+  //@ requires the_to - the_from < the_out.length;
+  public void fill(final int[] the_out, final int the_from, final int the_to) {
+    assert 0 <= the_from && the_from <= the_to;
+    assert the_to - the_from < the_out.length;
+    if (my_with_replacement) {
+      draw(the_out, the_from, the_from, the_to + 1);
+    } else {
+      assert the_to <= my_maximum_index;
+      extendList(the_to + 1);
+      System.arraycopy(my_random_numbers, the_from, the_out, 0, the_to - the_from + 1);
+    }
+  }
+
+  /**
+   * Draws random numbers (with replacement) into an array, in parallel if
+   * there are many.
+   *
+   * @param the_out the array to fill
+   * @param the_base the "index" of the random number to store at the_out[0]
+   * @param the_from the "index" of the first random number to draw
+   * @param the_until the "index" after the final random number to draw
+   */
+  private void draw(final int[] the_out, final int the_base,
+                    final int the_from, final int the_until) {
+    final FillTask task = new FillTask(my_seed, my_minimum, my_maximum,
+                                       the_out, the_base, the_from, the_until);
+    if (the_until - the_from <= FILL_THRESHOLD) {
+      task.compute();
+    } else {
+      ForkJoinPool.commonPool().invoke(task);
+    }
+  }
+
   /**
    * Attempt to generate the next random number. This will either extend the
    * list of random numbers in length or leave it the same. It will always 
@@ -160,18 +279,14 @@ public class PseudoRandomNumberGenerator {
     my_count++;
     assert my_with_replacement || my_count <= my_maximum_index;
 
-    final String hash_input = my_seed + "," + my_count;
-
-    final byte[] hash_output =
-        my_sha256_digest.digest(hash_input.getBytes(StandardCharsets.UTF_8));
-    final BigInteger int_output = new BigInteger(1, hash_output);
+    final int pick = my_draw.pick(my_count);
 
-    final BigInteger in_range =
-        int_output.mod(BigInteger.valueOf(my_maximum - my_minimum + 1));
-    final int pick = my_minimum + in_range.intValueExact();
-
-    if (my_with_replacement || !my_random_numbers.contains(pick)) {
-      my_random_numbers.add(pick);
+    if (my_with_replacement || my_drawn.add(pick) == 1) {
+      if (my_size == my_random_numbers.length) {
+        my_random_numbers = Arrays.copyOf(my_random_numbers, my_size * 2);
+      }
+      my_random_numbers[my_size] = pick;
+      my_size = my_size + 1;
     }
   }
   
@@ -191,4 +306,194 @@ public class PseudoRandomNumberGenerator {
     }
     return true;
   }
+
+  /**
+   * Draws random numbers: the random number for a count is the SHA-256 hash
+   * of "seed,count", as an unsigned big-endian integer, modulo the size of
+   * the range, plus the minimum. A draw reuses its digest and buffers, so
+   * it is not thread-safe; each thread needs its own.
+   */
+  private static final class Draw {
+    /**
+     * The number of bytes in a SHA-256 hash.
+     */
+    private static final int HASH_BYTES = 32;
+
+    /**
+     * The most decimal digits in a count.
+     */
+    private static final int MAX_DIGITS = 10;
+
+    /**
+     * The message digest we will use for generating hashes.
+     */
+    private final MessageDigest my_digest;
+
+    /**
+     * The bytes of "seed,", which begin every hash input.
+     */
+    private final byte[] my_prefix;
+
+    /**
+     * The buffer for the digits of the count.
+     */
+    private final byte[] my_digits = new byte[MAX_DIGITS];
+
+    /**
+     * The buffer for the hash.
+     */
+    private final byte[] my_hash = new byte[HASH_BYTES];
+
+    /**
+     * The minimum value to generate.
+     */
+    private final int my_minimum;
+
+    /**
+     * The number of values that can be generated.
+     */
+    private final long my_range;
+
+    /**
+     * Constructs a draw.
+     *
+     * @param the_seed The seed.
+     * @param the_minimum The minimum value to generate.
+     * @param the_maximum The maximum value to generate.
+     */
+    Draw(final String the_seed, final int the_minimum, final int the_maximum) {
+      MessageDigest digest = null;
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (final NoSuchAlgorithmException e) {
+        assert false;
+      }
+      my_digest = digest;
+      my_prefix = (the_seed + ",").getBytes(StandardCharsets.UTF_8);
+      my_minimum = the_minimum;
+      my_range = (long) the_maximum - the_minimum + 1;
+    }
+
+    /**
+     * Draws the random number for a count.
+     *
+     * @param the_count The count, from 1.
+     * @return the random number.
+     */
+    public int pick(final int the_count) {
+      // the decimal digits of the count, right-aligned in the buffer
+      int start = MAX_DIGITS;
+      int rest = the_count;
+      do {
+        start = start - 1;
+        my_digits[start] = (byte) ('0' + rest % 10);
+        rest = rest / 10;
+      } while (rest > 0);
+
+      my_digest.update(my_prefix);
+      my_digest.update(my_digits, start, MAX_DIGITS - start);
+      try {
+        my_digest.digest(my_hash, 0, HASH_BYTES);
+      } catch (final DigestException e) {
+        throw new IllegalStateException(e);
+      }
+
+      // the hash modulo the range, a 32-bit word at a time; the remainder
+      // stays below 2^32, so shifting it left by 32 fits in 64 bits
+      long remainder = 0;
+      for (int i = 0; i < HASH_BYTES; i = i + 4) {
+        final long word = (my_hash[i] & 0xFFL) << 24 | (my_hash[i + 1] & 0xFFL) << 16 |
+                          (my_hash[i + 2] & 0xFFL) << 8 | my_hash[i + 3] & 0xFFL;
+        remainder = Long.remainderUnsigned(remainder << 32 | word, my_range);
+      }
+      return (int) (my_minimum + remainder);
+    }
+  }
+
+  /**
+   * Fills part of an array with drawn random numbers (with replacement),
+   * splitting the range in half until it is small.
+   */
+  @SuppressWarnings("serial")
+  private static final class FillTask extends RecursiveAction {
+    /**
+     * The seed.
+     */
+    private final String my_seed;
+
+    /**
+     * The minimum value to generate.
+     */
+    private final int my_minimum;
+
+    /**
+     * The maximum value to generate.
+     */
+    private final int my_maximum;
+
+    /**
+     * The array to fill.
+     */
+    private final int[] my_out;
+
+    /**
+     * The index of the random number stored at the_out[0].
+     */
+    private final int my_base;
+
+    /**
+     * The first index to draw.
+     */
+    private final int my_from;
+
+    /**
+     * The index after the last to draw.
+     */
+    private final int my_until;
+
+    /**
+     * Constructs a task.
+     *
+     * @param the_seed The seed.
+     * @param the_minimum The minimum value to generate.
+     * @param the_maximum The maximum value to generate.
+     * @param the_out The array to fill.
+     * @param the_base The index of the random number stored at the_out[0].
+     * @param the_from The first index to draw.
+     * @param the_until The index after the last to draw.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    FillTask(final String the_seed, final int the_minimum, final int the_maximum,
+             final int[] the_out, final int the_base,
+             final int the_from, final int the_until) {
+      super();
+      my_seed = the_seed;
+      my_minimum = the_minimum;
+      my_maximum = the_maximum;
+      my_out = the_out;
+      my_base = the_base;
+      my_from = the_from;
+      my_until = the_until;
+    }
+
+    /**
+     * Draws the range, or splits it.
+     */
+    @Override
+    protected void compute() {
+      if (my_until - my_from <= FILL_THRESHOLD) {
+        final Draw draw = new Draw(my_seed, my_minimum, my_maximum);
+        for (int i = my_from; i < my_until; i++) {
+          // the random number at index i has count i + 1
+          my_out[i - my_base] = draw.pick(i + 1);
+        }
+      } else {
+        final int middle = (my_from + my_until) >>> 1;
+        invokeAll(new FillTask(my_seed, my_minimum, my_maximum, my_out, my_base,
+                               my_from, middle),
+                  new FillTask(my_seed, my_minimum, my_maximum, my_out, my_base,
+                               middle, my_until));
+      }
+    }
+  }
 }
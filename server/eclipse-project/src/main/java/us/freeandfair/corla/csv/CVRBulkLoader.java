@@ -0,0 +1,187 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.csv;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.persistence.StringListConverter;
+import us.freeandfair.corla.query.ImportQueries;
+
+/**
+ * Writes parsed CVRs, and their contest information, directly into the
+ * cast_vote_record and cvr_contest_info tables with COPY instead of
+ * saving them one at a time through Hibernate. CVRs are buffered until
+ * flush() is called; flushing must happen within the running transaction,
+ * before it is committed.
+ */
+public class CVRBulkLoader {
+  /**
+   * The cast_vote_record columns we write, in CSV order.
+   */
+  private static final String CVR_TABLE =
+      "cast_vote_record (id, version, record_type, county_id, cvr_number, " +
+      "sequence_number, scanner_id, batch_id, record_id, imprinted_id, uri, ballot_type)";
+
+  /**
+   * The cvr_contest_info columns we write, in CSV order.
+   */
+  private static final String CONTEST_INFO_TABLE =
+      "cvr_contest_info (cvr_id, \"index\", contest_id, county_id, choices)";
+
+  /**
+   * The version of a newly created row, as Hibernate would write it.
+   */
+  private static final long INITIAL_VERSION = 0L;
+
+  /**
+   * The converter used for the choices column, so the stored format matches
+   * what Hibernate would have written.
+   */
+  private final StringListConverter my_choices_converter = new StringListConverter();
+
+  /**
+   * The CVRs that have not yet been written.
+   */
+  private final List<CastVoteRecord> my_pending = new ArrayList<>();
+
+  /**
+   * The number of CVRs written so far.
+   */
+  private long my_written_count;
+
+  /**
+   * Adds a CVR to be written at the next flush.
+   *
+   * @param the_cvr The CVR.
+   */
+  public void add(final CastVoteRecord the_cvr) {
+    my_pending.add(the_cvr);
+  }
+
+  /**
+   * @return the number of CVRs waiting to be written.
+   */
+  public int pendingCount() {
+    return my_pending.size();
+  }
+
+  /**
+   * @return the number of CVRs written so far.
+   */
+  public long writtenCount() {
+    return my_written_count;
+  }
+
+  /**
+   * Writes all pending CVRs and their contest information, assigning each
+   * CVR an ID from a block reserved in a single query.
+   *
+   * @exception javax.persistence.PersistenceException if the rows cannot
+   * be written.
+   */
+  public void flush() {
+    if (my_pending.isEmpty()) {
+      return;
+    }
+
+    // the contests referenced by the contest info rows must be in the
+    // database before we copy, since COPY checks foreign keys
+    Persistence.flush();
+
+    final long[] ids = ImportQueries.reserveIds(my_pending.size());
+    final StringBuilder cvrs = new StringBuilder();
+    final StringBuilder infos = new StringBuilder();
+
+    for (int i = 0; i < my_pending.size(); i++) {
+      final CastVoteRecord cvr = my_pending.get(i);
+      cvr.setID(ids[i]);
+      appendCVR(cvrs, cvr);
+      final List<CVRContestInfo> contest_info = cvr.contestInfo();
+      for (int j = 0; j < contest_info.size(); j++) {
+        appendContestInfo(infos, cvr, j, contest_info.get(j));
+      }
+    }
+
+    ImportQueries.csvIn(CVR_TABLE, cvrs.toString());
+    if (infos.length() > 0) {
+      ImportQueries.csvIn(CONTEST_INFO_TABLE, infos.toString());
+    }
+
+    my_written_count = my_written_count + my_pending.size();
+    my_pending.clear();
+  }
+
+  /**
+   * Appends the cast_vote_record row for the specified CVR.
+   *
+   * @param the_builder The builder.
+   * @param the_cvr The CVR.
+   */
+  private static void appendCVR(final StringBuilder the_builder,
+                                final CastVoteRecord the_cvr) {
+    appendValue(the_builder, the_cvr.id()).append(',');
+    appendValue(the_builder, INITIAL_VERSION).append(',');
+    appendValue(the_builder, the_cvr.recordType().toString()).append(',');
+    appendValue(the_builder, the_cvr.countyID()).append(',');
+    appendValue(the_builder, the_cvr.cvrNumber()).append(',');
+    appendValue(the_builder, the_cvr.sequenceNumber()).append(',');
+    appendValue(the_builder, the_cvr.scannerID()).append(',');
+    appendValue(the_builder, the_cvr.batchID()).append(',');
+    appendValue(the_builder, the_cvr.recordID()).append(',');
+    appendValue(the_builder, the_cvr.imprintedID()).append(',');
+    appendValue(the_builder, the_cvr.getUri()).append(',');
+    appendValue(the_builder, the_cvr.ballotType()).append('\n');
+  }
+
+  /**
+   * Appends the cvr_contest_info row for the specified contest information.
+   *
+   * @param the_builder The builder.
+   * @param the_cvr The CVR the contest information belongs to.
+   * @param the_index The position of the contest information in the CVR.
+   * @param the_info The contest information.
+   */
+  private void appendContestInfo(final StringBuilder the_builder,
+                                 final CastVoteRecord the_cvr,
+                                 final int the_index,
+                                 final CVRContestInfo the_info) {
+    appendValue(the_builder, the_cvr.id()).append(',');
+    appendValue(the_builder, the_index).append(',');
+    appendValue(the_builder, the_info.contest().id()).append(',');
+    appendValue(the_builder, the_cvr.countyID()).append(',');
+    appendValue(the_builder,
+                my_choices_converter.convertToDatabaseColumn(the_info.choices()))
+        .append('\n');
+  }
+
+  /**
+   * Appends a single CSV value. Strings are always quoted, so that an empty
+   * string is distinguishable from a null, which is written as nothing.
+   *
+   * @param the_builder The builder.
+   * @param the_value The value.
+   * @return the builder.
+   */
+  static StringBuilder appendValue(final StringBuilder the_builder,
+                                           final Object the_value) {
+    if (the_value instanceof String) {
+      the_builder.append('"')
+                 .append(((String) the_value).replace("\"", "\"\""))
+                 .append('"');
+    } else if (the_value != null) {
+      the_builder.append(the_value);
+    }
+    return the_builder;
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.csv;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+import us.freeandfair.corla.model.CastVoteRecord;
+
+/**
+ * A staged pipeline for converting CVR export records. One reader thread
+ * pulls records from the decoder and groups them into chunks, a pool of
+ * workers converts the chunks into CVRs, and the converted chunks are handed
+ * back, in file order, to the thread calling nextChunk(), which is the only
+ * thread that may touch the database. The queue between the reader and the
+ * caller is bounded, so the reader blocks when the caller falls behind.
+ *
+ * Conversion must not use persistence; it runs on worker threads that have
+ * no session.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+class CVRParsePipeline implements AutoCloseable {
+  /**
+   * The number of chunks that may be queued per worker.
+   */
+  private static final int CHUNKS_PER_WORKER = 2;
+
+  /**
+   * Converts a single record into a CVR with the given sequence number.
+   */
+  @FunctionalInterface
+  interface Converter {
+    /**
+     * @param the_line The record.
+     * @param the_sequence_number The sequence number of the record.
+     * @return the CVR.
+     */
+    CastVoteRecord convert(DominionCSVDecoder.Record the_line, int the_sequence_number);
+  }
+
+  /**
+   * A converted record: the record, and either its CVR or the error that
+   * occurred while converting it.
+   */
+  static final class Row {
+    /**
+     * The record.
+     */
+    private final DominionCSVDecoder.Record my_line;
+
+    /**
+     * The CVR, or null if conversion failed.
+     */
+    private final CastVoteRecord my_cvr;
+
+    /**
+     * The conversion error, or null if conversion succeeded.
+     */
+    private final RuntimeException my_error;
+
+    /**
+     * Constructs a new row.
+     *
+     * @param the_line The record.
+     * @param the_cvr The CVR.
+     * @param the_error The error.
+     */
+    Row(final DominionCSVDecoder.Record the_line, final CastVoteRecord the_cvr,
+        final RuntimeException the_error) {
+      my_line = the_line;
+      my_cvr = the_cvr;
+      my_error = the_error;
+    }
+
+    /**
+     * @return the record.
+     */
+    DominionCSVDecoder.Record line() {
+      return my_line;
+    }
+
+    /**
+     * @return the CVR, or null if conversion failed.
+     */
+    CastVoteRecord cvr() {
+      return my_cvr;
+    }
+
+    /**
+     * @return the conversion error, or null if conversion succeeded.
+     */
+    RuntimeException error() {
+      return my_error;
+    }
+  }
+
+  /**
+   * The records to convert.
+   */
+  private final Iterator<DominionCSVDecoder.Record> my_records;
+
+  /**
+   * The converter.
+   */
+  private final Converter my_converter;
+
+  /**
+   * The number of records per chunk.
+   */
+  private final int my_chunk_size;
+
+  /**
+   * The sequence number of the first record.
+   */
+  private final int my_first_sequence_number;
+
+  /**
+   * The reader stage.
+   */
+  private final ExecutorService my_reader;
+
+  /**
+   * The conversion workers.
+   */
+  private final ExecutorService my_workers;
+
+  /**
+   * The converted chunks, in file order; a chunk with a null value marks
+   * the end of the records.
+   */
+  private final BlockingQueue<CompletableFuture<List<Row>>> my_chunks;
+
+  /**
+   * Constructs a new pipeline and starts reading.
+   *
+   * @param the_records The records to convert.
+   * @param the_converter The converter.
+   * @param the_workers The number of conversion workers.
+   * @param the_chunk_size The number of records per chunk.
+   * @param the_first_sequence_number The sequence number of the first record.
+   */
+  CVRParsePipeline(final Iterator<DominionCSVDecoder.Record> the_records,
+                   final Converter the_converter,
+                   final int the_workers,
+                   final int the_chunk_size,
+                   final int the_first_sequence_number) {
+    my_records = the_records;
+    my_converter = the_converter;
+    my_chunk_size = the_chunk_size;
+    my_first_sequence_number = the_first_sequence_number;
+    my_chunks = new ArrayBlockingQueue<>(the_workers * CHUNKS_PER_WORKER);
+    my_workers = Executors.newFixedThreadPool(the_workers);
+    my_reader = Executors.newSingleThreadExecutor();
+    my_reader.execute(this::read);
+  }
+
+  /**
+   * The reader stage: groups the records into chunks and queues them for
+   * conversion. A failure to read is queued in place of the next chunk.
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private void read() {
+    int sequence_number = my_first_sequence_number;
+    try {
+      while (my_records.hasNext()) {
+        final List<DominionCSVDecoder.Record> lines = new ArrayList<>(my_chunk_size);
+        while (lines.size() < my_chunk_size && my_records.hasNext()) {
+          lines.add(my_records.next());
+        }
+        final int first = sequence_number;
+        sequence_number = sequence_number + lines.size();
+        my_chunks.put(CompletableFuture.supplyAsync(() -> convert(lines, first),
+                                                    my_workers));
+      }
+      my_chunks.put(CompletableFuture.completedFuture(null));
+    } catch (final InterruptedException e) {
+      // we were closed, so nobody is waiting for any more chunks
+      Thread.currentThread().interrupt();
+    } catch (final RuntimeException e) {
+      final CompletableFuture<List<Row>> failure = new CompletableFuture<>();
+      failure.completeExceptionally(e);
+      try {
+        my_chunks.put(failure);
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * The conversion stage: converts a chunk of records, stopping at the
+   * first record that fails, since nothing after it will be used.
+   *
+   * @param the_lines The records.
+   * @param the_first_sequence_number The sequence number of the first record.
+   * @return the converted rows.
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private List<Row> convert(final List<DominionCSVDecoder.Record> the_lines,
+                            final int the_first_sequence_number) {
+    final List<Row> result = new ArrayList<>(the_lines.size());
+    int sequence_number = the_first_sequence_number;
+    for (final DominionCSVDecoder.Record line : the_lines) {
+      try {
+        result.add(new Row(line, my_converter.convert(line, sequence_number), null));
+      } catch (final RuntimeException e) {
+        result.add(new Row(line, null, e));
+        break;
+      }
+      sequence_number = sequence_number + 1;
+    }
+    return result;
+  }
+
+  /**
+   * Waits for the next chunk of converted rows, in file order.
+   *
+   * @return the next chunk, or null if there are no more records.
+   * @exception RuntimeException if the records could not be read; this is
+   * the exception thrown by the CSV parser.
+   */
+  @SuppressWarnings("PMD.PreserveStackTrace")
+  List<Row> nextChunk() {
+    try {
+      return my_chunks.take().get();
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while parsing CVRs", e);
+    }
+  }
+
+  /**
+   * Stops the reader and the workers, discarding any unconsumed chunks.
+   */
+  @Override
+  public void close() {
+    my_reader.shutdownNow();
+    my_workers.shutdownNow();
+    my_chunks.clear();
+  }
+}
@@ -19,6 +19,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.OptionalInt;
+import java.util.Properties;
 import java.util.Set;
 
 import org.apache.commons.csv.CSVFormat;
@@ -29,6 +30,7 @@ import org.apache.log4j.Logger;
 
 import us.freeandfair.corla.model.BallotManifestInfo;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.ImportQueries;
 
 /**
  * The parser for Colorado ballot manifests.
@@ -43,6 +45,24 @@ public class ColoradoBallotManifestParser {
   public static final Logger LOGGER =
       LogManager.getLogger(ColoradoBallotManifestParser.class);
 
+  /**
+   * The name of the bulk copy property; if true, ballot manifests are
+   * written with COPY rather than saved through Hibernate.
+   */
+  public static final String BULK_COPY_PROPERTY = "manifest_import_bulk_copy";
+
+  /**
+   * The ballot_manifest_info columns we write with COPY, in CSV order.
+   */
+  private static final String BMI_TABLE =
+      "ballot_manifest_info (id, version, county_id, scanner_id, batch_id, batch_size, " +
+      "storage_location, sequence_start, sequence_end, uri)";
+
+  /**
+   * The version of a newly created row, as Hibernate would write it.
+   */
+  private static final long INITIAL_VERSION = 0L;
+
   /**
    * The size of a batch of ballot manifests to be flushed to the database.
    */
@@ -89,6 +109,17 @@ public class ColoradoBallotManifestParser {
    */
   private final Set<BallotManifestInfo> my_parsed_manifests = new HashSet<>();
 
+  /**
+   * The parsed ballot manifests, in sequence order, when they are written
+   * with COPY.
+   */
+  private final List<BallotManifestInfo> my_manifests = new ArrayList<>();
+
+  /**
+   * A flag that indicates whether ballot manifests are written with COPY.
+   */
+  private final boolean my_bulk_copy;
+
   /**
    * Construct a new Colorado ballot manifest parser using the specified Reader.
    *
@@ -100,8 +131,25 @@ public class ColoradoBallotManifestParser {
   public ColoradoBallotManifestParser(final Reader the_reader,
                                       final Long the_county_id)
       throws IOException {
+    this(the_reader, the_county_id, new Properties());
+  }
+
+  /**
+   * Construct a new Colorado ballot manifest parser using the specified Reader.
+   *
+   * @param the_reader The reader from which to read the CSV to parse.
+   * @param the_county_id The county ID for the parsed records.
+   * @param the_properties The properties from which to read whether to
+   * write the records with COPY.
+   * @exception IOException if an error occurs while constructing the parser.
+   */
+  public ColoradoBallotManifestParser(final Reader the_reader,
+                                      final Long the_county_id,
+                                      final Properties the_properties)
+      throws IOException {
     my_parser = new CSVParser(the_reader, CSVFormat.DEFAULT);
     my_county_id = the_county_id;
+    my_bulk_copy = Boolean.parseBoolean(the_properties.getProperty(BULK_COPY_PROPERTY));
   }
 
   /**
@@ -117,6 +165,7 @@ public class ColoradoBallotManifestParser {
       throws IOException {
     my_parser = CSVParser.parse(the_string, CSVFormat.DEFAULT);
     my_county_id = the_county_id;
+    my_bulk_copy = false;
   }
 
   /**
@@ -164,9 +213,13 @@ public class ColoradoBallotManifestParser {
                                     the_line.get(BATCH_LOCATION_COLUMN),
                                     sequence_start,
                                     sequence_end);
-    Persistence.saveOrUpdate(bmi);
-    my_parsed_manifests.add(bmi);
-    checkForFlush();
+    if (my_bulk_copy) {
+      my_manifests.add(bmi);
+    } else {
+      Persistence.saveOrUpdate(bmi);
+      my_parsed_manifests.add(bmi);
+      checkForFlush();
+    }
     LOGGER.debug("parsed ballot manifest: " + bmi);
 
     return bmi;
@@ -199,6 +252,10 @@ public class ColoradoBallotManifestParser {
         my_ballot_count = Math.toIntExact(bmi.sequenceEnd());
       }
 
+      if (my_bulk_copy) {
+        copyManifests();
+      }
+
       result.success = true;
       result.importedCount = my_record_count;
     } catch (final IllegalStateException | NoSuchElementException e) {
@@ -220,6 +277,39 @@ public class ColoradoBallotManifestParser {
     return result;
   }
 
+  /**
+   * Writes all the parsed ballot manifests with a single COPY, assigning
+   * each an ID from a block reserved in a single query.
+   *
+   * @exception javax.persistence.PersistenceException if the rows cannot
+   * be written.
+   */
+  private void copyManifests() {
+    if (my_manifests.isEmpty()) {
+      return;
+    }
+    // the deletion of any previous manifest must happen first
+    Persistence.flush();
+
+    final long[] ids = ImportQueries.reserveIds(my_manifests.size());
+    final StringBuilder rows = new StringBuilder();
+    for (int i = 0; i < my_manifests.size(); i++) {
+      final BallotManifestInfo bmi = my_manifests.get(i);
+      bmi.setID(ids[i]);
+      CVRBulkLoader.appendValue(rows, bmi.id()).append(',');
+      CVRBulkLoader.appendValue(rows, INITIAL_VERSION).append(',');
+      CVRBulkLoader.appendValue(rows, bmi.countyID()).append(',');
+      CVRBulkLoader.appendValue(rows, bmi.scannerID()).append(',');
+      CVRBulkLoader.appendValue(rows, bmi.batchID()).append(',');
+      CVRBulkLoader.appendValue(rows, bmi.batchSize()).append(',');
+      CVRBulkLoader.appendValue(rows, bmi.storageLocation()).append(',');
+      CVRBulkLoader.appendValue(rows, bmi.sequenceStart()).append(',');
+      CVRBulkLoader.appendValue(rows, bmi.sequenceEnd()).append(',');
+      CVRBulkLoader.appendValue(rows, bmi.getUri()).append('\n');
+    }
+    ImportQueries.csvIn(BMI_TABLE, rows.toString());
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -0,0 +1,537 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A decoder for the records of a Dominion CVR export, which reads the same
+ * CSV dialect as commons-csv's CSVFormat.DEFAULT (comma-separated, fields
+ * optionally enclosed in double quotes, "" for a quote within a quoted
+ * field, empty lines ignored) but decodes each record into a single
+ * reusable Record instead of allocating a String per field. Fields are
+ * decoded into Strings or ints only when asked for, and the '="..."'
+ * quoting Dominion uses for identifiers is removed by index arithmetic.
+ */
+final class DominionCSVDecoder {
+  /**
+   * The mark of a choice in a contest that is not on the ballot (an empty
+   * field).
+   */
+  static final byte ABSENT = 0;
+
+  /**
+   * The mark of a choice that was not voted for (any field but "1").
+   */
+  static final byte UNMARKED = 1;
+
+  /**
+   * The mark of a choice that was voted for (a "1" field).
+   */
+  static final byte MARKED = 2;
+
+  /**
+   * The size of the input buffer, in chars.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+  /**
+   * The initial capacity of a record, in chars.
+   */
+  private static final int INITIAL_RECORD_CHARS = 1024;
+
+  /**
+   * The initial capacity of a record, in fields.
+   */
+  private static final int INITIAL_RECORD_FIELDS = 64;
+
+  /**
+   * The reader.
+   */
+  private final Reader my_reader;
+
+  /**
+   * The input buffer.
+   */
+  private final char[] my_buffer = new char[BUFFER_SIZE];
+
+  /**
+   * The position of the next char in the input buffer.
+   */
+  private int my_position;
+
+  /**
+   * The number of chars in the input buffer.
+   */
+  private int my_limit;
+
+  /**
+   * The current record, which is reused for every record.
+   */
+  private final Record my_record = new Record();
+
+  /**
+   * The raw text read, while it is being captured; null otherwise.
+   */
+  private StringBuilder my_raw;
+
+  /**
+   * Constructs a new decoder.
+   *
+   * @param the_reader The reader from which to read the CSV.
+   */
+  DominionCSVDecoder(final Reader the_reader) {
+    my_reader = the_reader;
+  }
+
+  /**
+   * Decodes the specified number of records (or as many as there are, if
+   * there are fewer or one cannot be decoded), returning the text they were
+   * decoded from. This lets the few header records be handed to commons-csv
+   * unchanged, with the same record numbers they would have had.
+   *
+   * @param the_count The number of records.
+   * @return the text of the records.
+   * @exception IOException if the text cannot be read.
+   */
+  String readRaw(final int the_count) throws IOException {
+    my_raw = new StringBuilder();
+    try {
+      for (int i = 0; i < the_count && next(); i++) {
+        // the record itself is not needed, only its text
+      }
+    } catch (final MalformedCSVException e) {
+      // commons-csv will find this again, and report it
+    }
+    final String result = my_raw.toString();
+    my_raw = null;
+    return result;
+  }
+
+  /**
+   * Decodes the next record into current().
+   *
+   * @return true if there was a record, false at the end of the input.
+   * @exception IOException if the input cannot be read or is not valid CSV.
+   */
+  @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.ModifiedCyclomaticComplexity",
+      "PMD.StdCyclomaticComplexity", "PMD.NPathComplexity"})
+  boolean next() throws IOException {
+    int c = read();
+    // skip empty lines
+    while (c == '\r' || c == '\n') {
+      c = read();
+    }
+    if (c < 0) {
+      return false;
+    }
+
+    final Record record = my_record;
+    record.my_size = 0;
+    record.my_length = 0;
+    record.my_number = record.my_number + 1;
+    while (true) {
+      if (c == '"') {
+        c = read();
+        while (true) {
+          if (c < 0) {
+            throw new MalformedCSVException("EOF reached before encapsulated token " +
+                                            "finished in record " + record.my_number);
+          } else if (c == '"') {
+            c = read();
+            if (c != '"') {
+              break;
+            }
+          }
+          record.append((char) c);
+          c = read();
+        }
+        while (c == ' ' || c == '\t') {
+          c = read();
+        }
+        if (c >= 0 && c != ',' && c != '\r' && c != '\n') {
+          throw new MalformedCSVException("invalid char between encapsulated token " +
+                                          "and delimiter in record " + record.my_number);
+        }
+      } else {
+        while (c >= 0 && c != ',' && c != '\r' && c != '\n') {
+          record.append((char) c);
+          c = read();
+        }
+      }
+      record.endField();
+      if (c != ',') {
+        break;
+      }
+      c = read();
+    }
+    if (c == '\r' && peek() == '\n') {
+      read();
+    }
+    return true;
+  }
+
+  /**
+   * @return the current record; its contents change on the next call to
+   * next().
+   */
+  Record current() {
+    return my_record;
+  }
+
+  /**
+   * @return an iterator over copies of the remaining records, which can be
+   * kept; as with commons-csv, an IllegalStateException is thrown if a
+   * record cannot be decoded.
+   */
+  Iterator<Record> copies() {
+    return new Iterator<Record>() {
+      /**
+       * The next record, or null if it has not been decoded yet.
+       */
+      private Record my_next;
+
+      /**
+       * True when there are no more records.
+       */
+      private boolean my_done;
+
+      @Override
+      public boolean hasNext() {
+        if (my_next == null && !my_done) {
+          try {
+            if (DominionCSVDecoder.this.next()) {
+              my_next = my_record.copy();
+            } else {
+              my_done = true;
+            }
+          } catch (final IOException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+        return my_next != null;
+      }
+
+      @Override
+      public Record next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final Record result = my_next;
+        my_next = null;
+        return result;
+      }
+    };
+  }
+
+  /**
+   * Reads a char.
+   *
+   * @return the char, or -1 at the end of the input.
+   * @exception IOException if the input cannot be read.
+   */
+  private int read() throws IOException {
+    if (my_position == my_limit && !fill()) {
+      return -1;
+    }
+    final char c = my_buffer[my_position];
+    my_position = my_position + 1;
+    if (my_raw != null) {
+      my_raw.append(c);
+    }
+    return c;
+  }
+
+  /**
+   * Looks at the next char without reading it.
+   *
+   * @return the char, or -1 at the end of the input.
+   * @exception IOException if the input cannot be read.
+   */
+  private int peek() throws IOException {
+    if (my_position == my_limit && !fill()) {
+      return -1;
+    }
+    return my_buffer[my_position];
+  }
+
+  /**
+   * Refills the input buffer.
+   *
+   * @return true if any chars were read, false at the end of the input.
+   * @exception IOException if the input cannot be read.
+   */
+  private boolean fill() throws IOException {
+    int count = my_reader.read(my_buffer, 0, my_buffer.length);
+    while (count == 0) {
+      count = my_reader.read(my_buffer, 0, my_buffer.length);
+    }
+    my_position = 0;
+    my_limit = Math.max(count, 0);
+    return count > 0;
+  }
+
+  /**
+   * Thrown when the input is not valid CSV.
+   */
+  static class MalformedCSVException extends IOException {
+    /**
+     * The serialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new MalformedCSVException.
+     *
+     * @param the_message The message.
+     */
+    MalformedCSVException(final String the_message) {
+      super(the_message);
+    }
+  }
+
+  /**
+   * A decoded record: the unquoted text of its fields, one after another,
+   * and where each field ends.
+   */
+  static final class Record {
+    /**
+     * The text of the fields.
+     */
+    private char[] my_chars;
+
+    /**
+     * The index in my_chars of the end of each field.
+     */
+    private int[] my_ends;
+
+    /**
+     * The number of chars used.
+     */
+    private int my_length;
+
+    /**
+     * The number of fields.
+     */
+    private int my_size;
+
+    /**
+     * The record number (1-based, counting records, not lines).
+     */
+    private long my_number;
+
+    /**
+     * Constructs a new, empty record.
+     */
+    Record() {
+      my_chars = new char[INITIAL_RECORD_CHARS];
+      my_ends = new int[INITIAL_RECORD_FIELDS];
+    }
+
+    /**
+     * Constructs a copy of the specified record.
+     *
+     * @param the_record The record.
+     */
+    private Record(final Record the_record) {
+      my_chars = Arrays.copyOf(the_record.my_chars, the_record.my_length);
+      my_ends = Arrays.copyOf(the_record.my_ends, the_record.my_size);
+      my_length = the_record.my_length;
+      my_size = the_record.my_size;
+      my_number = the_record.my_number;
+    }
+
+    /**
+     * @return a copy of this record, which does not change when this
+     * record does.
+     */
+    Record copy() {
+      return new Record(this);
+    }
+
+    /**
+     * Appends a char to the current field.
+     *
+     * @param the_char The char.
+     */
+    private void append(final char the_char) {
+      if (my_length == my_chars.length) {
+        my_chars = Arrays.copyOf(my_chars, my_chars.length * 2);
+      }
+      my_chars[my_length] = the_char;
+      my_length = my_length + 1;
+    }
+
+    /**
+     * Ends the current field.
+     */
+    private void endField() {
+      if (my_size == my_ends.length) {
+        my_ends = Arrays.copyOf(my_ends, my_ends.length * 2);
+      }
+      my_ends[my_size] = my_length;
+      my_size = my_size + 1;
+    }
+
+    /**
+     * @return the record number.
+     */
+    long recordNumber() {
+      return my_number;
+    }
+
+    /**
+     * @return the number of fields.
+     */
+    int size() {
+      return my_size;
+    }
+
+    /**
+     * @param the_index The field index.
+     * @return the index in my_chars of the start of the field.
+     */
+    private int start(final int the_index) {
+      if (the_index < 0 || the_index >= my_size) {
+        throw new ArrayIndexOutOfBoundsException("field " + the_index + " of record " +
+                                                 my_number + ", which has " + my_size +
+                                                 " fields");
+      }
+      if (the_index == 0) {
+        return 0;
+      }
+      return my_ends[the_index - 1];
+    }
+
+    /**
+     * @param the_start The start of a field.
+     * @param the_end The end of the field.
+     * @return true if the field has the '="..."' form.
+     */
+    private boolean equalQuoted(final int the_start, final int the_end) {
+      return the_end - the_start >= 3 && my_chars[the_start] == '=' &&
+             my_chars[the_start + 1] == '"' && my_chars[the_end - 1] == '"';
+    }
+
+    /**
+     * @param the_index The field index.
+     * @return the field, as it appears in the file (less any CSV quoting).
+     */
+    String get(final int the_index) {
+      final int start = start(the_index);
+      return new String(my_chars, start, my_ends[the_index] - start);
+    }
+
+    /**
+     * @param the_index The field index.
+     * @return the field, less any '="..."' quoting.
+     */
+    String value(final int the_index) {
+      int start = start(the_index);
+      int end = my_ends[the_index];
+      if (equalQuoted(start, end)) {
+        start = start + 2;
+        end = end - 1;
+      }
+      return new String(my_chars, start, end - start);
+    }
+
+    /**
+     * Parses a field, less any '="..."' quoting, as a decimal int, exactly
+     * as Integer.parseInt would.
+     *
+     * @param the_index The field index.
+     * @return the value.
+     * @exception NumberFormatException if the field is not an int.
+     */
+    @SuppressWarnings("PMD.AvoidLiteralsInIfCondition")
+    int intValue(final int the_index) {
+      int start = start(the_index);
+      int end = my_ends[the_index];
+      if (equalQuoted(start, end)) {
+        start = start + 2;
+        end = end - 1;
+      }
+      int i = start;
+      boolean negative = false;
+      if (i < end && (my_chars[i] == '-' || my_chars[i] == '+')) {
+        negative = my_chars[i] == '-';
+        i = i + 1;
+      }
+      if (i == end) {
+        throw new NumberFormatException("For input string: \"" + value(the_index) + "\"");
+      }
+      long result = 0;
+      while (i < end) {
+        final int digit = my_chars[i] - '0';
+        if (digit < 0 || digit > 9) {
+          throw new NumberFormatException("For input string: \"" +
+                                          value(the_index) + "\"");
+        }
+        result = result * 10 + digit;
+        if (result > (long) Integer.MAX_VALUE + 1) {
+          throw new NumberFormatException("For input string: \"" +
+                                          value(the_index) + "\"");
+        }
+        i = i + 1;
+      }
+      if (negative) {
+        result = -result;
+      }
+      if (result > Integer.MAX_VALUE) {
+        throw new NumberFormatException("For input string: \"" + value(the_index) + "\"");
+      }
+      return (int) result;
+    }
+
+    /**
+     * @param the_index The field index.
+     * @return the vote mark in the field: ABSENT, UNMARKED or MARKED.
+     */
+    byte mark(final int the_index) {
+      final int start = start(the_index);
+      final int end = my_ends[the_index];
+      final byte result;
+      if (start == end) {
+        result = ABSENT;
+      } else if (end - start == 1 && my_chars[start] == '1') {
+        result = MARKED;
+      } else {
+        result = UNMARKED;
+      }
+      return result;
+    }
+
+    /**
+     * @return the fields, as they appear in the file.
+     */
+    List<String> values() {
+      final List<String> result = new ArrayList<>(my_size);
+      for (int i = 0; i < my_size; i++) {
+        result.add(get(i));
+      }
+      return result;
+    }
+
+    /**
+     * @return the fields, separated by commas.
+     */
+    @Override
+    public String toString() {
+      return String.join(",", values());
+    }
+  }
+}
@@ -13,6 +13,7 @@ package us.freeandfair.corla.csv;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -35,6 +36,7 @@ import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CVRImportCheckpoint;
 import us.freeandfair.corla.model.CastVoteRecord;
 import us.freeandfair.corla.model.CastVoteRecord.RecordType;
 import us.freeandfair.corla.model.Choice;
@@ -71,6 +73,18 @@ public class DominionCVRExportParser {
    */
   public static final String BATCH_SIZE_PROPERTY = "cvr_import_batch_size";
 
+  /**
+   * The name of the bulk copy property; if true, CVRs are written with COPY
+   * rather than saved through Hibernate.
+   */
+  public static final String BULK_COPY_PROPERTY = "cvr_import_bulk_copy";
+
+  /**
+   * The name of the parse threads property; if greater than 1, CVRs are
+   * converted on that many worker threads.
+   */
+  public static final String PARSE_THREADS_PROPERTY = "cvr_import_parse_threads";
+
   /**
    * The number of times to retry a county dashboard update operation.
    */
@@ -96,6 +110,17 @@ public class DominionCVRExportParser {
    */
   private static final int DEFAULT_TRANSACTION_SIZE = 400;
 
+  /**
+   * The default number of threads used to convert CVRs.
+   */
+  private static final int DEFAULT_PARSE_THREADS = 1;
+
+  /**
+   * The number of header lines (election name, contest names, choice names,
+   * and explanations) at the start of a Dominion export file.
+   */
+  private static final int HEADER_LINES = 4;
+
   /**
    * The column containing the CVR number in a Dominion export file.
    */
@@ -151,7 +176,12 @@ public class DominionCVRExportParser {
       };
 
   /**
-   * The parser to be used.
+   * The decoder for the lines of the file.
+   */
+  private final DominionCSVDecoder my_decoder;
+
+  /**
+   * The parser for the header lines of the file.
    */
   private final CSVParser my_parser;
 
@@ -165,6 +195,69 @@ public class DominionCVRExportParser {
    */
   private int my_first_contest_column;
 
+  /**
+   * The column containing the CVR number.
+   */
+  private int my_cvr_number_column;
+
+  /**
+   * The column containing the tabulator number.
+   */
+  private int my_tabulator_number_column;
+
+  /**
+   * The column containing the batch ID.
+   */
+  private int my_batch_id_column;
+
+  /**
+   * The column containing the record ID.
+   */
+  private int my_record_id_column;
+
+  /**
+   * The column containing the imprinted ID.
+   */
+  private int my_imprinted_id_column;
+
+  /**
+   * The column containing the ballot type.
+   */
+  private int my_ballot_type_column;
+
+  /**
+   * The number of choices in each contest, in file order.
+   */
+  private int[] my_choice_counts;
+
+  /**
+   * The name of the choice in each choice column.
+   */
+  private String[] my_choice_names;
+
+  /**
+   * Whether the choice in each choice column is fictitious.
+   */
+  private boolean[] my_fictitious;
+
+  /**
+   * The votes counted for the choice in each choice column since the
+   * tallies were last added to the county contest results.
+   */
+  private int[] my_vote_tallies;
+
+  /**
+   * The ballots counted for each contest, in file order, since the tallies
+   * were last added to the county contest results.
+   */
+  private int[] my_contest_ballot_tallies;
+
+  /**
+   * The ballots counted since the tallies were last added to the county
+   * contest results.
+   */
+  private int my_county_ballot_tally;
+
   /**
    * The list of contests parsed from the supplied data export.
    */
@@ -208,6 +301,43 @@ public class DominionCVRExportParser {
    */
   private final boolean my_multi_transaction;
 
+  /**
+   * The bulk loader used to write CVRs with COPY, or null if CVRs are
+   * saved through Hibernate.
+   */
+  private final CVRBulkLoader my_bulk_loader;
+
+  /**
+   * The number of threads used to convert CVRs.
+   */
+  private final int my_parse_threads;
+
+  /**
+   * The checkpoint in which progress is recorded at every commit, or null
+   * if progress is not recorded.
+   */
+  private CVRImportCheckpoint my_checkpoint;
+
+  /**
+   * Thrown when an import cannot resume from its checkpoint, because the
+   * checkpoint does not match the file or the contests in the database.
+   */
+  public static class CheckpointMismatchException extends IllegalStateException {
+    /**
+     * The serialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new CheckpointMismatchException.
+     *
+     * @param the_message The message.
+     */
+    public CheckpointMismatchException(final String the_message) {
+      super(the_message);
+    }
+  }
+
   /**
    * Construct a new Dominion CVR export parser using the specified Reader,
    * for CVRs provided by the specified county.
@@ -226,13 +356,22 @@ public class DominionCVRExportParser {
                                  final Properties the_properties,
                                  final boolean the_multi_transaction)
       throws IOException {
-    my_parser = new CSVParser(the_reader, CSVFormat.DEFAULT);
+    my_decoder = new DominionCSVDecoder(the_reader);
+    my_parser = new CSVParser(new StringReader(my_decoder.readRaw(HEADER_LINES)),
+                              CSVFormat.DEFAULT);
     my_county = the_county;
     my_multi_transaction = the_multi_transaction;
     my_batch_size = parseProperty(the_properties, BATCH_SIZE_PROPERTY,
                                   DEFAULT_BATCH_SIZE);
     my_transaction_size = parseProperty(the_properties, TRANSACTION_SIZE_PROPERTY,
                                         DEFAULT_TRANSACTION_SIZE);
+    my_parse_threads = parseProperty(the_properties, PARSE_THREADS_PROPERTY,
+                                     DEFAULT_PARSE_THREADS);
+    if (Boolean.parseBoolean(the_properties.getProperty(BULK_COPY_PROPERTY))) {
+      my_bulk_loader = new CVRBulkLoader();
+    } else {
+      my_bulk_loader = null;
+    }
   }
 
   /**
@@ -245,11 +384,28 @@ public class DominionCVRExportParser {
    */
   public DominionCVRExportParser(final String the_string, final County the_county)
       throws IOException {
-    my_parser = CSVParser.parse(the_string, CSVFormat.DEFAULT);
+    my_decoder = new DominionCSVDecoder(new StringReader(the_string));
+    my_parser = new CSVParser(new StringReader(my_decoder.readRaw(HEADER_LINES)),
+                              CSVFormat.DEFAULT);
     my_county = the_county;
     my_multi_transaction = false;
     my_batch_size = DEFAULT_BATCH_SIZE;
     my_transaction_size = DEFAULT_TRANSACTION_SIZE;
+    my_bulk_loader = null;
+    my_parse_threads = DEFAULT_PARSE_THREADS;
+  }
+
+  /**
+   * Makes this parser record its progress in the specified checkpoint
+   * whenever it commits, which it only does in multi-transaction mode. If
+   * the checkpoint already has committed CVRs, the parse resumes after them
+   * with the tallies recorded in the checkpoint, instead of creating the
+   * contests and parsing every CVR.
+   *
+   * @param the_checkpoint The checkpoint.
+   */
+  public void setCheckpoint(final CVRImportCheckpoint the_checkpoint) {
+    my_checkpoint = the_checkpoint;
   }
 
   /**
@@ -275,21 +431,6 @@ public class DominionCVRExportParser {
     return result;
   }
 
-  /**
-   * Strip the '="..."' from a column.
-   *
-   * @param the_value The value to strip.
-   * @return the stripped value, as a String, or the original String if it
-   * does not have the '="..."' form.
-   */
-  private String stripEqualQuotes(final String the_value) {
-    String result = the_value;
-    if (the_value.startsWith("=\"") && the_value.endsWith("\"")) {
-      result = the_value.substring(0, the_value.length() - 1).replaceFirst("=\"", "");
-    }
-    return result;
-  }
-
   /**
    * Updates the contest names, max selections, and choice counts structures.
    *
@@ -384,12 +525,118 @@ public class DominionCVRExportParser {
     }
   }
 
+  /**
+   * Picks up the contests and result tallies recorded in the checkpoint,
+   * after checking that they match the contests in the file.
+   *
+   * @param contestNames The list of contest names.
+   * @param votesAllowed The table of votes allowed values.
+   * @param choiceCounts The table of contest choice counts.
+   * @exception CheckpointMismatchException if they do not match.
+   */
+  private void resumeContests(final List<String> contestNames,
+                              final Map<String, Integer> votesAllowed,
+                              final Map<String, Integer> choiceCounts) {
+    final List<Long> contest_ids = my_checkpoint.contestIDs();
+    if (contest_ids.size() != contestNames.size()) {
+      throw new CheckpointMismatchException("checkpoint has " + contest_ids.size() +
+                                            " contests, file has " + contestNames.size());
+    }
+    for (int i = 0; i < contest_ids.size(); i++) {
+      final String name = contestNames.get(i);
+      final Contest c = Persistence.getByID(contest_ids.get(i), Contest.class);
+      if (c == null || !c.name().equals(name) ||
+          c.choices().size() != choiceCounts.get(name) ||
+          !c.votesAllowed().equals(votesAllowed.get(name))) {
+        throw new CheckpointMismatchException("checkpoint contest " + contest_ids.get(i) +
+                                              " does not match contest " + name);
+      }
+      final CountyContestResult r = CountyContestResultQueries.matching(my_county, c);
+      r.restoreTallies(my_checkpoint.voteTotals(i),
+                       my_checkpoint.contestBallotCount(i),
+                       my_checkpoint.recordCount());
+      my_contests.add(c);
+      my_results.add(r);
+    }
+  }
+
+  /**
+   * Records, by column, the choices of the contests, so that CVR lines can
+   * be converted without looking at the contests' choice lists.
+   */
+  private void indexChoices() {
+    my_choice_counts = new int[my_contests.size()];
+    int columns = my_first_contest_column;
+    for (int i = 0; i < my_contests.size(); i++) {
+      my_choice_counts[i] = my_contests.get(i).choices().size();
+      columns = columns + my_choice_counts[i];
+    }
+    my_choice_names = new String[columns];
+    my_fictitious = new boolean[columns];
+    my_vote_tallies = new int[columns];
+    my_contest_ballot_tallies = new int[my_contests.size()];
+    my_county_ballot_tally = 0;
+    int index = my_first_contest_column;
+    for (final Contest co : my_contests) {
+      for (final Choice ch : co.choices()) {
+        my_choice_names[index] = ch.name();
+        my_fictitious[index] = ch.fictitious();
+        index = index + 1;
+      }
+    }
+  }
+
+  /**
+   * Decodes the next line of the file.
+   *
+   * @return true if there was a line, false at the end of the file.
+   * @exception IllegalStateException if the line is not valid CSV, as
+   * commons-csv would throw.
+   */
+  private boolean nextLine() {
+    try {
+      return my_decoder.next();
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Skips the CVRs that were committed before the checkpoint.
+   *
+   * @exception CheckpointMismatchException if the file has fewer CVRs.
+   */
+  private void skipCommittedCVRs() {
+    final int committed = my_checkpoint.recordCount();
+    for (int i = 0; i < committed; i++) {
+      if (!nextLine()) {
+        throw new CheckpointMismatchException("checkpoint has " + committed +
+                                              " CVRs, file has " + i);
+      }
+    }
+    my_record_count = committed;
+    LOGGER.info("resuming CVR import for county " + my_county.id() +
+                " after " + committed + " committed CVRs");
+  }
+
   /**
    * Checks to see if the set of parsed CVRs needs flushing, and does so
    * if necessary.
    */
   private void checkForFlush() {
+    // bulk loaded CVRs are written once per transaction-sized batch, and
+    // must be written before the transaction that contains them commits
+    if (my_bulk_loader != null && my_record_count % my_transaction_size == 0) {
+      my_bulk_loader.flush();
+    }
+
     if (my_multi_transaction && my_record_count % my_transaction_size == 0) {
+      // the checkpoint is committed with the CVRs it counts
+      if (my_checkpoint != null) {
+        addTallies();
+        my_checkpoint.update(my_record_count, my_results);
+        Persistence.saveOrUpdate(my_checkpoint);
+      }
       commitCVRsAndUpdateCountyDashboard();
     }
 
@@ -468,66 +715,127 @@ public class DominionCVRExportParser {
    * @param the_line The line representing the CVR.
    * @return the resulting CVR.
    */
-  @SuppressWarnings("PMD.CyclomaticComplexity")
-  private CastVoteRecord extractCVR(final CSVRecord the_line) {
-    final int cvr_id =
-      Integer.parseInt(
-                       stripEqualQuotes(the_line.get(my_columns.get(CVR_NUMBER_HEADER))));
-    final int tabulator_id =
-      Integer.parseInt(
-                       stripEqualQuotes(
-                                        the_line.get(my_columns.get(TABULATOR_NUMBER_HEADER))));
-    final String batch_id =
-      stripEqualQuotes(the_line.get(my_columns.get(BATCH_ID_HEADER)));
-    final int record_id =
-      Integer.parseInt(
-                       stripEqualQuotes(the_line.get(my_columns.get(RECORD_ID_HEADER))));
-    final String imprinted_id =
-      stripEqualQuotes(the_line.get(my_columns.get(IMPRINTED_ID_HEADER)));
-    final String ballot_type =
-      stripEqualQuotes(the_line.get(my_columns.get(BALLOT_TYPE_HEADER)));
+  private CastVoteRecord extractCVR(final DominionCSVDecoder.Record the_line) {
+    final CastVoteRecord new_cvr = convertCVR(the_line, my_record_count);
+    recordCVR(new_cvr, the_line);
+    return new_cvr;
+  }
+
+  /**
+   * Convert a line of the file to a CVR. This does not use persistence, and
+   * may be called from threads other than the one doing the parse.
+   *
+   * @param the_line The line representing the CVR.
+   * @param the_sequence_number The sequence number of the CVR.
+   * @return the resulting CVR.
+   */
+  private CastVoteRecord convertCVR(final DominionCSVDecoder.Record the_line,
+                                    final int the_sequence_number) {
+    final int cvr_id = the_line.intValue(my_cvr_number_column);
+    final int tabulator_id = the_line.intValue(my_tabulator_number_column);
+    final String batch_id = the_line.value(my_batch_id_column);
+    final int record_id = the_line.intValue(my_record_id_column);
+    final String imprinted_id = the_line.value(my_imprinted_id_column);
+    final String ballot_type = the_line.value(my_ballot_type_column);
     final List<CVRContestInfo> contest_info = new ArrayList<CVRContestInfo>();
 
     // for each contest, see if choices exist on the CVR; "0" or "1" are
     // votes or absences of votes; "" means that the contest is not in this style
     int index = my_first_contest_column;
-    for (final Contest co : my_contests) {
+    for (int c = 0; c < my_choice_counts.length; c++) {
+      final int end = index + my_choice_counts[c];
       boolean present = false;
-      final List<String> votes = new ArrayList<String>();
-      for (final Choice ch : co.choices()) {
-        final String mark_string = the_line.get(index);
-        final boolean p = !mark_string.isEmpty();
-        final boolean mark = "1".equals(mark_string);
-        present |= p;
-        if (!ch.fictitious() && p && mark) {
-          votes.add(ch.name());
+      int vote_count = 0;
+      for (int i = index; i < end; i++) {
+        final byte mark = the_line.mark(i);
+        present |= mark != DominionCSVDecoder.ABSENT;
+        if (mark == DominionCSVDecoder.MARKED && !my_fictitious[i]) {
+          vote_count = vote_count + 1;
         }
-        index = index + 1;
       }
       // if this contest was on the ballot, add it to the votes
       if (present) {
-        contest_info.add(new CVRContestInfo(co, null, null, votes));
+        final List<String> votes = new ArrayList<String>(vote_count);
+        for (int i = index; i < end; i++) {
+          if (the_line.mark(i) == DominionCSVDecoder.MARKED && !my_fictitious[i]) {
+            votes.add(my_choice_names[i]);
+          }
+        }
+        contest_info.add(new CVRContestInfo(my_contests.get(c), null, null, votes));
       }
+      index = end;
     }
 
     // we don't need to look for an existing CVR with this data because,
     // by definition, there cannot be one unless the same line appears
     // twice in the CVR export file... and if it does, we need it to
     // appear twice here too.
-    final CastVoteRecord new_cvr =
-      new CastVoteRecord(RecordType.UPLOADED, null, my_county.id(),
-                         cvr_id, my_record_count, tabulator_id,
-                         batch_id, record_id, imprinted_id,
-                         ballot_type, contest_info);
-    Persistence.saveOrUpdate(new_cvr);
-    my_parsed_cvrs.add(new_cvr);
-
-    // add the CVR to all of our results
-    for (final CountyContestResult r : my_results) {
-      r.addCVR(new_cvr);
+    return new CastVoteRecord(RecordType.UPLOADED, null, my_county.id(),
+                              cvr_id, the_sequence_number, tabulator_id,
+                              batch_id, record_id, imprinted_id,
+                              ballot_type, contest_info);
+  }
+
+  /**
+   * Save a converted CVR and count its votes.
+   *
+   * @param new_cvr The CVR.
+   * @param the_line The line the CVR was converted from.
+   */
+  private void recordCVR(final CastVoteRecord new_cvr,
+                         final DominionCSVDecoder.Record the_line) {
+    if (my_bulk_loader == null) {
+      Persistence.saveOrUpdate(new_cvr);
+      my_parsed_cvrs.add(new_cvr);
+    } else {
+      my_bulk_loader.add(new_cvr);
     }
+
+    tallyCVR(the_line);
     LOGGER.debug("parsed CVR: " + new_cvr);
-    return new_cvr;
+  }
+
+  /**
+   * Counts the votes on a CVR line in the tallies, which are added to the
+   * county contest results by addTallies().
+   *
+   * @param the_line The line.
+   */
+  private void tallyCVR(final DominionCSVDecoder.Record the_line) {
+    int index = my_first_contest_column;
+    for (int c = 0; c < my_choice_counts.length; c++) {
+      final int end = index + my_choice_counts[c];
+      boolean present = false;
+      for (int i = index; i < end; i++) {
+        final byte mark = the_line.mark(i);
+        present |= mark != DominionCSVDecoder.ABSENT;
+        if (mark == DominionCSVDecoder.MARKED && !my_fictitious[i]) {
+          my_vote_tallies[i] = my_vote_tallies[i] + 1;
+        }
+      }
+      if (present) {
+        my_contest_ballot_tallies[c] = my_contest_ballot_tallies[c] + 1;
+      }
+      index = end;
+    }
+    my_county_ballot_tally = my_county_ballot_tally + 1;
+  }
+
+  /**
+   * Adds the tallies to the county contest results, and starts the tallies
+   * over.
+   */
+  private void addTallies() {
+    int index = my_first_contest_column;
+    for (int c = 0; c < my_choice_counts.length; c++) {
+      my_results.get(c).addTallies(my_vote_tallies, index,
+                                   my_contest_ballot_tallies[c],
+                                   my_county_ballot_tally);
+      index = index + my_choice_counts[c];
+    }
+    Arrays.fill(my_vote_tallies, 0);
+    Arrays.fill(my_contest_ballot_tallies, 0);
+    my_county_ballot_tally = 0;
   }
 
   /**
@@ -570,6 +878,15 @@ public class DominionCVRExportParser {
 
     result.success = prohibited_headers.isEmpty() && required_headers.isEmpty();
 
+    if (result.success) {
+      my_cvr_number_column = my_columns.get(CVR_NUMBER_HEADER);
+      my_tabulator_number_column = my_columns.get(TABULATOR_NUMBER_HEADER);
+      my_batch_id_column = my_columns.get(BATCH_ID_HEADER);
+      my_record_id_column = my_columns.get(RECORD_ID_HEADER);
+      my_imprinted_id_column = my_columns.get(IMPRINTED_ID_HEADER);
+      my_ballot_type_column = my_columns.get(BALLOT_TYPE_HEADER);
+    }
+
     if (!result.success) {
       final StringBuilder sb = new StringBuilder();
       sb.append("malformed CVR file: ");
@@ -628,6 +945,304 @@ public class DominionCVRExportParser {
     return sb.toString();
   }
 
+  /**
+   * Parse the cast vote records from the remaining lines, one at a time.
+   *
+   * @param the_result The result, which is filled in if a line fails.
+   * @return true if all the lines were parsed, false otherwise.
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private boolean parseCVRs(final Result the_result) {
+    while (nextLine()) {
+      final DominionCSVDecoder.Record cvr_line = my_decoder.current();
+      try {
+        extractCVR(cvr_line);
+      } catch (final Exception e) {
+        rowError(the_result, cvr_line, e);
+        return false;
+      }
+      countCVR();
+    }
+    return true;
+  }
+
+  /**
+   * Parse the cast vote records from the remaining lines, converting them on
+   * my_parse_threads worker threads and saving them, in file order, on this
+   * thread. The first failing line is reported exactly as it would be by
+   * parseCVRs.
+   *
+   * @param the_result The result, which is filled in if a line fails.
+   * @return true if all the lines were parsed, false otherwise.
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private boolean parseCVRsPipelined(final Result the_result) {
+    try (CVRParsePipeline pipeline =
+             new CVRParsePipeline(my_decoder.copies(), this::convertCVR, my_parse_threads,
+                                  my_batch_size, my_record_count)) {
+      List<CVRParsePipeline.Row> chunk = pipeline.nextChunk();
+      while (chunk != null) {
+        for (final CVRParsePipeline.Row row : chunk) {
+          Exception error = row.error();
+          if (error == null) {
+            try {
+              recordCVR(row.cvr(), row.line());
+            } catch (final Exception e) {
+              error = e;
+            }
+          }
+          if (error != null) {
+            rowError(the_result, row.line(), error);
+            return false;
+          }
+          countCVR();
+        }
+        chunk = pipeline.nextChunk();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Count a parsed CVR, logging progress and flushing as necessary.
+   */
+  private void countCVR() {
+    my_record_count = my_record_count + 1;
+    if (my_record_count % PROGRESS_INTERVAL == 0) {
+      LOGGER.info("parsed " + my_record_count +
+                  " CVRs for county " + my_county.id());
+    }
+    checkForFlush();
+  }
+
+  /**
+   * Fill in the result for a line that could not be parsed.
+   *
+   * @param the_result The result.
+   * @param the_line The line.
+   * @param the_exception The exception that occurred.
+   */
+  private void rowError(final Result the_result, final DominionCSVDecoder.Record the_line,
+                        final Exception the_exception) {
+    LOGGER.error(the_exception.getClass());
+    LOGGER.error(the_exception.getMessage());
+    the_result.success = false;
+    // we don't know what went wrong
+    the_result.errorMessage =
+        the_exception.getClass().toString() + " - " + the_exception.getMessage();
+    the_result.errorRowNum = Long.valueOf(the_line.recordNumber()).intValue();
+    the_result.errorRowContent = the_line.toString();
+  }
+
+  /**
+   * Makes a failed result for the specified line.
+   *
+   * @param the_line The line.
+   * @param the_message The error message.
+   * @return the result.
+   */
+  private Result lineError(final CSVRecord the_line, final String the_message) {
+    final List<String> values = new ArrayList<>();
+    the_line.iterator().forEachRemaining(values::add);
+    return lineError(the_line.getRecordNumber(), String.join(",", values), the_message);
+  }
+
+  /**
+   * Makes a failed result for the specified CVR line.
+   *
+   * @param the_line The line.
+   * @param the_message The error message.
+   * @return the result.
+   */
+  private Result lineError(final DominionCSVDecoder.Record the_line,
+                           final String the_message) {
+    return lineError(the_line.recordNumber(), the_line.toString(), the_message);
+  }
+
+  /**
+   * Makes a failed result.
+   *
+   * @param the_number The line's record number.
+   * @param the_content The line's content.
+   * @param the_message The error message.
+   * @return the result.
+   */
+  private Result lineError(final long the_number, final String the_content,
+                           final String the_message) {
+    final Result result = new Result();
+    result.success = false;
+    result.errorMessage = the_message;
+    result.errorRowNum = Long.valueOf(the_number).intValue();
+    result.errorRowContent = the_content;
+    return result;
+  }
+
+  /**
+   * Checks the supplied data export without saving anything: the headers,
+   * the contest header structure, and, for every CVR line, the number of
+   * columns, the numeric fields, the vote marks and overvotes. Unlike
+   * parse(), this does not stop at the first bad CVR line, so it reports
+   * every problem in one pass; problems with the header lines do stop it,
+   * since the CVR lines cannot be checked without them.
+   *
+   * @param the_max_errors The number of errors after which to stop.
+   * @return the errors, one per bad line, in file order; empty if the export
+   * is valid.
+   */
+  @SuppressWarnings({"PMD.AvoidCatchingGenericException", "PMD.NPathComplexity"})
+  public List<Result> validate(final int the_max_errors) {
+    final List<Result> errors = new ArrayList<>();
+    final Iterator<CSVRecord> records = my_parser.iterator();
+    final CSVRecord contest_line;
+    final CSVRecord choice_line;
+    final CSVRecord expl_line;
+    int line_number = 1;
+
+    try {
+      records.next();
+      line_number++;
+      contest_line = records.next();
+      line_number++;
+      choice_line = records.next();
+      line_number++;
+      expl_line = records.next();
+    } catch (final Exception e) {
+      final Result result = new Result();
+      result.success = false;
+      result.errorMessage = "Not a valid CSV";
+      result.errorRowNum = line_number;
+      result.errorRowContent = "? (could not parse)";
+      errors.add(result);
+      return errors;
+    }
+
+    final List<String> contest_names = new ArrayList<String>();
+    final Map<String, Integer> contest_votes_allowed = new HashMap<String, Integer>();
+    final Map<String, Integer> contest_choice_counts = new HashMap<String, Integer>();
+    try {
+      my_first_contest_column = 0;
+      while ("".equals(contest_line.get(my_first_contest_column))) {
+        my_first_contest_column = my_first_contest_column + 1;
+      }
+      updateContestStructures(contest_line, contest_names, contest_votes_allowed,
+                              contest_choice_counts);
+    } catch (final RuntimeException e) {
+      errors.add(lineError(contest_line, "malformed contest header: " +
+                                         "every contest column must be named " +
+                                         "\"<contest> (Vote For=<n>)\""));
+      return errors;
+    }
+
+    final Result header_result = processHeaders(expl_line);
+    if (!header_result.success) {
+      errors.add(header_result);
+      return errors;
+    }
+
+    final int width = contest_line.size();
+    if (choice_line.size() != width || expl_line.size() != width) {
+      errors.add(lineError(choice_line.size() == width ? expl_line : choice_line,
+                           "header lines have different numbers of columns"));
+      return errors;
+    }
+
+    // which choice columns are the fictitious "Write-in" choice
+    final boolean[] fictitious = new boolean[width];
+    for (int i = my_first_contest_column; i < width; i++) {
+      fictitious[i] = "Write-in".equals(WordUtils.capitalizeFully(choice_line.get(i).trim()));
+    }
+
+    my_record_count = 0;
+    boolean more = true;
+    while (more && errors.size() < the_max_errors) {
+      try {
+        more = my_decoder.next();
+      } catch (final IOException e) {
+        // the CSV itself is broken, so nothing after this can be trusted
+        final Result result = new Result();
+        result.success = false;
+        result.errorMessage = "Not a valid CSV: " + e.getMessage();
+        result.errorRowNum = line_number + my_record_count + 1;
+        result.errorRowContent = "? (could not parse)";
+        errors.add(result);
+        break;
+      }
+      if (more) {
+        final DominionCSVDecoder.Record line = my_decoder.current();
+        final String problems =
+            lineProblems(line, width, fictitious, contest_names,
+                         contest_votes_allowed, contest_choice_counts);
+        if (!problems.isEmpty()) {
+          errors.add(lineError(line, problems));
+        }
+        my_record_count = my_record_count + 1;
+      }
+    }
+
+    LOGGER.info("validated " + my_record_count + " CVRs for county " + my_county.id() +
+                ", " + errors.size() + " errors");
+    return errors;
+  }
+
+  /**
+   * Finds the problems with a CVR line.
+   *
+   * @param the_line The line.
+   * @param the_width The number of columns in the header lines.
+   * @param the_fictitious Which columns are fictitious choices.
+   * @param the_names The contest names.
+   * @param the_votes_allowed The votes allowed table.
+   * @param the_choice_counts The choice counts table.
+   * @return the problems, separated by "; ", or the empty string if there
+   * are none.
+   */
+  private String lineProblems(final DominionCSVDecoder.Record the_line,
+                              final int the_width,
+                              final boolean[] the_fictitious,
+                              final List<String> the_names,
+                              final Map<String, Integer> the_votes_allowed,
+                              final Map<String, Integer> the_choice_counts) {
+    final List<String> problems = new ArrayList<>();
+    if (the_line.size() != the_width) {
+      problems.add("expected " + the_width + " columns, found " + the_line.size());
+      // the other checks would look in the wrong columns
+      return String.join("; ", problems);
+    }
+
+    for (final String header : new String[] {CVR_NUMBER_HEADER, TABULATOR_NUMBER_HEADER,
+                                             RECORD_ID_HEADER}) {
+      final int column = my_columns.get(header);
+      try {
+        the_line.intValue(column);
+      } catch (final NumberFormatException e) {
+        problems.add(header + " is not a number: \"" + the_line.value(column) + "\"");
+      }
+    }
+
+    int index = my_first_contest_column;
+    for (final String name : the_names) {
+      final int end = index + the_choice_counts.get(name);
+      int marks = 0;
+      while (index < end) {
+        final String mark = the_line.get(index);
+        if ("1".equals(mark)) {
+          if (!the_fictitious[index]) {
+            marks = marks + 1;
+          }
+        } else if (!mark.isEmpty() && !"0".equals(mark)) {
+          problems.add("invalid vote mark \"" + mark + "\" in contest " + name);
+        }
+        index = index + 1;
+      }
+      if (marks > the_votes_allowed.get(name)) {
+        problems.add("overvote in contest " + name + ": " + marks +
+                     " votes, vote for " + the_votes_allowed.get(name));
+      }
+    }
+
+    return String.join("; ", problems);
+  }
+
   /**
    * Parse the supplied data export. If it has already been parsed, this
    * method returns immediately.
@@ -639,7 +1254,9 @@ public class DominionCVRExportParser {
 
     LOGGER.info("parsing CVR export for county " + my_county.id() +
                 ", batch_size=" + my_batch_size +
-                ", transaction_size=" + my_transaction_size);
+                ", transaction_size=" + my_transaction_size +
+                ", bulk_copy=" + (my_bulk_loader != null) +
+                ", parse_threads=" + my_parse_threads);
 
     final Iterator<CSVRecord> records = my_parser.iterator();
 
@@ -706,43 +1323,38 @@ public class DominionCVRExportParser {
     if (headerResult.success == false) {
       return headerResult;
     } else {
-      addContests(choice_line, expl_line, contest_names,
-                  contest_votes_allowed, contest_choice_counts);
+      if (my_checkpoint != null && my_checkpoint.recordCount() > 0) {
+        resumeContests(contest_names, contest_votes_allowed, contest_choice_counts);
+        indexChoices();
+        skipCommittedCVRs();
+      } else {
+        addContests(choice_line, expl_line, contest_names,
+                    contest_votes_allowed, contest_choice_counts);
+        indexChoices();
+      }
 
       // subsequent lines contain cast vote records
-      while (records.hasNext()) {
-        final CSVRecord cvr_line = records.next();
-        try {
-          final CastVoteRecord cvr = extractCVR(cvr_line);
-        } catch (final Exception e) {
-          LOGGER.error(e.getClass());
-          LOGGER.error(e.getMessage());
-          result.success = false;
-          // we don't know what went wrong
-          result.errorMessage = e.getClass().toString() + " - "+ e.getMessage();
-          result.errorRowNum = Long.valueOf( cvr_line.getRecordNumber()).intValue();
-          List<String> values = new ArrayList<>();
-          cvr_line.iterator().forEachRemaining(values::add);
-          result.errorRowContent = String.join(",", values);
-          // get out of here now! break and return
-          return result;
-        }
-
-        my_record_count = my_record_count + 1;
-        if (my_record_count % PROGRESS_INTERVAL == 0) {
-          LOGGER.info("parsed " + my_record_count +
-                      " CVRs for county " + my_county.id());
-        }
-        checkForFlush();
+      final boolean parsed;
+      if (my_parse_threads > 1) {
+        parsed = parseCVRsPipelined(result);
+      } else {
+        parsed = parseCVRs(result);
+      }
+      if (!parsed) {
+        // get out of here now! return the error
+        return result;
       }
 
+      addTallies();
       for (final CountyContestResult r : my_results) {
         r.updateResults();
         Persistence.saveOrUpdate(r);
       }
 
-      // commit any uncommitted records
-
+      // write and commit any uncommitted records
+      if (my_bulk_loader != null) {
+        my_bulk_loader.flush();
+      }
       commitCVRsAndUpdateCountyDashboard();
     }
 
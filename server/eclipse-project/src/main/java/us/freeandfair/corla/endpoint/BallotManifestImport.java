@@ -16,7 +16,6 @@ import static us.freeandfair.corla.asm.ASMEvent.CountyDashboardEvent.IMPORT_BALL
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -41,6 +40,7 @@ import us.freeandfair.corla.model.CountyDashboard;
 import us.freeandfair.corla.model.UploadedFile;
 import us.freeandfair.corla.model.UploadedFile.FileStatus;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.persistence.UploadedFileStores;
 import us.freeandfair.corla.query.BallotManifestInfoQueries;
 
 /**
@@ -122,11 +122,20 @@ public class BallotManifestImport extends AbstractCountyDashboardEndpoint {
   // the CSV parser can throw arbitrary runtime exceptions, which we must catch
   @SuppressWarnings({"PMD.AvoidCatchingGenericException"})
   private void parseFile(final Response the_response, final UploadedFile the_file) {  
-    try (InputStream bmi_is = the_file.file().getBinaryStream()) {
+    final InputStream stored;
+    try {
+      stored = UploadedFileStores.open(the_file);
+    } catch (final IOException e) {
+      LOGGER.info("could not read file " + the_file.filename() +
+                       PAREN_ID + the_file.id() + ") from persistent storage");
+      return;
+    }
+    try (InputStream bmi_is = stored) {
       final InputStreamReader bmi_isr = new InputStreamReader(bmi_is, "UTF-8");
       final ColoradoBallotManifestParser parser =
           new ColoradoBallotManifestParser(bmi_isr, 
-                                           the_file.county().id());
+                                           the_file.county().id(),
+                                           Main.properties());
       final int deleted = BallotManifestInfoQueries.deleteMatching(the_file.county().id());
       Result result = parser.parse();
       if (result.success) {
@@ -163,9 +172,6 @@ public class BallotManifestImport extends AbstractCountyDashboardEndpoint {
                        the_file.county().id() + ": " + e);
       badDataContents(the_response, "malformed ballot manifest file " + 
                                     the_file.filename() + PAREN_ID + the_file.id() + ")");
-    } catch (final SQLException e) {
-      LOGGER.info("could not read file " + the_file.filename() +
-                       PAREN_ID + the_file.id() + ") from persistent storage");
     }
   }
 
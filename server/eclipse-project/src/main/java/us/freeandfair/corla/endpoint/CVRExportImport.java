@@ -29,6 +29,7 @@ import spark.Response;
 import us.freeandfair.corla.Main;
 import us.freeandfair.corla.asm.ASMEvent;
 import us.freeandfair.corla.controller.ImportFileController;
+import us.freeandfair.corla.controller.ImportScheduler;
 import us.freeandfair.corla.json.UploadedFileDTO;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.CountyDashboard;
@@ -44,7 +45,6 @@ import us.freeandfair.corla.query.UploadedFileQueries;
  * @author Daniel M. Zimmerman <dmz@freeandfair.us>
  * @version 1.0.0
  */
-@SuppressWarnings({"PMD.DoNotUseThreads"})
 public class CVRExportImport extends AbstractCountyDashboardEndpoint {
 
   /**
@@ -134,9 +134,9 @@ public class CVRExportImport extends AbstractCountyDashboardEndpoint {
       upF.setCountyId(county.id());
       UploadedFileQueries.updateStatus(upF);
       cdb.setCVRImportStatus(new ImportStatus(ImportState.IN_PROGRESS));
-      // spawn a thread to do the import; this endpoint always immediately
-      // returns a successful result if we get to this point
-      (new Thread(new ImportFileController(upF))).start();
+      // queue the import to run on an import worker; this endpoint always
+      // immediately returns a successful result if we get to this point
+      ImportScheduler.instance().submit(new ImportFileController(upF));
 
       responseBody.put("import_start_time", Instant.now());
       okJSON(the_response, Main.GSON.toJson(responseBody));
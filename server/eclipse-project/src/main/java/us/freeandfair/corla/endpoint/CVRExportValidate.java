@@ -0,0 +1,120 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.endpoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import spark.Request;
+import spark.Response;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.csv.DominionCVRExportParser;
+import us.freeandfair.corla.csv.Result;
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.model.UploadedFile;
+import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.persistence.UploadedFileStores;
+
+/**
+ * The "CVR export validate" endpoint. Checks the structure of an uploaded
+ * CVR export without importing it, so a county can find and fix every
+ * problem with a file before starting an import that would stop at the
+ * first one. It changes nothing, in the database or in the county's
+ * dashboard state.
+ */
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class CVRExportValidate extends AbstractEndpoint {
+  /**
+   * The maximum number of errors reported.
+   */
+  private static final int MAX_ERRORS = 1000;
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EndpointType endpointType() {
+    return EndpointType.GET;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String endpointName() {
+    return "/validate-cvr-export";
+  }
+
+  /**
+   * @return COUNTY
+   */
+  @Override
+  public AuthorizationType requiredAuthorization() {
+    return AuthorizationType.COUNTY;
+  }
+
+  /**
+   * Validates the parameters of this request. The only requirement is that
+   * there be a fileId parameter; its parsing happens later.
+   */
+  @Override
+  public boolean validateParameters(final Request the_request) {
+    return the_request.queryParams().contains("fileId");
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String endpointBody(final Request the_request, final Response the_response) {
+    final County county = Main.authentication().authenticatedCounty(the_request);
+    if (county == null) {
+      unauthorized(the_response, "unauthorized administrator for CVR validation");
+      return my_endpoint_result.get();
+    }
+
+    final UploadedFile file;
+    try {
+      file = Persistence.getByID(Long.valueOf(the_request.queryParams("fileId")),
+                                 UploadedFile.class);
+    } catch (final NumberFormatException e) {
+      badDataContents(the_response, "malformed file id");
+      return my_endpoint_result.get();
+    }
+
+    if (file == null) {
+      badDataContents(the_response, "nonexistent file");
+    } else if (!county.id().equals(file.county().id())) {
+      badDataContents(the_response, "wrong file id, not for current county");
+    } else {
+      try (InputStream is = UploadedFileStores.open(file)) {
+        final DominionCVRExportParser parser =
+            new DominionCVRExportParser(new InputStreamReader(is, StandardCharsets.UTF_8),
+                                        county, Main.properties(), false);
+        final List<Result> errors = parser.validate(MAX_ERRORS);
+        final Map<String, Object> response = new HashMap<>();
+        response.put("file_id", file.id());
+        response.put("valid", errors.isEmpty());
+        response.put("errors", errors);
+        okJSON(the_response, Main.GSON.toJson(response));
+      } catch (final IOException e) {
+        serverError(the_response, "unable to read file " + file.filename());
+      }
+    }
+
+    return my_endpoint_result.get();
+  }
+}
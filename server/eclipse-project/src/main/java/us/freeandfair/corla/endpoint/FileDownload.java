@@ -12,9 +12,9 @@
 package us.freeandfair.corla.endpoint;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
-import java.sql.SQLException;
 
 import org.apache.cxf.attachment.Rfc5987Util;
 
@@ -27,6 +27,7 @@ import us.freeandfair.corla.Main;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.UploadedFile;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.persistence.UploadedFileStores;
 import us.freeandfair.corla.util.FileHelper;
 import us.freeandfair.corla.util.SparkHelper;
 
@@ -112,13 +113,13 @@ public class FileDownload extends AbstractEndpoint {
           serverError(the_response, "UTF-8 is unsupported (this should never happen)");
         }
         
-        try (OutputStream os = SparkHelper.getRaw(the_response).getOutputStream()) {
+        try (OutputStream os = SparkHelper.getRaw(the_response).getOutputStream();
+             InputStream is = UploadedFileStores.open(uploadedFile)) {
           final int total =
-              FileHelper.bufferedCopy(uploadedFile.file().getBinaryStream(), os,
-                                      BUFFER_SIZE, MAX_DOWNLOAD_SIZE);
+              FileHelper.bufferedCopy(is, os, BUFFER_SIZE, MAX_DOWNLOAD_SIZE);
           Main.LOGGER.debug("sent file " + uploadedFile.filename() + " of size " + total);
           ok(the_response);
-        } catch (final SQLException | IOException e) {
+        } catch (final IOException e) {
           serverError(the_response, "Unable to stream response");
         }
       } else {
@@ -13,26 +13,21 @@ package us.freeandfair.corla.endpoint;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.LineNumberReader;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.sql.Blob;
+import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Properties;
 
 import javax.persistence.PersistenceException;
 import javax.servlet.http.HttpServletRequest;
@@ -51,13 +46,13 @@ import spark.Request;
 import spark.Response;
 
 import us.freeandfair.corla.Main;
-import us.freeandfair.corla.crypto.HashChecker;
+import us.freeandfair.corla.crypto.HashingOutputStream;
 import us.freeandfair.corla.csv.Result;
 import us.freeandfair.corla.json.UploadedFileDTO;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.UploadedFile;
 import us.freeandfair.corla.model.UploadedFile.FileStatus;
-import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.persistence.UploadedFileStores;
 import us.freeandfair.corla.util.FileHelper;
 import us.freeandfair.corla.util.SparkHelper;
 import us.freeandfair.corla.util.SuppressFBWarnings;
@@ -124,32 +119,25 @@ public class FileUpload extends AbstractEndpoint {
   }
 
   /**
-   * Attempts to save the specified file in the database.
+   * Attempts to save the specified file in the store for uploads. The hash
+   * and the approximate number of records were computed while the file was
+   * being received, so this reads the file at most once, to copy it into
+   * the database; the directory store moves it instead.
    *
    * @param the_response The response object (for error reporting).
    * @param the_info The upload info about the file and hash.
    * @param the_county The county that uploaded the file.
    * @return the resulting entity if successful, null otherwise
    */
-  // we are deliberately ignoring the return value of lnr.skip()
-  @SuppressFBWarnings("SR_NOT_CHECKED")
   private UploadedFile attemptFilePersistence(final Response the_response,
                                               final UploadInformation the_info,
                                               final County the_county) {
     UploadedFile uploadedFile = null;
     FileStatus file_status = null;
     Result result = new Result();
+    final long size = the_info.my_file.length();
 
-    try (FileInputStream is = new FileInputStream(the_info.my_file);
-         LineNumberReader lnr =
-             new LineNumberReader(new InputStreamReader(new FileInputStream(the_info.my_file),
-                                                        "UTF-8"))) {
-      final Blob blob = Persistence.blobFor(is, the_info.my_file.length());
-
-      // first, compute the approximate number of records in the file
-      lnr.skip(Integer.MAX_VALUE);
-      final int approx_records = lnr.getLineNumber();
-
+    try {
       if (the_info.my_computed_hash.equals(the_info.my_uploaded_hash)) {
         file_status = FileStatus.HASH_VERIFIED;
       } else {
@@ -163,16 +151,16 @@ public class FileUpload extends AbstractEndpoint {
                                 file_status,
                                 the_info.my_computed_hash,
                                 the_info.my_uploaded_hash,
-                                blob,
-                                the_info.my_file.length(),
-                                approx_records);
+                                null,
+                                size,
+                                the_info.my_line_count);
       uploadedFile.setResult(result);
-      Persistence.save(uploadedFile);
-      Persistence.flush();
+      the_info.my_stored_path =
+          UploadedFileStores.forUploads().save(uploadedFile, the_info.my_file);
     } catch (final PersistenceException | IOException e) {
       LOGGER.error("could not persist file of size " + e.getMessage());
-      badDataType(the_response, "could not persist file of size " +
-                                the_info.my_file.length());
+      badDataType(the_response, "could not persist file of size " + size);
+      uploadedFile = null;
       the_info.my_ok = false;
     }
     return uploadedFile;
@@ -180,7 +168,8 @@ public class FileUpload extends AbstractEndpoint {
 
   /**
    * Handles the upload of the file, updating the provided UploadInformation.
-   * sets the_info.my_file to a tempfile and writes to it
+   * sets the_info.my_file to a tempfile and writes to it, computing the
+   * file's hash and line count as it goes.
    *
    * @param the_request The request to use.
    * @param the_info The upload information to update.
@@ -210,9 +199,12 @@ public class FileUpload extends AbstractEndpoint {
             // save the file
             the_info.my_filename = item.getName();
             the_info.my_file = File.createTempFile("upload", ".csv");
-            final OutputStream os = new FileOutputStream(the_info.my_file);
+            final HashingOutputStream os =
+                new HashingOutputStream(new FileOutputStream(the_info.my_file));
             final int total =
                 FileHelper.bufferedCopy(stream, os, BUFFER_SIZE, MAX_UPLOAD_SIZE);
+            the_info.my_computed_hash = os.hash();
+            the_info.my_line_count = os.lineCount();
 
             if (total >= MAX_UPLOAD_SIZE) {
               LOGGER.info("attempt to upload file greater than max size from " +
@@ -237,21 +229,24 @@ public class FileUpload extends AbstractEndpoint {
         the_info.my_ok = false;
         badDataContents(the_response, "No hash was provided with the uploaded file");
       }
-    } catch (final IOException | FileUploadException e) {
+    } catch (final IOException | FileUploadException | NoSuchAlgorithmException e) {
       the_info.my_ok = false;
+      LOGGER.error("Upload Failed " + e.getMessage());
       badDataContents(the_response, "Upload Failed");
     }
   }
 
   /**
-   * Copies uploaded file which is in a temporary location and its hash into
-   * an archival location
+   * Copies uploaded file which is in a temporary location (or in the
+   * directory store) and its hash into an archival location
    *
    * Steps:
    *  1. Based on operating system, fetches archival file path from property file
    *  2. Creates the file path if not existing
-   *  3. Appends timestamp to file and archives it by making a copy of the
-   *     temporary file.
+   *  3. Appends timestamp to file and archives it by moving the temporary
+   *     file (which is a rename, not a copy, when the archive is on the same
+   *     file system), or by linking to the stored file if the file was put
+   *     in the directory store.
    *  4. Appends the same timestamp to create a new file that would contain the
    *     hash value and archives it.
    *
@@ -299,21 +294,26 @@ public class FileUpload extends AbstractEndpoint {
     }
 
     // fetch location where file needs to be uploaded to for archival
-    final String archive_file_path = fetchArchiveFilePath();
+    final String archive_file_path = UploadedFileStores.archiveDirectory();
     // create directory if not existing
     final File archive_file_dir = new File(archive_file_path);
     archive_file_dir.mkdirs();
 
-    // archive file by copying it to destination
-    archiveFile(archive_file_path + archive_file_name,
-                the_upload_information.my_file.toPath());
+    // archive file by moving or linking it to destination
+    if (the_upload_information.my_stored_path == null) {
+      archiveFile(archive_file_path + archive_file_name,
+                  the_upload_information.my_file.toPath());
+    } else {
+      archiveStoredFile(archive_file_path + archive_file_name,
+                        the_upload_information.my_stored_path);
+    }
     // create corresponding hash text file with hash value in it
     archiveHashFile(archive_file_path + archive_hash_file_name,
                     the_upload_information.my_uploaded_hash);
   }
 
   /**
-   * Copies passed in temporary file into archive destination, also renames it
+   * Moves passed in temporary file into archive destination, also renames it
    * to its original name.
    *
    * @param the_file_path_and_name path and file name of the file to be archived
@@ -323,8 +323,9 @@ public class FileUpload extends AbstractEndpoint {
   private void archiveFile(final String the_file_path_and_name,
                            final Path the_source_path) {
     try {
-      // copy the temp file into archive destination
-      final Path path = Files.copy(the_source_path,
+      // move the temp file into archive destination; nothing reads the temp
+      // file after it is archived
+      final Path path = Files.move(the_source_path,
                                    Paths.get(the_file_path_and_name));
 
       if (path == null) {
@@ -340,6 +341,32 @@ public class FileUpload extends AbstractEndpoint {
     }
   }
 
+  /**
+   * Archives a file that is in the directory store by linking to it, so the
+   * archive does not hold a second copy of the contents. If links are not
+   * supported, the stored file is copied instead.
+   *
+   * @param the_file_path_and_name path and file name of the file to be archived
+   * @param the_stored_path path of the file in the directory store
+   */
+  private void archiveStoredFile(final String the_file_path_and_name,
+                                 final Path the_stored_path) {
+    final Path archive_path = Paths.get(the_file_path_and_name);
+    try {
+      try {
+        Files.createLink(archive_path, the_stored_path);
+      } catch (final UnsupportedOperationException | IOException e) {
+        Files.copy(the_stored_path, archive_path);
+      }
+      LOGGER.info("Successfully archived file (" + the_file_path_and_name + ").");
+    } catch (final IOException e) {
+      LOGGER.info("Encountered exception while archiving file (" +
+                       the_file_path_and_name +
+                       ")",
+                       e);
+    }
+  }
+
   /**
    * Creates a new hash file and copies passed in hash value and archives it.
    *
@@ -367,24 +394,6 @@ public class FileUpload extends AbstractEndpoint {
     }
   }
 
-  /**
-   * Based on operating system, retrieves archive file location from property file.
-   *
-   * @return archive file location
-   */
-  private String fetchArchiveFilePath() {
-    final Properties properties = Main.properties();
-    final String os_name = System.getProperty("os.name").toLowerCase(Locale.US);
-    final boolean is_windows = os_name.startsWith("windows");
-    final String archive_file_location;
-    if (is_windows) {
-      archive_file_location = properties.getProperty("windows_upload_file_location");
-    } else { // it's UNIX
-      archive_file_location = properties.getProperty("unix_upload_file_location");
-    }
-    return archive_file_location;
-  }
-
   /**
    * {@inheritDoc}
    *
@@ -412,31 +421,23 @@ public class FileUpload extends AbstractEndpoint {
       UploadedFile uploaded_file = null;
 
       if (info.my_ok) {
-        try {
-
-          info.my_computed_hash = HashChecker.hashFile(info.my_file);
-
-          info.my_uploaded_hash =
-            info.my_form_fields.get(HASH).toUpperCase(Locale.US).trim();
-          uploaded_file = attemptFilePersistence(the_response, info, county);
-          if (uploaded_file != null) {
-            LOGGER.info("Upload File " + uploaded_file.toString());
-            UploadedFileDTO upF = new UploadedFileDTO(uploaded_file);
-            okJSON(the_response, Main.GSON.toJson(upF));
-          } // else another result code has already been set
-        } catch (final java.io.IOException | java.security.NoSuchAlgorithmException e) {
-          info.my_ok = false;
-          LOGGER.error("Upload Failed " + e.getMessage());
-          badDataContents(the_response, "Upload Failed");
-        }
+        info.my_uploaded_hash =
+          info.my_form_fields.get(HASH).toUpperCase(Locale.US).trim();
+        uploaded_file = attemptFilePersistence(the_response, info, county);
+        if (uploaded_file != null) {
+          LOGGER.info("Upload File " + uploaded_file.toString());
+          UploadedFileDTO upF = new UploadedFileDTO(uploaded_file);
+          okJSON(the_response, Main.GSON.toJson(upF));
+        } // else another result code has already been set
       }
     } finally {
       // delete the temp file, if it exists
       if (info.my_file != null) {
         try {
-          // archive file before deleting
+          // archive file before deleting; archiving normally moves it, in
+          // which case there is nothing left to delete
           archive(info);
-          if (!info.my_file.delete()) {
+          if (info.my_file.exists() && !info.my_file.delete()) {
             LOGGER.error("Unable to delete temp file " + info.my_file);
           }
         } catch (final SecurityException e) {
@@ -485,5 +486,16 @@ public class FileUpload extends AbstractEndpoint {
      * The computed hash.
      */
     protected String my_computed_hash;
+
+    /**
+     * The number of lines in the uploaded file.
+     */
+    protected int my_line_count;
+
+    /**
+     * The path of the file in the directory store, or null if it was not
+     * put there.
+     */
+    protected Path my_stored_path;
   }
 }
@@ -0,0 +1,295 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.endpoint;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import spark.Request;
+import spark.Response;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.controller.AuditSimulator;
+import us.freeandfair.corla.controller.ContestCounter;
+import us.freeandfair.corla.json.AuditSimulationResponse;
+import us.freeandfair.corla.model.AuditType;
+import us.freeandfair.corla.model.ContestResult;
+import us.freeandfair.corla.model.DoSDashboard;
+import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.BallotManifestInfoQueries;
+
+/**
+ * The endpoint for simulating the audit workload: how many ballots each
+ * county audits and how many rounds the audit takes, for the contests
+ * selected for comparison audit, under given discrepancy rates.
+ */
+@SuppressWarnings({"PMD.AtLeastOneConstructor", "PMD.CyclomaticComplexity"})
+public class SimulateAudit extends AbstractDoSDashboardEndpoint {
+  /**
+   * Class-wide logger
+   */
+  public static final Logger LOGGER =
+      LogManager.getLogger(SimulateAudit.class);
+
+  /**
+   * The property giving the number of threads to run simulated audits on.
+   */
+  public static final String SIMULATION_THREADS_PROPERTY = "simulation_threads";
+
+  /**
+   * The "trials" parameter.
+   */
+  public static final String TRIALS = "trials";
+
+  /**
+   * The "seed" parameter.
+   */
+  public static final String SEED = "seed";
+
+  /**
+   * The "risk limit" parameter; by default, the risk limit of the audit.
+   */
+  public static final String RISK_LIMIT = "risk_limit";
+
+  /**
+   * The discrepancy rate parameters, in the order two-vote understatement,
+   * one-vote understatement, one-vote overstatement, two-vote overstatement;
+   * each is 0 by default.
+   */
+  public static final String[] RATES = {"two_under", "one_under", "one_over", "two_over"};
+
+  /**
+   * The default number of trials.
+   */
+  public static final int DEFAULT_TRIALS = 1000;
+
+  /**
+   * The most trials one request may run.
+   */
+  public static final int MAX_TRIALS = 100000;
+
+  /**
+   * The default number of threads to run simulated audits on.
+   */
+  private static final int DEFAULT_SIMULATION_THREADS = 1;
+
+  /**
+   * The pool that all simulations run on, created on first use, so that
+   * concurrent requests share its threads rather than the common pool's.
+   */
+  private static ForkJoinPool pool;
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EndpointType endpointType() {
+    return EndpointType.GET;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String endpointName() {
+    return "/simulate-audit";
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Level logLevel() {
+    return Level.DEBUG;
+  }
+
+  /**
+   * Validate the request parameters: all are optional; the number of trials
+   * must be from 1 to MAX_TRIALS, the seed an integer, the risk limit
+   * between 0 and 1, and the discrepancy rates non-negative numbers.
+   *
+   * @param the_request The request.
+   */
+  @Override
+  protected boolean validateParameters(final Request the_request) {
+    boolean result = true;
+    try {
+      final String trials = the_request.queryParams(TRIALS);
+      if (trials != null) {
+        final int t = Integer.parseInt(trials);
+        result &= t > 0 && t <= MAX_TRIALS;
+      }
+      final String seed = the_request.queryParams(SEED);
+      if (seed != null) {
+        Long.parseLong(seed);
+      }
+      final String risk_limit = the_request.queryParams(RISK_LIMIT);
+      if (risk_limit != null) {
+        final BigDecimal r = new BigDecimal(risk_limit);
+        result &= r.signum() > 0 && r.compareTo(BigDecimal.ONE) < 0;
+      }
+      for (final String rate : RATES) {
+        final String value = the_request.queryParams(rate);
+        if (value != null) {
+          result &= Double.parseDouble(value) >= 0;
+        }
+      }
+    } catch (final NumberFormatException e) {
+      result = false;
+    }
+    return result;
+  }
+
+  /**
+   * Simulates the audit of the contests selected for comparison audit.
+   *
+   * Query parameters: <tt>trials</tt>, <tt>seed</tt>, <tt>risk_limit</tt>,
+   * <tt>two_under</tt>, <tt>one_under</tt>, <tt>one_over</tt>,
+   * <tt>two_over</tt>
+   *
+   * @param the_request The request.
+   * @param the_response The response.
+   */
+  @Override
+  public String endpointBody(final Request the_request, final Response the_response) {
+    final DoSDashboard dosdb = Persistence.getByID(DoSDashboard.ID, DoSDashboard.class);
+    if (dosdb == null) {
+      serverError(the_response, "could not obtain dashboard state");
+      return my_endpoint_result.get();
+    }
+
+    BigDecimal risk_limit = dosdb.auditInfo().riskLimit();
+    if (the_request.queryParams(RISK_LIMIT) != null) {
+      risk_limit = new BigDecimal(the_request.queryParams(RISK_LIMIT));
+    }
+    if (risk_limit == null) {
+      badDataContents(the_response, "no risk limit set or specified");
+      return my_endpoint_result.get();
+    }
+
+    final double[] rates = new double[RATES.length];
+    for (int i = 0; i < RATES.length; i++) {
+      final String value = the_request.queryParams(RATES[i]);
+      if (value != null) {
+        rates[i] = Double.parseDouble(value);
+      }
+    }
+    final int trials = the_request.queryParams(TRIALS) == null ?
+                       DEFAULT_TRIALS : Integer.parseInt(the_request.queryParams(TRIALS));
+    final long seed = the_request.queryParams(SEED) == null ?
+                      0L : Long.parseLong(the_request.queryParams(SEED));
+
+    final Set<String> contest_names = dosdb.contestsToAudit().stream()
+        .filter(cta -> cta.audit() == AuditType.COMPARISON)
+        .map(cta -> cta.contest().name())
+        .collect(Collectors.toSet());
+    if (contest_names.isEmpty()) {
+      badDataContents(the_response, "no contests selected for comparison audit");
+      return my_endpoint_result.get();
+    }
+
+    try {
+      final AuditSimulator.Rates simulated_rates =
+          new AuditSimulator.Rates(rates[0], rates[1], rates[2], rates[3]);
+      final AuditSimulator simulator =
+          new AuditSimulator(targets(contest_names), risk_limit, simulated_rates);
+      // the simulation reads nothing from the database, so it does not
+      // hold the request's transaction (and its connection) while it runs
+      Persistence.commitTransaction();
+      final AuditSimulator.Result result;
+      try {
+        result = simulator.simulate(trials, seed, pool());
+      } finally {
+        Persistence.beginTransaction();
+      }
+      okJSON(the_response,
+             Main.GSON.toJson(new AuditSimulationResponse(result, seed, risk_limit)));
+    } catch (final IllegalArgumentException e) {
+      badDataContents(the_response, e.getMessage());
+    } catch (final PersistenceException e) {
+      serverError(the_response, "could not read contests and manifests");
+    }
+    return my_endpoint_result.get();
+  }
+
+  /**
+   * @return the pool to run simulations on, with as many threads as the
+   * simulation_threads property gives.
+   */
+  private static synchronized ForkJoinPool pool() {
+    if (pool == null) {
+      int threads = DEFAULT_SIMULATION_THREADS;
+      try {
+        threads = Integer.parseInt(Main.properties()
+                                   .getProperty(SIMULATION_THREADS_PROPERTY,
+                                                String.valueOf(DEFAULT_SIMULATION_THREADS)));
+      } catch (final NumberFormatException e) {
+        LOGGER.error("invalid " + SIMULATION_THREADS_PROPERTY + ", using " +
+                     DEFAULT_SIMULATION_THREADS);
+      }
+      pool = new ForkJoinPool(Math.max(1, threads));
+    }
+    return pool;
+  }
+
+  /**
+   * Counts the contests and loads their manifests. Counting may create and
+   * update contest results, which is for starting a round to do, so it
+   * runs in a separate read-only session that is discarded afterward.
+   *
+   * @param the_contest_names The names of the contests to audit.
+   * @return the simulation targets.
+   * @exception PersistenceException if they cannot be read.
+   */
+  private static List<AuditSimulator.Target> targets(final Set<String> the_contest_names) {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      return executor.submit(() -> {
+        Persistence.beginTransaction();
+        try {
+          Persistence.currentSession().setDefaultReadOnly(true);
+          final List<AuditSimulator.Target> result = new ArrayList<>();
+          for (final ContestResult cr : ContestCounter.countAllContests()) {
+            if (the_contest_names.contains(cr.getContestName())) {
+              result.add(new AuditSimulator.Target
+                  (cr, BallotManifestInfoQueries.getMatching(cr.countyIDs())));
+            }
+          }
+          return result;
+        } finally {
+          Persistence.rollbackTransaction();
+        }
+      }).get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PersistenceException("interrupted while reading contests", e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new PersistenceException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
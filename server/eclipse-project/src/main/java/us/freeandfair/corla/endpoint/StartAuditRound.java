@@ -22,6 +22,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import javax.persistence.PersistenceException;
@@ -32,6 +38,7 @@ import org.apache.log4j.Logger;
 import spark.Request;
 import spark.Response;
 
+import us.freeandfair.corla.Main;
 import us.freeandfair.corla.asm.ASMEvent;
 import us.freeandfair.corla.asm.ASMState.CountyDashboardState;
 import us.freeandfair.corla.asm.ASMUtilities;
@@ -42,6 +49,7 @@ import us.freeandfair.corla.controller.BallotSelection.Segment;
 import us.freeandfair.corla.controller.BallotSelection.Selection;
 import us.freeandfair.corla.controller.ComparisonAuditController;
 import us.freeandfair.corla.controller.ContestCounter;
+import us.freeandfair.corla.controller.ManifestIndex;
 import us.freeandfair.corla.model.AuditReason;
 import us.freeandfair.corla.model.CastVoteRecord;
 import us.freeandfair.corla.model.ComparisonAudit;
@@ -69,6 +77,17 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
   public static final Logger LOGGER =
       LogManager.getLogger(StartAuditRound.class);
 
+  /**
+   * The property giving the number of threads to draw contest selections
+   * on.
+   */
+  public static final String SELECTION_THREADS_PROPERTY = "selection_threads";
+
+  /**
+   * The default number of threads to draw contest selections on.
+   */
+  private static final int DEFAULT_SELECTION_THREADS = 1;
+
   /**
    * The event to return for this endpoint.
    */
@@ -267,36 +286,151 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
   public List<Selection> makeSelections(final List<ComparisonAudit> comparisonAudits,
                                         final String seed,
                                         final BigDecimal riskLimit) {
+    // only make selection for targeted contests
+    final List<ComparisonAudit> targeted = comparisonAudits.stream()
+      .filter(ca -> ca.contestResult().getAuditReason().isTargeted())
+      .collect(Collectors.toList());
+
+    final List<Integer> startIndexes = new ArrayList<>();
+    final List<Integer> endIndexes = new ArrayList<>();
+    for (final ComparisonAudit comparisonAudit: targeted) {
+      startIndexes.add(BallotSelection.auditedPrefixLength(comparisonAudit.getContestCVRIds()));
+      endIndexes.add(comparisonAudit.optimisticSamplesToAudit());
+    }
 
-    final List<Selection> selections = new ArrayList<>();
+    final List<Selection> selections = drawSelections(targeted, seed,
+                                                      startIndexes, endIndexes);
+    final Integer round = nextRoundNumber();
 
-    for(final ComparisonAudit comparisonAudit: comparisonAudits) {
+    // resolve on this thread, in contest order, since it writes tributes
+    // and phantom ballots
+    for (int i = 0; i < targeted.size(); i++) {
+      final ComparisonAudit comparisonAudit = targeted.get(i);
       final ContestResult contestResult = comparisonAudit.contestResult();
-      // only make selection for targeted contests
-      if (contestResult.getAuditReason().isTargeted()) {
-        final Integer startIndex = BallotSelection.auditedPrefixLength(comparisonAudit.getContestCVRIds());
-        final Integer endIndex = comparisonAudit.optimisticSamplesToAudit();
-
-        final Selection selection =
-          BallotSelection.randomSelection(contestResult, seed,
-                                          startIndex, endIndex);
-
-        LOGGER.debug(String.format("[makeSelections for ContestResult: contestName=%s, "
-                                   + "contestResult.contestCVRIds=%s, selection=%s, "
-                                   + "selection.contestCVRIds=%s, startIndex=%d, endIndex=%d]",
-                                   contestResult.getContestName(),
-                                   comparisonAudit.getContestCVRIds(),
-                                   selection, selection.contestCVRIds(),
-                                   startIndex, endIndex));
-
-        comparisonAudit.addContestCVRIds(selection.contestCVRIds());
-
-        selections.add(selection);
+      final Selection selection = selections.get(i);
+      final Integer startIndex = startIndexes.get(i);
+      final Integer endIndex = endIndexes.get(i);
+      if (startIndex <= endIndex) {
+        BallotSelection.resolveSelection(selection);
       }
+
+      LOGGER.debug(String.format("[makeSelections for ContestResult: contestName=%s, "
+                                 + "contestResult.contestCVRIds=%s, selection=%s, "
+                                 + "selection.contestCVRIds=%s, startIndex=%d, endIndex=%d]",
+                                 contestResult.getContestName(),
+                                 comparisonAudit.getContestCVRIds(),
+                                 selection, selection.contestCVRIds(),
+                                 startIndex, endIndex));
+
+      comparisonAudit.addContestCVRIds(selection.contestCVRIds(), round);
     }
     return selections;
   }
 
+  /**
+   * Draws the selections of contests (without resolving their CVRs), in
+   * parallel if the selection_threads property allows it; each worker reads
+   * the database in its own read-only session.
+   *
+   * @param targeted The comparison audits of the targeted contests.
+   * @param seed The random seed.
+   * @param startIndexes The first index to draw for each contest.
+   * @param endIndexes The last index to draw for each contest.
+   * @return the selections, in contest order.
+   */
+  private List<Selection> drawSelections(final List<ComparisonAudit> targeted,
+                                         final String seed,
+                                         final List<Integer> startIndexes,
+                                         final List<Integer> endIndexes) {
+    final int threads = Math.min(selectionThreads(), targeted.size());
+    // contests with the same counties share a manifest index
+    final Map<Set<Long>, ManifestIndex> indexes = new ConcurrentHashMap<>();
+    final List<Callable<Selection>> draws = new ArrayList<>();
+    for (int i = 0; i < targeted.size(); i++) {
+      final ContestResult contestResult = targeted.get(i).contestResult();
+      // copied here, so the workers do not load the contest's collections
+      final Set<Long> countyIds = new HashSet<>(contestResult.countyIDs());
+      final Integer startIndex = startIndexes.get(i);
+      final Integer endIndex = endIndexes.get(i);
+      draws.add(() -> BallotSelection.drawSelection(contestResult, countyIds, seed,
+                                                    startIndex, endIndex, indexes));
+    }
+
+    final List<Selection> result = new ArrayList<>();
+    if (threads <= 1) {
+      for (final Callable<Selection> draw : draws) {
+        try {
+          result.add(draw.call());
+        } catch (final RuntimeException e) {
+          throw e;
+        } catch (final Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return result;
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<Selection>> futures = new ArrayList<>();
+      for (final Callable<Selection> draw : draws) {
+        futures.add(executor.submit(() -> drawInSession(draw)));
+      }
+      for (final Future<Selection> future : futures) {
+        result.add(future.get());
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while drawing selections", e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    LOGGER.info(String.format("[drawSelections: drew %d selections on %d threads]",
+                              result.size(), threads));
+    return result;
+  }
+
+  /**
+   * Draws a selection on a worker thread, in a read-only session that is
+   * discarded afterward.
+   *
+   * @param the_draw The draw.
+   * @return the selection.
+   * @exception Exception if the draw fails.
+   */
+  private static Selection drawInSession(final Callable<Selection> the_draw)
+      throws Exception {
+    Persistence.beginTransaction();
+    try {
+      Persistence.currentSession().setDefaultReadOnly(true);
+      return the_draw.call();
+    } finally {
+      Persistence.rollbackTransaction();
+    }
+  }
+
+  /**
+   * @return the number of threads to draw selections on, from the
+   * selection_threads property; 1 draws them all on the request thread.
+   */
+  private static int selectionThreads() {
+    int result = DEFAULT_SELECTION_THREADS;
+    try {
+      result = Integer.parseInt(Main.properties()
+                                .getProperty(SELECTION_THREADS_PROPERTY,
+                                             String.valueOf(DEFAULT_SELECTION_THREADS)));
+    } catch (final NumberFormatException e) {
+      LOGGER.error("invalid " + SELECTION_THREADS_PROPERTY + ", using " +
+                   DEFAULT_SELECTION_THREADS);
+    }
+    return result;
+  }
+
   /**
    * Starts the first audit round.
    *
@@ -456,6 +590,16 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
     }
   }
 
+  /**
+   * @return the number of the round being started, counting from 1: one
+   * more than the most rounds any county has had.
+   */
+  private Integer nextRoundNumber() {
+    return Persistence.getAll(CountyDashboard.class).stream()
+      .mapToInt(cdb -> cdb.rounds().size())
+      .max().orElse(0) + 1;
+  }
+
   /**
    * A dashboard is ready to start if it isn't in an initial or final
    * state.
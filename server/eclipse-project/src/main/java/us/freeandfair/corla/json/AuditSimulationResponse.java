@@ -0,0 +1,120 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.json;
+
+import java.math.BigDecimal;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.IntToLongFunction;
+
+import us.freeandfair.corla.controller.AuditSimulator;
+import us.freeandfair.corla.util.SuppressFBWarnings;
+
+/**
+ * The response to a request for an audit workload simulation: the
+ * distributions of the number of rounds and of the number of ballots each
+ * county audits.
+ */
+@SuppressWarnings({"PMD.UnusedPrivateField", "PMD.SingularField"})
+@SuppressFBWarnings(value = {"URF_UNREAD_FIELD"},
+                    justification = "Field is read by Gson.")
+public class AuditSimulationResponse {
+  /**
+   * The number of trials.
+   */
+  private final int my_trials;
+
+  /**
+   * The seed.
+   */
+  private final long my_seed;
+
+  /**
+   * The risk limit.
+   */
+  private final BigDecimal my_risk_limit;
+
+  /**
+   * The number of trials in which some contest went to a hand count.
+   */
+  private final int my_hand_count_trials;
+
+  /**
+   * The distribution of the number of rounds.
+   */
+  private final Distribution my_rounds;
+
+  /**
+   * The distributions of the number of ballots audited, by county ID.
+   */
+  private final SortedMap<Long, Distribution> my_county_ballots = new TreeMap<>();
+
+  /**
+   * Constructs a new AuditSimulationResponse.
+   *
+   * @param the_result The simulation results.
+   * @param the_seed The seed.
+   * @param the_risk_limit The risk limit.
+   */
+  public AuditSimulationResponse(final AuditSimulator.Result the_result,
+                                 final long the_seed,
+                                 final BigDecimal the_risk_limit) {
+    my_trials = the_result.trials();
+    my_seed = the_seed;
+    my_risk_limit = the_risk_limit;
+    my_hand_count_trials = the_result.handCountTrials();
+    my_rounds = new Distribution(the_result::roundsPercentile);
+    for (final Long county_id : the_result.countyIDs()) {
+      my_county_ballots.put(county_id, new Distribution
+          (p -> the_result.countyBallotsPercentile(county_id, p)));
+    }
+  }
+
+  /**
+   * The 50th, 95th and 99th percentiles and the maximum of a quantity.
+   */
+  @SuppressWarnings({"PMD.UnusedPrivateField", "PMD.SingularField"})
+  @SuppressFBWarnings(value = {"URF_UNREAD_FIELD"},
+                      justification = "Field is read by Gson.")
+  public static class Distribution {
+    /**
+     * The median.
+     */
+    private final long my_p50;
+
+    /**
+     * The 95th percentile.
+     */
+    private final long my_p95;
+
+    /**
+     * The 99th percentile.
+     */
+    private final long my_p99;
+
+    /**
+     * The maximum.
+     */
+    private final long my_max;
+
+    /**
+     * Constructs a distribution.
+     *
+     * @param the_percentile A function from percentile to value.
+     */
+    @SuppressWarnings("checkstyle:magicnumber")
+    public Distribution(final IntToLongFunction the_percentile) {
+      my_p50 = the_percentile.applyAsLong(50);
+      my_p95 = the_percentile.applyAsLong(95);
+      my_p99 = the_percentile.applyAsLong(99);
+      my_max = the_percentile.applyAsLong(100);
+    }
+  }
+}
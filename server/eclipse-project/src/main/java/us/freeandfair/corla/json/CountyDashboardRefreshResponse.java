@@ -16,6 +16,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -25,6 +26,7 @@ import us.freeandfair.corla.asm.ASMState;
 import us.freeandfair.corla.asm.ASMUtilities;
 import us.freeandfair.corla.asm.AuditBoardDashboardASM;
 import us.freeandfair.corla.asm.CountyDashboardASM;
+import us.freeandfair.corla.controller.ImportScheduler;
 import us.freeandfair.corla.json.UploadedFileDTO;
 import us.freeandfair.corla.model.AuditBoard;
 import us.freeandfair.corla.model.AuditInfo;
@@ -140,6 +142,12 @@ public class CountyDashboardRefreshResponse {
    */
   private final ImportStatus my_cvr_import_status;
 
+  /**
+   * The position of the county's CVR import in the import queue, or null
+   * if no import is waiting.
+   */
+  private final Integer my_cvr_import_queue_position;
+
   /**
    * The number of ballots audited.
    */
@@ -209,6 +217,8 @@ public class CountyDashboardRefreshResponse {
    * @param the_cvr_export_count The number of CVRs in the uploaded export file.
    * @param the_cvr_import_status An indication of the status of an ongoing
    * CVR import.
+   * @param the_cvr_import_queue_position The position of the county's CVR
+   * import in the import queue, or null if no import is waiting.
    * @param the_audited_ballot_count The number of ballots audited.
    * @param the_discrepancy_count The number of discrepencies found,
    * mapped by audit reason.
@@ -245,6 +255,7 @@ public class CountyDashboardRefreshResponse {
                                            final Integer the_ballot_manifest_count,
                                            final Integer the_cvr_export_count,
                                            final ImportStatus the_cvr_import_status,
+                                           final Integer the_cvr_import_queue_position,
                                            final Integer the_audited_ballot_count,
                                            final Map<AuditSelection, Integer>
                                                the_discrepancy_count,
@@ -281,6 +292,7 @@ public class CountyDashboardRefreshResponse {
     my_ballot_manifest_count = the_ballot_manifest_count;
     my_cvr_export_count = the_cvr_export_count;
     my_cvr_import_status = the_cvr_import_status;
+    my_cvr_import_queue_position = the_cvr_import_queue_position;
     my_audited_ballot_count = the_audited_ballot_count;
     my_discrepancy_count = the_discrepancy_count;
     my_disagreement_count = the_disagreement_count;
@@ -376,6 +388,7 @@ public class CountyDashboardRefreshResponse {
                                               the_dashboard.ballotsInManifest(),
                                               the_dashboard.cvrsImported(),
                                               the_dashboard.cvrImportStatus(),
+                                              cvrImportQueuePosition(county_id),
                                               the_dashboard.ballotsAudited(),
                                               the_dashboard.discrepancies(),
                                               the_dashboard.disagreements(),
@@ -443,6 +456,7 @@ public class CountyDashboardRefreshResponse {
                                               the_dashboard.ballotsInManifest(),
                                               the_dashboard.cvrsImported(),
                                               the_dashboard.cvrImportStatus(),
+                                              cvrImportQueuePosition(county_id),
                                               the_dashboard.ballotsAudited(),
                                               the_dashboard.discrepancies(),
                                               the_dashboard.disagreements(),
@@ -453,4 +467,19 @@ public class CountyDashboardRefreshResponse {
                                               current_round,
                                               null);
   }
+
+  /**
+   * Gets the position of the specified county's CVR import in the import
+   * queue.
+   *
+   * @param the_county_id The county ID.
+   * @return the 1-based position, or null if no import is waiting.
+   */
+  private static Integer cvrImportQueuePosition(final Long the_county_id) {
+    final OptionalInt position = ImportScheduler.instance().queuePosition(the_county_id);
+    if (position.isPresent()) {
+      return position.getAsInt();
+    }
+    return null;
+  }
 }
@@ -11,6 +11,7 @@
 
 package us.freeandfair.corla.json;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -27,6 +28,7 @@ import org.apache.log4j.Logger;
 import us.freeandfair.corla.asm.ASMState;
 import us.freeandfair.corla.asm.ASMUtilities;
 import us.freeandfair.corla.asm.DoSDashboardASM;
+import us.freeandfair.corla.controller.ImportScheduler;
 import us.freeandfair.corla.model.AuditInfo;
 import us.freeandfair.corla.model.AuditReason;
 import us.freeandfair.corla.model.AuditType;
@@ -82,6 +84,11 @@ public class DoSDashboardRefreshResponse {
    */
   private final SortedMap<Long, Map<Integer, Integer>> my_discrepancy_count;
 
+  /**
+   * A map from audited contests to risk measurements.
+   */
+  private final SortedMap<Long, BigDecimal> my_risk_measurement;
+
   /**
    * A map from county IDs to county status.
    */
@@ -107,6 +114,11 @@ public class DoSDashboardRefreshResponse {
    */
   private final SortedMap<Long, AuditType> my_audit_types;
 
+  /**
+   * The state of the CVR import queue.
+   */
+  private final ImportScheduler.Metrics my_cvr_import_metrics;
+
   /**
    * Constructs a new DosDashboardRefreshResponse.
    *
@@ -118,9 +130,13 @@ public class DoSDashboardRefreshResponse {
    * by contest.
    * @param the_discrepancy_count The discrepancy count for each discrepancy type,
    * by contest.
+   * @param the_risk_measurements The risk measurements, by contest.
    * @param the_county_status The county statuses.
    * @param the_hand_count_contests The hand count contests.
    * @param the_audit_info The election info.
+   * @param the_audit_reasons The audit reasons, by contest.
+   * @param the_audit_types The audit types, by contest.
+   * @param the_cvr_import_metrics The state of the CVR import queue.
    */
   @SuppressWarnings("PMD.ExcessiveParameterList")
   protected DoSDashboardRefreshResponse(final ASMState the_asm_state,
@@ -132,22 +148,28 @@ public class DoSDashboardRefreshResponse {
                                            the_optimistic_ballots_to_audit,
                                         final SortedMap<Long, Map<Integer, Integer>>
                                            the_discrepancy_counts,
+                                        final SortedMap<Long, BigDecimal>
+                                           the_risk_measurements,
                                         final SortedMap<Long, CountyDashboardRefreshResponse>
                                            the_county_status,
                                         final List<Long> the_hand_count_contests,
                                         final AuditInfo the_audit_info,
                                         final SortedMap<Long, AuditReason> the_audit_reasons,
-                                        final SortedMap<Long, AuditType> the_audit_types) {
+                                        final SortedMap<Long, AuditType> the_audit_types,
+                                        final ImportScheduler.Metrics
+                                           the_cvr_import_metrics) {
     my_asm_state = the_asm_state;
     my_audited_contests = the_audited_contests;
     my_estimated_ballots_to_audit = the_estimated_ballots_to_audit;
     my_optimistic_ballots_to_audit = the_optimistic_ballots_to_audit;
     my_discrepancy_count = the_discrepancy_counts;
+    my_risk_measurement = the_risk_measurements;
     my_county_status = the_county_status;
     my_hand_count_contests = the_hand_count_contests;
     my_audit_info = the_audit_info;
     my_audit_reasons = the_audit_reasons;
     my_audit_types = the_audit_types;
+    my_cvr_import_metrics = the_cvr_import_metrics;
   }
 
   /**
@@ -166,6 +188,7 @@ public class DoSDashboardRefreshResponse {
     final SortedMap<Long, Integer> estimated_ballots_to_audit = new TreeMap<Long, Integer>();
     final SortedMap<Long, Integer> optimistic_ballots_to_audit = new TreeMap<Long, Integer>();
     final SortedMap<Long, Map<Integer, Integer>> discrepancy_count = new TreeMap<>();
+    final SortedMap<Long, BigDecimal> risk_measurement = new TreeMap<>();
     final List<Long> hand_count_contests = new ArrayList<Long>();
     final SortedMap<Long, AuditReason> audit_reasons =
         new TreeMap<Long, AuditReason>();
@@ -200,6 +223,7 @@ public class DoSDashboardRefreshResponse {
               }
               discrepancy.put(i, discrepancy.get(i) + ca.discrepancyCount(i));
             }
+            risk_measurement.put(cta.contest().id(), ca.riskMeasurement());
           }
 
           estimated_ballots_to_audit.put(cta.contest().id(), optimistic);
@@ -230,11 +254,13 @@ public class DoSDashboardRefreshResponse {
                                            estimated_ballots_to_audit,
                                            optimistic_ballots_to_audit,
                                            discrepancy_count,
+                                           risk_measurement,
                                            countyStatusMap(),
                                            hand_count_contests,
                                            dashboard.auditInfo(),
                                            audit_reasons,
-                                           audit_types);
+                                           audit_types,
+                                           ImportScheduler.instance().metrics());
   }
 
   /**
@@ -32,6 +32,10 @@ public class UploadedFileDTO {
     return this.id;
   }
 
+  public String getHash() {
+    return this.hash;
+  }
+
   public String getStatus() {
     return this.status;
   }
@@ -22,6 +22,19 @@ public final class Audit {
    */
   public static final BigDecimal GAMMA = valueOf(1.03905);
 
+  /**
+   * A bound on the relative error of the double precision evaluations, per
+   * unit of magnitude of the summed log terms; double precision gives about
+   * 1e-16, so this leaves a wide margin for accumulated rounding.
+   */
+  private static final double RELATIVE_ERROR = 1e-12;
+
+  /**
+   * The largest value the double precision evaluations return; larger
+   * values are computed exactly.
+   */
+  private static final double MAX_FAST_VALUE = 1e12;
+
   private Audit() {
   }
 
@@ -107,6 +120,73 @@ public final class Audit {
                                       final int oneUnder,
                                       final int oneOver,
                                       final int twoOver) {
+    if (dilutedMargin.compareTo(ZERO) == 0) {
+      // uncontested, as in exactOptimistic
+      return ZERO;
+    }
+
+    final AuditParameters parameters = AuditParameters.of(gamma, riskLimit);
+
+    // the sample size before rounding up, in double precision, and a bound
+    // on its error; the terms are summed in log space, so the error is
+    // relative to the sum of their magnitudes
+    final double g = gamma.doubleValue();
+    final double margin = dilutedMargin.doubleValue();
+    final double[] terms = parameters.doubleTerms(twoUnder, oneUnder, oneOver, twoOver);
+    double sum = 0;
+    double magnitude = 0;
+    for (final double term : terms) {
+      sum = sum + term;
+      magnitude = magnitude + Math.abs(term);
+    }
+    final double size = -2 * g * sum / margin;
+    final double error = RELATIVE_ERROR * (1 + 2 * g * magnitude / Math.abs(margin));
+
+    final double nearest = Math.rint(size);
+    if (Math.abs(size) < MAX_FAST_VALUE && Math.abs(size - nearest) > error) {
+      // far enough from an integer that ceiling gives the exact result
+      return valueOf((long) Math.ceil(size))
+          .max(valueOf((long) twoUnder + oneUnder + oneOver + twoOver));
+    }
+    return exactOptimistic(parameters, dilutedMargin,
+                           twoUnder, oneUnder, oneOver, twoOver);
+  }
+
+  /**
+   * Computes the expected number of ballots to audit overall given the
+   * specified numbers of over- and understatements, in DECIMAL128
+   * arithmetic throughout; optimistic uses this when double precision
+   * cannot decide the result.
+   *
+   * @return the expected number of ballots remaining to audit.
+   */
+  static BigDecimal exactOptimistic(final BigDecimal riskLimit,
+                                    final BigDecimal dilutedMargin,
+                                    final BigDecimal gamma,
+                                    final int twoUnder,
+                                    final int oneUnder,
+                                    final int oneOver,
+                                    final int twoOver) {
+    if (dilutedMargin.compareTo(ZERO) == 0) {
+      return ZERO;
+    }
+    return exactOptimistic(AuditParameters.of(gamma, riskLimit), dilutedMargin,
+                           twoUnder, oneUnder, oneOver, twoOver);
+  }
+
+  /**
+   * Computes the expected number of ballots to audit overall, in DECIMAL128
+   * arithmetic, with the logarithms precomputed for the gamma and risk
+   * limit.
+   *
+   * @return the expected number of ballots remaining to audit.
+   */
+  private static BigDecimal exactOptimistic(final AuditParameters parameters,
+                                            final BigDecimal dilutedMargin,
+                                            final int twoUnder,
+                                            final int oneUnder,
+                                            final int oneOver,
+                                            final int twoOver) {
 
     if (dilutedMargin.compareTo(ZERO) == 0) { //hilarious
       // nothing to do here, no samples will need to be audited because the
@@ -115,10 +195,6 @@ public final class Audit {
     }
 
     final BigDecimal result;
-    final BigDecimal invgamma = ONE.divide(gamma, DECIMAL128);
-    final BigDecimal twogamma = valueOf(2).multiply(gamma);
-    final BigDecimal invtwogamma =
-      ONE.divide(twogamma, DECIMAL128);
     final BigDecimal two_under_bd = valueOf(twoUnder);
     final BigDecimal one_under_bd = valueOf(oneUnder);
     final BigDecimal one_over_bd = valueOf(oneOver);
@@ -126,21 +202,13 @@ public final class Audit {
 
     final BigDecimal over_under_sum =
       two_under_bd.add(one_under_bd).add(one_over_bd).add(two_over_bd);
-    final BigDecimal two_under =
-      two_under_bd.multiply(log(ONE.add(invgamma),
-                                               DECIMAL128));
-    final BigDecimal one_under =
-      one_under_bd.multiply(log(ONE.add(invtwogamma),
-                                               DECIMAL128));
-    final BigDecimal one_over =
-      one_over_bd.multiply(log(ONE.subtract(invtwogamma),
-                                              DECIMAL128));
-    final BigDecimal two_over =
-      two_over_bd.multiply(log(ONE.subtract(invgamma),
-                                              DECIMAL128));
+    final BigDecimal two_under = two_under_bd.multiply(parameters.logTwoUnder());
+    final BigDecimal one_under = one_under_bd.multiply(parameters.logOneUnder());
+    final BigDecimal one_over = one_over_bd.multiply(parameters.logOneOver());
+    final BigDecimal two_over = two_over_bd.multiply(parameters.logTwoOver());
     final BigDecimal numerator =
-      twogamma.negate().
-      multiply(log(riskLimit, DECIMAL128).
+      parameters.twoGamma().negate().
+      multiply(parameters.logRiskLimit().
                add(two_under.add(one_under).add(one_over).add(two_over)));
       final BigDecimal ceil =
         numerator.divide(dilutedMargin, DECIMAL128).setScale(0, RoundingMode.CEILING);
@@ -246,4 +314,140 @@ public final class Audit {
         )
     );
   }
+
+  /**
+   * The approximation of the Kaplan-Markov P-value, rounded half up to a
+   * number of decimal places; the same as rounding the result of
+   * pValueApproximation, but evaluated in double precision (in log space)
+   * unless that is too close to a rounding boundary to decide.
+   *
+   * @param auditedBallots the number of ballots audited so far
+   * @param dilutedMargin the diluted margin of the contest
+   * @param gamma the "error inflator" parameter from the literature
+   * @param oneUnder the number of one-vote understatements
+   * @param twoUnder the number of two-vote understatements
+   * @param oneOver the number of one-vote overstatements
+   * @param twoOver the number of two-vote overstatements
+   * @param scale the number of decimal places
+   *
+   * @return approximation of the Kaplan-Markov P-value, rounded
+   */
+  public static BigDecimal roundedPValueApproximation(final int auditedBallots,
+                                                      final BigDecimal dilutedMargin,
+                                                      final BigDecimal gamma,
+                                                      final int oneUnder,
+                                                      final int twoUnder,
+                                                      final int oneOver,
+                                                      final int twoOver,
+                                                      final int scale) {
+    final double[] terms = logPValueTerms(auditedBallots, dilutedMargin, gamma,
+                                          oneUnder, twoUnder, oneOver, twoOver);
+    double sum = 0;
+    double magnitude = 0;
+    for (final double term : terms) {
+      sum = sum + term;
+      magnitude = magnitude + Math.abs(term);
+    }
+    final BigDecimal result = roundedPValue(sum, magnitude, scale);
+    if (result != null) {
+      return result;
+    }
+    return pValueApproximation(auditedBallots, dilutedMargin, gamma,
+                               oneUnder, twoUnder, oneOver, twoOver)
+        .setScale(scale, RoundingMode.HALF_UP);
+  }
+
+  /**
+   * The natural log of the approximation of the Kaplan-Markov P-value
+   * (before it is capped at 1), in double precision.
+   *
+   * @param auditedBallots the number of ballots audited so far
+   * @param dilutedMargin the diluted margin of the contest
+   * @param gamma the "error inflator" parameter from the literature
+   * @param oneUnder the number of one-vote understatements
+   * @param twoUnder the number of two-vote understatements
+   * @param oneOver the number of one-vote overstatements
+   * @param twoOver the number of two-vote overstatements
+   *
+   * @return the log of the P-value approximation
+   */
+  public static double logPValueApproximation(final int auditedBallots,
+                                              final BigDecimal dilutedMargin,
+                                              final BigDecimal gamma,
+                                              final int oneUnder,
+                                              final int twoUnder,
+                                              final int oneOver,
+                                              final int twoOver) {
+    double result = 0;
+    for (final double term : logPValueTerms(auditedBallots, dilutedMargin, gamma,
+                                            oneUnder, twoUnder, oneOver, twoOver)) {
+      result = result + term;
+    }
+    return result;
+  }
+
+  /**
+   * A bound on the summed magnitudes of the log terms of the P-value
+   * approximation, from the counts alone: no weight is larger in magnitude
+   * than log(1 - 1/γ), since the diluted margin is at most 1.
+   *
+   * @param gamma the "error inflator" parameter from the literature
+   * @param count the number of ballots audited plus the number of
+   * over- and understatements
+   *
+   * @return the bound
+   */
+  public static double logPValueMagnitudeBound(final BigDecimal gamma, final long count) {
+    return count * Math.abs(Math.log1p(-1 / gamma.doubleValue()));
+  }
+
+  /**
+   * Rounds a P-value, given as a log in double precision, half up to a
+   * number of decimal places, if it is far enough from a rounding boundary
+   * for the rounding to be certain.
+   *
+   * @param logPValue the log of the P-value, before it is capped at 1
+   * @param magnitude the summed magnitudes of the log terms, or a bound on
+   * them, which bounds the error of logPValue
+   * @param scale the number of decimal places
+   *
+   * @return the rounded P-value, or null if it is too close to a rounding
+   * boundary to be certain
+   */
+  public static BigDecimal roundedPValue(final double logPValue, final double magnitude,
+                                         final int scale) {
+    final double scaled = Math.min(1, Math.exp(logPValue)) * Math.pow(10, scale);
+    final double error = RELATIVE_ERROR * (1 + magnitude) * Math.max(1, scaled);
+
+    final double fraction = scaled - Math.floor(scaled);
+    if (scaled < MAX_FAST_VALUE && Math.abs(fraction - 0.5) > error) {
+      // far enough from a rounding boundary that half up rounding gives the
+      // exact result
+      return valueOf((long) Math.floor(scaled + 0.5), scale);
+    }
+    return null;
+  }
+
+  /**
+   * The log terms of the P-value approximation, in double precision.
+   *
+   * @return the terms for the audited ballots and for each kind of over-
+   * and understatement
+   */
+  private static double[] logPValueTerms(final int auditedBallots,
+                                         final BigDecimal dilutedMargin,
+                                         final BigDecimal gamma,
+                                         final int oneUnder,
+                                         final int twoUnder,
+                                         final int oneOver,
+                                         final int twoOver) {
+    final double g = gamma.doubleValue();
+    return new double[] {
+      auditedBallots * Math.log1p(-dilutedMargin.doubleValue() / (2 * g)),
+      -oneOver * Math.log1p(-1 / (2 * g)),
+      -twoOver * Math.log1p(-1 / g),
+      -oneUnder * Math.log1p(1 / (2 * g)),
+      -twoUnder * Math.log1p(1 / g),
+    };
+  }
 }
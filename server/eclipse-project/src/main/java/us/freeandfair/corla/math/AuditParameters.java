@@ -0,0 +1,178 @@
+package us.freeandfair.corla.math;
+
+import static java.math.MathContext.DECIMAL128;
+
+import java.math.BigDecimal;
+import static java.math.BigDecimal.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ch.obermuhlner.math.big.BigDecimalMath.log;
+
+/**
+ * The logarithms that the sample size computation needs for one gamma and
+ * risk limit. They are fixed for an election, so they are computed once
+ * and cached rather than on every audit CVR submission.
+ */
+public final class AuditParameters {
+
+  /**
+   * The most parameter sets to cache; an election has one or a few.
+   */
+  private static final int MAX_CACHED = 64;
+
+  /**
+   * The cached parameters, by gamma and risk limit.
+   */
+  private static final Map<List<BigDecimal>, AuditParameters> CACHE =
+      new ConcurrentHashMap<>();
+
+  /**
+   * 2γ.
+   */
+  private final BigDecimal my_two_gamma;
+
+  /**
+   * log(risk limit).
+   */
+  private final BigDecimal my_log_risk_limit;
+
+  /**
+   * log(1 + 1/γ), the weight of a two-vote understatement.
+   */
+  private final BigDecimal my_log_two_under;
+
+  /**
+   * log(1 + 1/2γ), the weight of a one-vote understatement.
+   */
+  private final BigDecimal my_log_one_under;
+
+  /**
+   * log(1 - 1/2γ), the weight of a one-vote overstatement.
+   */
+  private final BigDecimal my_log_one_over;
+
+  /**
+   * log(1 - 1/γ), the weight of a two-vote overstatement.
+   */
+  private final BigDecimal my_log_two_over;
+
+  /**
+   * The same logarithms in double precision: risk limit, two-vote
+   * understatement, one-vote understatement, one-vote overstatement and
+   * two-vote overstatement.
+   */
+  private final double[] my_double_logs;
+
+  /**
+   * Computes the parameters, exactly as Audit.optimistic always has.
+   *
+   * @param gamma The gamma.
+   * @param riskLimit The risk limit.
+   */
+  private AuditParameters(final BigDecimal gamma, final BigDecimal riskLimit) {
+    final BigDecimal invgamma = ONE.divide(gamma, DECIMAL128);
+    my_two_gamma = valueOf(2).multiply(gamma);
+    final BigDecimal invtwogamma = ONE.divide(my_two_gamma, DECIMAL128);
+    my_log_risk_limit = log(riskLimit, DECIMAL128);
+    my_log_two_under = log(ONE.add(invgamma), DECIMAL128);
+    my_log_one_under = log(ONE.add(invtwogamma), DECIMAL128);
+    my_log_one_over = log(ONE.subtract(invtwogamma), DECIMAL128);
+    my_log_two_over = log(ONE.subtract(invgamma), DECIMAL128);
+
+    final double g = gamma.doubleValue();
+    my_double_logs = new double[] {
+      Math.log(riskLimit.doubleValue()),
+      Math.log1p(1 / g),
+      Math.log1p(1 / (2 * g)),
+      Math.log1p(-1 / (2 * g)),
+      Math.log1p(-1 / g),
+    };
+  }
+
+  /**
+   * The parameters for a gamma and risk limit, from the cache if possible.
+   *
+   * @param gamma The gamma.
+   * @param riskLimit The risk limit.
+   * @return the parameters.
+   * @exception ArithmeticException if a logarithm is undefined, that is,
+   * if the risk limit is not positive or gamma is not greater than 1.
+   */
+  public static AuditParameters of(final BigDecimal gamma, final BigDecimal riskLimit) {
+    final List<BigDecimal> key = Arrays.asList(gamma, riskLimit);
+    AuditParameters result = CACHE.get(key);
+    if (result == null) {
+      result = new AuditParameters(gamma, riskLimit);
+      if (CACHE.size() >= MAX_CACHED) {
+        CACHE.clear();
+      }
+      CACHE.put(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * @return 2γ.
+   */
+  public BigDecimal twoGamma() {
+    return my_two_gamma;
+  }
+
+  /**
+   * @return log(risk limit).
+   */
+  public BigDecimal logRiskLimit() {
+    return my_log_risk_limit;
+  }
+
+  /**
+   * @return log(1 + 1/γ).
+   */
+  public BigDecimal logTwoUnder() {
+    return my_log_two_under;
+  }
+
+  /**
+   * @return log(1 + 1/2γ).
+   */
+  public BigDecimal logOneUnder() {
+    return my_log_one_under;
+  }
+
+  /**
+   * @return log(1 - 1/2γ).
+   */
+  public BigDecimal logOneOver() {
+    return my_log_one_over;
+  }
+
+  /**
+   * @return log(1 - 1/γ).
+   */
+  public BigDecimal logTwoOver() {
+    return my_log_two_over;
+  }
+
+  /**
+   * The log terms of a sample size in double precision.
+   *
+   * @param twoUnder The two-vote understatements.
+   * @param oneUnder The one-vote understatements.
+   * @param oneOver The one-vote overstatements.
+   * @param twoOver The two-vote overstatements.
+   * @return log(risk limit) and each count times its weight.
+   */
+  public double[] doubleTerms(final int twoUnder, final int oneUnder,
+                              final int oneOver, final int twoOver) {
+    return new double[] {
+      my_double_logs[0],
+      twoUnder * my_double_logs[1],
+      oneUnder * my_double_logs[2],
+      oneOver * my_double_logs[3],
+      twoOver * my_double_logs[4],
+    };
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index of the contest information of a cast vote record, by
+ * contest name, with the choices made in each contest as sorted ordinals
+ * in the contest's list of choices, so that comparing a CVR with its audit
+ * CVR compares integers rather than lists of strings. A cast vote record
+ * builds its index when first asked for it, and keeps it as long as its
+ * contest information does not change.
+ */
+public final class CVRContestIndex {
+  /**
+   * The contest information the index was built from.
+   */
+  private final List<CVRContestInfo> my_source;
+
+  /**
+   * The entries, by contest name.
+   */
+  private final Map<String, Entry> my_entries;
+
+  /**
+   * Constructs an index of the specified contest information.
+   *
+   * @param the_source The contest information; where a contest name
+   * appears more than once, the first is indexed.
+   */
+  public CVRContestIndex(final List<CVRContestInfo> the_source) {
+    my_source = the_source;
+    my_entries = new HashMap<>(the_source.size() * 2);
+    for (final CVRContestInfo info : the_source) {
+      my_entries.putIfAbsent(info.contest().name(), new Entry(info));
+    }
+  }
+
+  /**
+   * @param the_source Some contest information.
+   * @return true if this index was built from exactly that list.
+   */
+  public boolean isFor(final List<CVRContestInfo> the_source) {
+    return my_source == the_source;
+  }
+
+  /**
+   * @param the_contest_name A contest name.
+   * @return the entry for the contest, or null if the record has none.
+   */
+  public Entry forContestName(final String the_contest_name) {
+    return my_entries.get(the_contest_name);
+  }
+
+  /**
+   * @param the_contest A contest.
+   * @param the_choice A choice name.
+   * @return the position of the first choice of the contest with that
+   * name, or -1 if there is none.
+   */
+  public static int ordinal(final Contest the_contest, final String the_choice) {
+    final List<Choice> choices = the_contest.choices();
+    for (int i = 0; i < choices.size(); i++) {
+      if (choices.get(i).name().equals(the_choice)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * The choices made in one contest of a cast vote record.
+   */
+  public static final class Entry {
+    /**
+     * The contest information.
+     */
+    private final CVRContestInfo my_info;
+
+    /**
+     * The distinct ordinals of the choices made, in ascending order; null if
+     * some choice is not a choice of the contest.
+     */
+    private final int[] my_ordinals;
+
+    /**
+     * Constructs the entry for the specified contest information.
+     *
+     * @param the_info The contest information.
+     */
+    Entry(final CVRContestInfo the_info) {
+      my_info = the_info;
+      final int[] ordinals = new int[the_info.choices().size()];
+      boolean indexed = true;
+      for (int i = 0; i < ordinals.length; i++) {
+        ordinals[i] = ordinal(the_info.contest(), the_info.choices().get(i));
+        indexed &= ordinals[i] >= 0;
+      }
+      if (indexed) {
+        my_ordinals = Arrays.stream(ordinals).sorted().distinct().toArray();
+      } else {
+        my_ordinals = null;
+      }
+    }
+
+    /**
+     * @return the contest information.
+     */
+    public CVRContestInfo info() {
+      return my_info;
+    }
+
+    /**
+     * @return the contest.
+     */
+    public Contest contest() {
+      return my_info.contest();
+    }
+
+    /**
+     * @return true if every choice made is a choice of the contest, so that
+     * the ordinals stand for the choices.
+     */
+    public boolean isIndexed() {
+      return my_ordinals != null;
+    }
+
+    /**
+     * @return the number of choices made, counting repeats.
+     */
+    public int choiceCount() {
+      return my_info.choices().size();
+    }
+
+    /**
+     * @param the_ordinal An ordinal of a choice of the contest.
+     * @return true if the choice was made; only meaningful if this entry is
+     * indexed.
+     */
+    public boolean contains(final int the_ordinal) {
+      return the_ordinal >= 0 && Arrays.binarySearch(my_ordinals, the_ordinal) >= 0;
+    }
+
+    /**
+     * @param the_other Another indexed entry for the same contest.
+     * @return true if the same choices were made in both; only meaningful if
+     * both are indexed.
+     */
+    public boolean sameChoices(final Entry the_other) {
+      return Arrays.equals(my_ordinals, the_other.my_ordinals);
+    }
+  }
+}
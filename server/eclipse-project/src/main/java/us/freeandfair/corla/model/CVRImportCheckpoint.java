@@ -0,0 +1,225 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+import us.freeandfair.corla.persistence.IntegerListConverter;
+import us.freeandfair.corla.persistence.LongListConverter;
+import us.freeandfair.corla.persistence.PersistentEntity;
+import us.freeandfair.corla.persistence.VoteTotalsListConverter;
+
+/**
+ * The progress of a multi-transaction CVR import, as of its last committed
+ * transaction: how many CVRs of which file have been committed, and the
+ * county contest result tallies for those CVRs. It is written in the same
+ * transaction as the CVRs it describes, so it always matches what is in the
+ * database, and lets a failed import of the same file resume where it left
+ * off instead of starting over.
+ */
+@Entity
+@Cacheable(false)
+@Table(name = "cvr_import_checkpoint")
+// this class has many fields that would normally be declared final, but
+// cannot be for compatibility with Hibernate and JPA.
+@SuppressWarnings("PMD.ImmutableField")
+public class CVRImportCheckpoint implements PersistentEntity, Serializable {
+  /**
+   * The serialVersionUID.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The database ID.
+   */
+  @Id
+  @Column(updatable = false, nullable = false)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE)
+  private Long my_id;
+
+  /**
+   * The version (for optimistic locking).
+   */
+  @Version
+  private Long my_version;
+
+  /**
+   * The ID of the county being imported; a county has at most one
+   * checkpoint.
+   */
+  @Column(updatable = false, nullable = false, unique = true)
+  private Long my_county_id;
+
+  /**
+   * The hash of the file being imported.
+   */
+  @Column(updatable = false, nullable = false)
+  private String my_file_hash;
+
+  /**
+   * The number of CVRs committed.
+   */
+  @Column(nullable = false)
+  private Integer my_record_count = 0;
+
+  /**
+   * The IDs of the contests in the file, in file order.
+   */
+  @Column(columnDefinition = "text")
+  @Convert(converter = LongListConverter.class)
+  private List<Long> my_contest_ids = new ArrayList<>();
+
+  /**
+   * The vote totals of each contest, in file order.
+   */
+  @Column(columnDefinition = "text")
+  @Convert(converter = VoteTotalsListConverter.class)
+  private List<Map<String, Integer>> my_vote_totals = new ArrayList<>();
+
+  /**
+   * The number of ballots that include each contest, in file order.
+   */
+  @Column(columnDefinition = "text")
+  @Convert(converter = IntegerListConverter.class)
+  private List<Integer> my_contest_ballot_counts = new ArrayList<>();
+
+  /**
+   * Constructs an empty checkpoint, solely for persistence.
+   */
+  public CVRImportCheckpoint() {
+    super();
+  }
+
+  /**
+   * Constructs a checkpoint for a new import.
+   *
+   * @param the_county_id The county ID.
+   * @param the_file_hash The hash of the file being imported.
+   */
+  public CVRImportCheckpoint(final Long the_county_id, final String the_file_hash) {
+    super();
+    my_county_id = the_county_id;
+    my_file_hash = the_file_hash;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Long id() {
+    return my_id;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setID(final Long the_id) {
+    my_id = the_id;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Long version() {
+    return my_version;
+  }
+
+  /**
+   * @return the county ID.
+   */
+  public Long countyID() {
+    return my_county_id;
+  }
+
+  /**
+   * @return the hash of the file being imported.
+   */
+  public String fileHash() {
+    return my_file_hash;
+  }
+
+  /**
+   * @return the number of CVRs committed.
+   */
+  public Integer recordCount() {
+    return my_record_count;
+  }
+
+  /**
+   * @return the IDs of the contests in the file, in file order.
+   */
+  public List<Long> contestIDs() {
+    return my_contest_ids;
+  }
+
+  /**
+   * @param the_index The position of the contest in the file.
+   * @return the vote totals of the contest.
+   */
+  public Map<String, Integer> voteTotals(final int the_index) {
+    return my_vote_totals.get(the_index);
+  }
+
+  /**
+   * @param the_index The position of the contest in the file.
+   * @return the number of ballots that include the contest.
+   */
+  public Integer contestBallotCount(final int the_index) {
+    return my_contest_ballot_counts.get(the_index);
+  }
+
+  /**
+   * Records the progress of the import.
+   *
+   * @param the_record_count The number of CVRs committed.
+   * @param the_results The county contest results, in file order.
+   */
+  public void update(final int the_record_count,
+                     final List<CountyContestResult> the_results) {
+    my_record_count = the_record_count;
+    // new lists, so Hibernate sees the change
+    final List<Long> contest_ids = new ArrayList<>(the_results.size());
+    final List<Map<String, Integer>> vote_totals = new ArrayList<>(the_results.size());
+    final List<Integer> ballot_counts = new ArrayList<>(the_results.size());
+    for (final CountyContestResult r : the_results) {
+      contest_ids.add(r.contest().id());
+      vote_totals.add(new HashMap<>(r.voteTotals()));
+      ballot_counts.add(r.contestBallotCount());
+    }
+    my_contest_ids = contest_ids;
+    my_vote_totals = vote_totals;
+    my_contest_ballot_counts = ballot_counts;
+  }
+
+  /**
+   * @return a String representation of this checkpoint.
+   */
+  @Override
+  public String toString() {
+    return "CVRImportCheckpoint [county_id=" + my_county_id + ", file_hash=" +
+           my_file_hash + ", record_count=" + my_record_count + "]";
+  }
+}
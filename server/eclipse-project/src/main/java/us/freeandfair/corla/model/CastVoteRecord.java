@@ -215,6 +215,12 @@ final public class CastVoteRecord implements Comparable<CastVoteRecord>,
    */
   private transient boolean my_previously_audited;
 
+  /**
+   * A transient index of the contest information, built when first needed;
+   * it is not serialized in the database.
+   */
+  private transient CVRContestIndex my_contest_index;
+
   /**
    * The CVR to audit, for ACVRs only
    */
@@ -519,6 +525,7 @@ final public class CastVoteRecord implements Comparable<CastVoteRecord>,
 
   /** setter **/
   public void setContestInfo (final List<CVRContestInfo> contestInfos) {
+    this.my_contest_index = null;
     this.my_contest_info.clear();
     this.my_contest_info.addAll(CastVoteRecord.claim(contestInfos, this.my_county_id));
   }
@@ -546,9 +553,22 @@ final public class CastVoteRecord implements Comparable<CastVoteRecord>,
    * @return maybe the first CVRContestInfo found, maybe nothing.
    */
   public Optional<CVRContestInfo> contestInfoForContestResult(final ContestResult cr) {
-    return my_contest_info.stream()
-      .filter(x -> x.contest().name().equals(cr.getContestName()))
-      .findFirst();
+    final CVRContestIndex.Entry entry = contestIndex().forContestName(cr.getContestName());
+    if (entry == null) {
+      return Optional.empty();
+    }
+    return Optional.of(entry.info());
+  }
+
+  /**
+   * @return the index of the contest information of this record, built
+   * again if the contest information has been replaced since it was built.
+   */
+  public CVRContestIndex contestIndex() {
+    if (my_contest_index == null || !my_contest_index.isFor(my_contest_info)) {
+      my_contest_index = new CVRContestIndex(my_contest_info);
+    }
+    return my_contest_index;
   }
 
   /**
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -29,7 +30,6 @@ import java.util.stream.Stream;
 import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
-import javax.persistence.Convert;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -38,11 +38,13 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.MapKeyJoinColumn;
+import javax.persistence.OrderColumn;
 import javax.persistence.Table;
 import javax.persistence.Version;
 
@@ -53,7 +55,7 @@ import us.freeandfair.corla.math.Audit;
 import us.freeandfair.corla.model.CVRContestInfo.ConsensusValue;
 import us.freeandfair.corla.model.CastVoteRecord.RecordType;
 import us.freeandfair.corla.persistence.PersistentEntity;
-import us.freeandfair.corla.persistence.LongListConverter;
+import us.freeandfair.corla.util.LongMultiset;
 
 /**
  * A class representing the state of a single audited contest for
@@ -198,6 +200,14 @@ public class ComparisonAudit implements PersistentEntity {
   @Column(nullable = false)
   private Integer my_disagreement_count = 0;
 
+  /**
+   * The natural log of the current risk measurement (the Kaplan-Markov
+   * P-value approximation, before it is capped at 1), kept up to date as
+   * samples and discrepancies are recorded.
+   */
+  @Column(nullable = true) // true for migration
+  private Double my_log_p_value;
+
   /**
    * gets incremented
    */
@@ -219,11 +229,47 @@ public class ComparisonAudit implements PersistentEntity {
   private Boolean my_estimated_recalculate_needed = true;
 
   /**
-   * The sequence of CastVoteRecord ids for this contest ordered by County id
+   * The sequence of CastVoteRecord ids for this contest ordered by County id,
+   * with the round each was drawn in. It is only appended to, one row per
+   * sample, and is loaded only when it is used.
+   */
+  @ElementCollection(fetch = FetchType.LAZY)
+  @OrderColumn(name = "seq_index")
+  @CollectionTable(name = "comparison_audit_sample",
+                   joinColumns = @JoinColumn(name = "audit_id",
+                                             referencedColumnName = "my_id"),
+                   indexes = { @Index(name = "idx_cas_audit_cvr",
+                                      columnList = "audit_id,cvr_id") })
+  private List<ComparisonAuditSample> my_samples = new ArrayList<>();
+
+  /**
+   * A transient count of the times each CVR ID appears in my_samples,
+   * built when first needed and kept in sync by addContestCVRIds; it is not
+   * serialized in the database.
+   */
+  private transient LongMultiset my_contest_cvr_id_counts;
+
+  /**
+   * The size of my_samples that my_contest_cvr_id_counts reflects.
+   */
+  private transient int my_counted_cvr_ids;
+
+  /**
+   * A transient cache of the ordinals of the winners and losers in the
+   * choices of each county's contest, for discrepancies between indexed
+   * CVRs; it is not serialized in the database.
+   */
+  private transient Map<Contest, int[][]> my_outcome_ordinals;
+
+  /**
+   * The winners that my_outcome_ordinals reflects.
+   */
+  private transient Set<String> my_ordinal_winners;
+
+  /**
+   * The losers that my_outcome_ordinals reflects.
    */
-  @Column(name = "contest_cvr_ids", columnDefinition = "text")
-  @Convert(converter = LongListConverter.class)
-  private List<Long> contestCVRIds = new ArrayList<Long>();
+  private transient Set<String> my_ordinal_losers;
 
   /**
    * A map from CVRAuditInfo objects to their discrepancy values for this
@@ -576,6 +622,7 @@ public class ComparisonAudit implements PersistentEntity {
    */
   public void signalSampleAudited(final int count) {
     my_estimated_recalculate_needed = true;
+    addToLogPValue(count, 0, 0, 0, 0);
     my_audited_sample_count = my_audited_sample_count + count;
 
     // this may not be needed, but I'm not sure
@@ -622,6 +669,7 @@ public class ComparisonAudit implements PersistentEntity {
    */
   public void signalSampleUnaudited(final int count) {
     my_estimated_recalculate_needed = true;
+    addToLogPValue(-count, 0, 0, 0, 0);
     my_audited_sample_count = my_audited_sample_count - count;
 
     // this may not be needed, but I'm not sure
@@ -693,22 +741,53 @@ public class ComparisonAudit implements PersistentEntity {
 
   /** was the given cvrid selected for this contest? **/
   public boolean isCovering(final Long cvrId) {
-    return getContestCVRIds().contains(cvrId);
+    return cvrId != null && contestCVRIdCounts().contains(cvrId);
   }
 
   /**
    * Adds to the current collection of Contest CVR IDs
    * @param contestCVRIds a list
+   * @param round the round they were drawn in
    */
-  public void addContestCVRIds (final List<Long> contestCVRIds) {
-    this.contestCVRIds.addAll(contestCVRIds);
+  public void addContestCVRIds (final List<Long> contestCVRIds, final Integer round) {
+    for (final Long cvrId : contestCVRIds) {
+      my_samples.add(new ComparisonAuditSample(cvrId, round));
+    }
+    if (my_contest_cvr_id_counts != null) {
+      my_contest_cvr_id_counts.addAll(contestCVRIds);
+      my_counted_cvr_ids = my_counted_cvr_ids + contestCVRIds.size();
+    }
+  }
+
+  /**
+   * @return the number of times each CVR ID appears in contestCVRIds,
+   * rebuilt if the list has changed other than through addContestCVRIds.
+   */
+  private LongMultiset contestCVRIdCounts() {
+    if (my_contest_cvr_id_counts == null ||
+        my_counted_cvr_ids != my_samples.size()) {
+      my_contest_cvr_id_counts = new LongMultiset(getContestCVRIds());
+      my_counted_cvr_ids = my_samples.size();
+    }
+    return my_contest_cvr_id_counts;
   }
 
   /**
    * getter
    */
   public List<Long> getContestCVRIds() {
-    return this.contestCVRIds;
+    final List<Long> result = new ArrayList<>(my_samples.size());
+    for (final ComparisonAuditSample sample : my_samples) {
+      result.add(sample.cvrID());
+    }
+    return result;
+  }
+
+  /**
+   * @return the samples drawn for this contest, in order.
+   */
+  public List<ComparisonAuditSample> samples() {
+    return Collections.unmodifiableList(my_samples);
   }
 
   /**
@@ -739,7 +818,10 @@ public class ComparisonAudit implements PersistentEntity {
    * (across all rounds)
    **/
   public int multiplicity(final Long cvrId) {
-    return Collections.frequency(getContestCVRIds(), cvrId);
+    if (cvrId == null) {
+      return 0;
+    }
+    return contestCVRIdCounts().count(cvrId);
   }
 
   /**
@@ -765,11 +847,13 @@ public class ComparisonAudit implements PersistentEntity {
     if (isCovering(the_record.cvr().id())) {
       switch (the_type) {
       case -2:
+        addToLogPValue(0, 0, 1, 0, 0);
         my_two_vote_under_count = my_two_vote_under_count + 1;
         my_optimistic_recalculate_needed = true;
         break;
 
       case -1:
+        addToLogPValue(0, 1, 0, 0, 0);
         my_one_vote_under_count = my_one_vote_under_count + 1;
         my_optimistic_recalculate_needed = true;
         break;
@@ -780,11 +864,13 @@ public class ComparisonAudit implements PersistentEntity {
         break;
 
       case 1:
+        addToLogPValue(0, 0, 0, 1, 0);
         my_one_vote_over_count = my_one_vote_over_count + 1;
         my_optimistic_recalculate_needed = true;
         break;
 
       case 2:
+        addToLogPValue(0, 0, 0, 0, 1);
         my_two_vote_over_count = my_two_vote_over_count + 1;
         my_optimistic_recalculate_needed = true;
         break;
@@ -827,11 +913,13 @@ public class ComparisonAudit implements PersistentEntity {
     // a discrepancy or not
     switch (the_type) {
     case -2:
+      addToLogPValue(0, 0, -1, 0, 0);
       my_two_vote_under_count = my_two_vote_under_count - 1;
       my_optimistic_recalculate_needed = true;
       break;
 
     case -1:
+      addToLogPValue(0, -1, 0, 0, 0);
       my_one_vote_under_count = my_one_vote_under_count - 1;
       my_optimistic_recalculate_needed = true;
       break;
@@ -842,11 +930,13 @@ public class ComparisonAudit implements PersistentEntity {
       break;
 
     case 1:
+      addToLogPValue(0, 0, 0, -1, 0);
       my_one_vote_over_count = my_one_vote_over_count - 1;
       my_optimistic_recalculate_needed = true;
       break;
 
     case 2:
+      addToLogPValue(0, 0, 0, 0, -1);
       my_two_vote_over_count = my_two_vote_over_count - 1;
       my_optimistic_recalculate_needed = true;
       break;
@@ -858,6 +948,73 @@ public class ComparisonAudit implements PersistentEntity {
     my_discrepancies.remove(the_record);
   }
 
+  /**
+   * Adds the changes in the counts to the log of the risk measurement; the
+   * log is a sum of a term per ballot and per over- or understatement, so
+   * this takes constant time. It must be called before the counts change.
+   *
+   * @param the_audited The change in the number of samples audited.
+   * @param the_one_under The change in the one-vote understatements.
+   * @param the_two_under The change in the two-vote understatements.
+   * @param the_one_over The change in the one-vote overstatements.
+   * @param the_two_over The change in the two-vote overstatements.
+   */
+  private void addToLogPValue(final int the_audited,
+                              final int the_one_under, final int the_two_under,
+                              final int the_one_over, final int the_two_over) {
+    my_log_p_value = logPValue() +
+        Audit.logPValueApproximation(the_audited, getDilutedMargin(), getGamma(),
+                                     the_one_under, the_two_under,
+                                     the_one_over, the_two_over);
+  }
+
+  /**
+   * @return the natural log of the current risk measurement, before it is
+   * capped at 1; for an audit saved before it was kept, it is computed from
+   * the counts.
+   */
+  public double logPValue() {
+    if (my_log_p_value == null) {
+      my_log_p_value =
+          Audit.logPValueApproximation(my_audited_sample_count, getDilutedMargin(),
+                                       getGamma(),
+                                       my_one_vote_under_count, my_two_vote_under_count,
+                                       my_one_vote_over_count, my_two_vote_over_count);
+    }
+    return my_log_p_value;
+  }
+
+  /**
+   * The risk measurement, rounded to 3 decimal places, from the log kept by
+   * this audit when the rounding is certain, and from the exact
+   * approximation otherwise.
+   *
+   * @return the risk measurement; 1 (full risk) when nothing is known.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  public BigDecimal riskMeasurement() {
+    if (my_audited_sample_count <= 0
+        || getDilutedMargin().compareTo(BigDecimal.ZERO) <= 0) {
+      // full risk (100%) when nothing is known
+      return BigDecimal.ONE;
+    }
+    final long count = (long) my_audited_sample_count
+                       + my_one_vote_under_count + my_two_vote_under_count
+                       + my_one_vote_over_count + my_two_vote_over_count;
+    final BigDecimal result =
+        Audit.roundedPValue(logPValue(),
+                            Audit.logPValueMagnitudeBound(getGamma(), count), 3);
+    if (result != null) {
+      return result;
+    }
+    return Audit.roundedPValueApproximation(my_audited_sample_count,
+                                            getDilutedMargin(), getGamma(),
+                                            my_one_vote_under_count,
+                                            my_two_vote_under_count,
+                                            my_one_vote_over_count,
+                                            my_two_vote_over_count, 3);
+  }
+
   /**
    * Returns the count of the specified type of discrepancy. -2 and -1 represent
    * understatements, 0 represents a discrepancy that doesn't affect the RLA
@@ -949,8 +1106,14 @@ public class ComparisonAudit implements PersistentEntity {
     // winners and loser of the contest......BUT the ContestResult also
     // has a set of winners and losers, which is now the MOST ACCURATE
     // version of this, since we're now out of the county context...
-    final Optional<CVRContestInfo> cvr_info = cvr.contestInfoForContestResult(my_contest_result);
-    final Optional<CVRContestInfo> acvr_info = auditedCVR.contestInfoForContestResult(my_contest_result);
+    final CVRContestIndex.Entry cvr_entry =
+        cvr.contestIndex().forContestName(my_contest_result.getContestName());
+    final CVRContestIndex.Entry acvr_entry =
+        auditedCVR.contestIndex().forContestName(my_contest_result.getContestName());
+    final Optional<CVRContestInfo> cvr_info =
+        Optional.ofNullable(cvr_entry).map(CVRContestIndex.Entry::info);
+    final Optional<CVRContestInfo> acvr_info =
+        Optional.ofNullable(acvr_entry).map(CVRContestIndex.Entry::info);
 
     if (auditedCVR.recordType() == RecordType.PHANTOM_BALLOT) {
       if (cvr_info.isPresent()) {
@@ -970,6 +1133,9 @@ public class ComparisonAudit implements PersistentEntity {
         // a lack of consensus for this contest is treated
         // identically to a phantom ballot
         result = OptionalInt.of(computePhantomBallotDiscrepancy(cvr_info.get(), my_contest_result));
+      } else if (cvr_entry.isIndexed() && acvr_entry.isIndexed() &&
+                 cvr_entry.contest() == acvr_entry.contest()) {
+        result = computeIndexedBallotDiscrepancy(cvr_entry, acvr_entry);
       } else {
         result = computeAuditedBallotDiscrepancy(cvr_info.get(), acvr_info.get());
       }
@@ -1032,6 +1198,83 @@ public class ComparisonAudit implements PersistentEntity {
       return OptionalInt.empty();
     }
 
+    final int[] winner_changes = new int[my_contest_result.getWinners().size()];
+    int i = 0;
+    for (final String winner : my_contest_result.getWinners()) {
+      winner_changes[i] = change(cvr_choices.contains(winner), acvr_choices.contains(winner));
+      i = i + 1;
+    }
+    final int[] loser_changes = new int[my_contest_result.getLosers().size()];
+    i = 0;
+    for (final String loser : my_contest_result.getLosers()) {
+      loser_changes[i] = change(cvr_choices.contains(loser), acvr_choices.contains(loser));
+      i = i + 1;
+    }
+    return pairwiseDiscrepancy(winner_changes, loser_changes);
+  }
+
+  /**
+   * Computes the discrepancy between two ballots, as
+   * computeAuditedBallotDiscrepancy does, from indexed contest information
+   * for the same contest: the choices are compared as ordinals, and the
+   * ordinals of the winners and losers are looked up once per contest.
+   *
+   * @param the_cvr_entry The CVR entry.
+   * @param the_acvr_entry The ACVR entry.
+   * @return an optional int that is present if there is a discrepancy and absent
+   * otherwise.
+   */
+  private OptionalInt computeIndexedBallotDiscrepancy(final CVRContestIndex.Entry the_cvr_entry,
+                                                      final CVRContestIndex.Entry the_acvr_entry) {
+    // an overvote by the audit board counts as no selections; see
+    // computeAuditedBallotDiscrepancy
+    final boolean acvr_counted =
+        the_acvr_entry.choiceCount() <= my_contest_result.winnersAllowed();
+    if (acvr_counted && the_cvr_entry.sameChoices(the_acvr_entry) ||
+        !acvr_counted && the_cvr_entry.choiceCount() == 0) {
+      return OptionalInt.empty();
+    }
+
+    final int[][] outcome = outcomeOrdinals(the_cvr_entry.contest());
+    final int[] winner_changes = new int[outcome[0].length];
+    for (int i = 0; i < winner_changes.length; i++) {
+      winner_changes[i] = change(the_cvr_entry.contains(outcome[0][i]),
+                                 acvr_counted && the_acvr_entry.contains(outcome[0][i]));
+    }
+    final int[] loser_changes = new int[outcome[1].length];
+    for (int i = 0; i < loser_changes.length; i++) {
+      loser_changes[i] = change(the_cvr_entry.contains(outcome[1][i]),
+                                acvr_counted && the_acvr_entry.contains(outcome[1][i]));
+    }
+    return pairwiseDiscrepancy(winner_changes, loser_changes);
+  }
+
+  /**
+   * @param the_in_cvr true if a choice was made on the CVR.
+   * @param the_in_acvr true if it was made on the ACVR.
+   * @return the change in the choice's votes: 1 if it gained a vote, -1 if
+   * it lost one, 0 otherwise.
+   */
+  private static int change(final boolean the_in_cvr, final boolean the_in_acvr) {
+    if (!the_in_cvr && the_in_acvr) {
+      return 1;
+    } else if (the_in_cvr && !the_in_acvr) {
+      return -1;
+    } else {
+      return 0;
+    }
+  }
+
+  /**
+   * Computes the discrepancy between two ballots that differ, from the
+   * change in the votes of each winner and each loser.
+   *
+   * @param the_winner_changes The change in the votes of each winner.
+   * @param the_loser_changes The change in the votes of each loser.
+   * @return the discrepancy.
+   */
+  private OptionalInt pairwiseDiscrepancy(final int[] the_winner_changes,
+                                          final int[] the_loser_changes) {
     // we want to get the maximum pairwise update delta, because that's the "worst"
     // change in a pairwise margin, and the discrepancy we record; we start with
     // Integer.MIN_VALUE so our maximization algorithm works. it is also the case
@@ -1041,37 +1284,13 @@ public class ComparisonAudit implements PersistentEntity {
     int raw_result = Integer.MIN_VALUE;
 
     boolean possible_understatement = true;
-    // FIXME my_contest_result is global to this object. I'd rather it
-    // be an argument to this function.
-    for (final String winner : my_contest_result.getWinners()) {
-      final int winner_change;
-      if (!cvr_choices.contains(winner) && acvr_choices.contains(winner)) {
-        // this winner gained a vote
-        winner_change = 1;
-      } else if (cvr_choices.contains(winner) && !acvr_choices.contains(winner)) {
-        // this winner lost a vote
-        winner_change = -1;
-      } else {
-        // this winner's votes didn't change
-        winner_change = 0;
-      }
-      if (my_contest_result.getLosers().isEmpty()) {
+    for (final int winner_change : the_winner_changes) {
+      if (the_loser_changes.length == 0) {
         // if there are no losers, we'll just negate this number - even though in
         // real life, we wouldn't be auditing the contest at all
         raw_result = Math.max(raw_result, -winner_change);
       } else {
-        for (final String loser : my_contest_result.getLosers()) {
-          final int loser_change;
-          if (!cvr_choices.contains(loser) && acvr_choices.contains(loser)) {
-            // this loser gained a vote
-            loser_change = 1;
-          } else if (cvr_choices.contains(loser) && !acvr_choices.contains(loser)) {
-            // this loser lost a vote
-            loser_change = -1;
-          } else {
-            // this loser's votes didn't change
-            loser_change = 0;
-          }
+        for (final int loser_change : the_loser_changes) {
           // the discrepancy is the loser change minus the winner change (i.e., if this
           // loser lost a vote (-1) and this winner gained a vote (1), that's a 2-vote
           // understatement (-1 - 1 = -2). Overstatements are worse than understatements,
@@ -1115,6 +1334,44 @@ public class ComparisonAudit implements PersistentEntity {
     return result;
   }
 
+  /**
+   * @param the_contest The contest of one county.
+   * @return the ordinals of the winners and of the losers of this audit's
+   * contest in the choices of that contest, -1 for any that is not a
+   * choice of it; looked up again if the winners or losers have changed.
+   */
+  private int[][] outcomeOrdinals(final Contest the_contest) {
+    if (my_outcome_ordinals == null ||
+        !my_ordinal_winners.equals(my_contest_result.getWinners()) ||
+        !my_ordinal_losers.equals(my_contest_result.getLosers())) {
+      my_outcome_ordinals = new IdentityHashMap<>();
+      my_ordinal_winners = new HashSet<>(my_contest_result.getWinners());
+      my_ordinal_losers = new HashSet<>(my_contest_result.getLosers());
+    }
+    int[][] result = my_outcome_ordinals.get(the_contest);
+    if (result == null) {
+      result = new int[][] {ordinals(the_contest, my_ordinal_winners),
+                            ordinals(the_contest, my_ordinal_losers)};
+      my_outcome_ordinals.put(the_contest, result);
+    }
+    return result;
+  }
+
+  /**
+   * @param the_contest A contest.
+   * @param the_choices Some choice names.
+   * @return the ordinal of each in the choices of the contest.
+   */
+  private static int[] ordinals(final Contest the_contest, final Set<String> the_choices) {
+    final int[] result = new int[the_choices.size()];
+    int i = 0;
+    for (final String choice : the_choices) {
+      result[i] = CVRContestIndex.ordinal(the_contest, choice);
+      i = i + 1;
+    }
+    return result;
+  }
+
   /**
    * Computes the discrepancy between a phantom ballot and the specified
    * CVRContestInfo.
@@ -1138,13 +1395,13 @@ public class ComparisonAudit implements PersistentEntity {
    */
   @Override
   public String toString() {
+    // the samples are left out, so that logging does not load them
     return  String.format("[ComparisonAudit for %s: counties=%s, auditedSampleCount=%d, overstatements=%f,"
-                          + " contestResult.contestCvrIds=%s, status=%s, reason=%s]",
+                          + " status=%s, reason=%s]",
                           this.contestResult().getContestName(),
                           this.contestResult().getCounties(),
                           this.getAuditedSampleCount(),
                           this.getOverstatements(),
-                          this.getContestCVRIds(),
                           my_audit_status,
                           this.auditReason());
   }
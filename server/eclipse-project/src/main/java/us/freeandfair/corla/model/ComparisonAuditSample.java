@@ -0,0 +1,115 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.model;
+
+import static us.freeandfair.corla.util.EqualsHashcodeHelper.*;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+import org.hibernate.annotations.Immutable;
+
+/**
+ * One CVR drawn in the random sample of a comparison audit: the CVR ID and
+ * the round in which it was drawn. Samples are only ever appended.
+ */
+@Embeddable
+@Immutable // this is a Hibernate-specific annotation, but there is no JPA alternative
+//this class has fields that would normally be declared final, but
+//cannot be for compatibility with Hibernate and JPA.
+@SuppressWarnings("PMD.ImmutableField")
+public class ComparisonAuditSample implements Serializable {
+  /**
+   * The serialVersionUID.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The ID of the CVR drawn.
+   */
+  @Column(updatable = false, nullable = false)
+  private Long my_cvr_id;
+
+  /**
+   * The round in which the CVR was drawn, counting from 1; null for samples
+   * drawn before rounds were recorded.
+   */
+  @Column(updatable = false)
+  private Integer my_round;
+
+  /**
+   * Constructs an empty sample, solely for persistence.
+   */
+  public ComparisonAuditSample() {
+    // defaults
+  }
+
+  /**
+   * Constructs a sample with the specified parameters.
+   *
+   * @param the_cvr_id The ID of the CVR drawn.
+   * @param the_round The round in which it was drawn.
+   */
+  public ComparisonAuditSample(final Long the_cvr_id, final Integer the_round) {
+    my_cvr_id = the_cvr_id;
+    my_round = the_round;
+  }
+
+  /**
+   * @return the ID of the CVR drawn.
+   */
+  public Long cvrID() {
+    return my_cvr_id;
+  }
+
+  /**
+   * @return the round in which the CVR was drawn, or null if it is not known.
+   */
+  public Integer round() {
+    return my_round;
+  }
+
+  /**
+   * @return a String representation of this sample.
+   */
+  @Override
+  public String toString() {
+    return "ComparisonAuditSample [cvr_id=" + my_cvr_id + ", round=" + my_round + "]";
+  }
+
+  /**
+   * Compare this object with another for equivalence.
+   *
+   * @param the_other The other object.
+   * @return true if the objects are equivalent, false otherwise.
+   */
+  @Override
+  public boolean equals(final Object the_other) {
+    boolean result = true;
+    if (the_other instanceof ComparisonAuditSample) {
+      final ComparisonAuditSample other_sample = (ComparisonAuditSample) the_other;
+      result &= nullableEquals(other_sample.cvrID(), cvrID());
+      result &= nullableEquals(other_sample.round(), round());
+    } else {
+      result = false;
+    }
+    return result;
+  }
+
+  /**
+   * @return a hash code for this object.
+   */
+  @Override
+  public int hashCode() {
+    return nullableHashCode(cvrID());
+  }
+}
@@ -482,9 +482,57 @@ public class CountyContestResult implements PersistentEntity, Serializable {
     for (final String s : my_vote_totals.keySet()) {
       my_vote_totals.put(s, 0);
     }
+    my_contest_ballot_count = 0;
+    my_county_ballot_count = 0;
     updateResults();
   }
   
+  /**
+   * Restores the tallies counted by an earlier, interrupted import, so that
+   * the import can continue from where it stopped.
+   *
+   * @param the_vote_totals The vote totals.
+   * @param the_contest_ballot_count The number of ballots that include
+   * this contest.
+   * @param the_county_ballot_count The number of ballots.
+   */
+  public void restoreTallies(final Map<String, Integer> the_vote_totals,
+                             final int the_contest_ballot_count,
+                             final int the_county_ballot_count) {
+    for (final String s : my_vote_totals.keySet()) {
+      my_vote_totals.put(s, the_vote_totals.getOrDefault(s, 0));
+    }
+    my_contest_ballot_count = the_contest_ballot_count;
+    my_county_ballot_count = the_county_ballot_count;
+  }
+
+  /**
+   * Adds votes and ballots counted elsewhere, such as by a CVR import that
+   * tallies them in arrays while it parses, to the vote totals.
+   *
+   * @param the_votes The votes for each choice, in the order of the
+   * contest's choices, starting at the_offset; votes for fictitious choices
+   * are ignored.
+   * @param the_offset The index in the_votes of the contest's first choice.
+   * @param the_contest_ballot_count The number of ballots that include
+   * this contest.
+   * @param the_county_ballot_count The number of ballots.
+   */
+  public void addTallies(final int[] the_votes, final int the_offset,
+                         final int the_contest_ballot_count,
+                         final int the_county_ballot_count) {
+    final List<Choice> choices = my_contest.choices();
+    for (int i = 0; i < choices.size(); i++) {
+      final Choice c = choices.get(i);
+      final int votes = the_votes[the_offset + i];
+      if (!c.fictitious() && votes > 0) {
+        my_vote_totals.put(c.name(), my_vote_totals.getOrDefault(c.name(), 0) + votes);
+      }
+    }
+    my_contest_ballot_count = my_contest_ballot_count + the_contest_ballot_count;
+    my_county_ballot_count = my_county_ballot_count + the_county_ballot_count;
+  }
+
   /**
    * Update the vote totals using the data from the specified CVR.
    * 
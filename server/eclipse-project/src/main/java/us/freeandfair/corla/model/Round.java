@@ -36,7 +36,7 @@ import org.hibernate.query.Query;
 import us.freeandfair.corla.persistence.AuditSelectionIntegerMapConverter;
 import us.freeandfair.corla.persistence.BallotSequenceAssignmentConverter;
 import us.freeandfair.corla.persistence.SignatoriesConverter;
-import us.freeandfair.corla.persistence.LongListConverter;
+import us.freeandfair.corla.persistence.PackedLongListConverter;
 import us.freeandfair.corla.persistence.Persistence;
 
 /**
@@ -63,6 +63,11 @@ public class Round implements Serializable {
    */
   private static final String TEXT = "text";
 
+  /**
+   * The "bytea" constant.
+   */
+  private static final String BYTEA = "bytea";
+
   /**
    * The round number.
    */
@@ -122,8 +127,8 @@ public class Round implements Serializable {
    * in the order they are to be presented.
    */
   @Column(nullable = false, updatable = false,
-          name = "ballot_sequence", columnDefinition = TEXT)
-  @Convert(converter = LongListConverter.class)
+          name = "ballot_sequence", columnDefinition = BYTEA)
+  @Convert(converter = PackedLongListConverter.class)
   private List<Long> my_ballot_sequence;
 
   /**
@@ -147,8 +152,8 @@ public class Round implements Serializable {
    * round, in audit sequence order.
    */
   @Column(nullable = false, updatable = false,
-          name = "audit_subsequence", columnDefinition = TEXT)
-  @Convert(converter = LongListConverter.class)
+          name = "audit_subsequence", columnDefinition = BYTEA)
+  @Convert(converter = PackedLongListConverter.class)
   private List<Long> my_audit_subsequence;
 
   /**
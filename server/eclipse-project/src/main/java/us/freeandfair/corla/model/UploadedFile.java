@@ -110,10 +110,11 @@ public class UploadedFile implements PersistentEntity {
   private Result result;
 
   /**
-   * The uploaded file. 
+   * The uploaded file, or null if it is kept in the directory store rather
+   * than in the database.
    */
   @Lob
-  @Column(updatable = false, nullable = false)
+  @Column(updatable = false)
   private Blob my_file;
   
   /**
@@ -144,7 +145,8 @@ public class UploadedFile implements PersistentEntity {
    * @param the_status The file status.
    * @param computed_hash The computed hash of the file blob.
    * @param submitted_hash The hash entered at upload time.
-   * @param the_file The file (as a Blob).
+   * @param the_file The file (as a Blob), or null if it is kept in the
+   * directory store.
    * @param the_size The file size (in bytes).
    * @param the_approximate_record_count The approximate record count.
    */
@@ -259,11 +261,21 @@ public class UploadedFile implements PersistentEntity {
   }
 
   /**
-   * @return the file, as a binary blob.
+   * @return the file, as a binary blob, or null if the file is kept in the
+   * directory store.
    */
   public Blob file() {
     return my_file;
   }
+
+  /**
+   * Sets the file blob; this has no effect once the file has been saved.
+   *
+   * @param the_file The file, as a binary blob.
+   */
+  public void setFile(final Blob the_file) {
+    my_file = the_file;
+  }
   
   /**
    * @return the file size (in bytes).
@@ -0,0 +1,65 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import us.freeandfair.corla.model.UploadedFile;
+
+/**
+ * Keeps the contents of uploaded files as blobs in the uploaded_file table.
+ * Reading a blob needs a transaction that stays open while it is read.
+ */
+public class DatabaseFileStore implements UploadedFileStore {
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Path save(final UploadedFile the_file, final File the_content)
+      throws IOException {
+    // the blob is read from the stream when the entity is flushed, so the
+    // stream must stay open until then
+    try (InputStream is = new FileInputStream(the_content)) {
+      the_file.setFile(Persistence.blobFor(is, the_content.length()));
+      Persistence.save(the_file);
+      Persistence.flush();
+    }
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean contains(final UploadedFile the_file) {
+    return the_file.file() != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InputStream open(final UploadedFile the_file) throws IOException {
+    if (the_file.file() == null) {
+      throw new FileNotFoundException("no contents for uploaded file " + the_file.id());
+    }
+    try {
+      return the_file.file().getBinaryStream();
+    } catch (final SQLException e) {
+      throw new IOException(e);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+
+import us.freeandfair.corla.model.UploadedFile;
+import us.freeandfair.corla.util.MappedFileInputStream;
+
+/**
+ * Keeps the contents of uploaded files in a directory, named by their
+ * SHA-256 hash, so a file uploaded more than once is kept once. Files are
+ * spread over subdirectories named by the first two digits of the hash.
+ * Reading needs no database connection; the contents are memory-mapped.
+ */
+public class DirectoryFileStore implements UploadedFileStore {
+  /**
+   * The form of a hash, as computed by HashChecker.
+   */
+  private static final Pattern HASH = Pattern.compile("[0-9A-F]{64}");
+
+  /**
+   * The number of hash digits used to name subdirectories.
+   */
+  private static final int PREFIX_LENGTH = 2;
+
+  /**
+   * The directory.
+   */
+  private final Path my_directory;
+
+  /**
+   * Constructs a new DirectoryFileStore.
+   *
+   * @param the_directory The directory, which is created when needed.
+   */
+  public DirectoryFileStore(final Path the_directory) {
+    my_directory = the_directory;
+  }
+
+  /**
+   * The path where the contents with the specified hash are kept.
+   *
+   * @param the_hash The hash.
+   * @return the path.
+   * @exception IllegalArgumentException if the hash is not a SHA-256 hash.
+   */
+  public Path path(final String the_hash) {
+    if (the_hash == null || !HASH.matcher(the_hash).matches()) {
+      throw new IllegalArgumentException("invalid file hash " + the_hash);
+    }
+    return my_directory.resolve(the_hash.substring(0, PREFIX_LENGTH)).resolve(the_hash);
+  }
+
+  /**
+   * @param the_hash The hash.
+   * @return true if this store has the contents with the specified hash.
+   */
+  public boolean contains(final String the_hash) {
+    return Files.isRegularFile(path(the_hash));
+  }
+
+  /**
+   * Opens the contents with the specified hash for reading.
+   *
+   * @param the_hash The hash.
+   * @return the stream.
+   * @exception IOException if there are no such contents.
+   */
+  public InputStream open(final String the_hash) throws IOException {
+    return new MappedFileInputStream(path(the_hash));
+  }
+
+  /**
+   * Moves a file into the store. If the store already has contents with the
+   * same hash, the file is deleted instead.
+   *
+   * @param the_content The file.
+   * @param the_hash The hash of the file.
+   * @return the path where the contents are kept.
+   * @exception IOException if the file cannot be moved.
+   */
+  public Path put(final Path the_content, final String the_hash) throws IOException {
+    final Path path = path(the_hash);
+    if (Files.isRegularFile(path)) {
+      Files.delete(the_content);
+      return path;
+    }
+    Files.createDirectories(path.getParent());
+    // move into a temporary name in the target directory first, so a
+    // partially copied file is never visible under its hash
+    final Path partial = Files.createTempFile(path.getParent(), the_hash, ".partial");
+    Files.move(the_content, partial, StandardCopyOption.REPLACE_EXISTING);
+    try {
+      Files.move(partial, path, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final AtomicMoveNotSupportedException e) {
+      // if another upload of the same contents got there first, replacing
+      // its file changes nothing
+      Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+    return path;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Path save(final UploadedFile the_file, final File the_content)
+      throws IOException {
+    final Path path = put(the_content.toPath(), the_file.getHash());
+    Persistence.save(the_file);
+    Persistence.flush();
+    return path;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean contains(final UploadedFile the_file) {
+    return contains(the_file.getHash());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InputStream open(final UploadedFile the_file) throws IOException {
+    return open(the_file.getHash());
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * A converter between lists of Longs and a compact binary representation of
+ * such lists, for long lists of IDs: a format byte, the number of elements,
+ * and then the difference between each element and the one before it (the
+ * first is relative to 0), all as zigzag varints, so that IDs that are
+ * close together take a byte or two each rather than a dozen characters of
+ * JSON. Columns written by LongListConverter (JSON text, converted to
+ * bytes by MigrationQueries) are read transparently, and lists containing
+ * nulls are written as JSON.
+ */
+@Converter
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class PackedLongListConverter implements AttributeConverter<List<Long>, byte[]> {
+  /**
+   * The format byte of a packed list; JSON starts with '[' or 'n'.
+   */
+  public static final byte PACKED = 1;
+
+  /**
+   * The number of payload bits in each byte of a varint.
+   */
+  private static final int VARINT_BITS = 7;
+
+  /**
+   * The payload bits of a varint byte.
+   */
+  private static final int VARINT_MASK = 0x7f;
+
+  /**
+   * The continuation bit of a varint byte.
+   */
+  private static final int VARINT_MORE = 0x80;
+
+  /**
+   * The converter for lists written as JSON.
+   */
+  private static final LongListConverter JSON = new LongListConverter();
+
+  /**
+   * Converts the specified list of Longs to a database column entry.
+   *
+   * @param the_list The list of Longs.
+   */
+  @Override
+  public byte[] convertToDatabaseColumn(final List<Long> the_list) {
+    if (the_list == null) {
+      return null;
+    }
+    if (the_list.contains(null)) {
+      return JSON.convertToDatabaseColumn(the_list).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // size the array exactly, then fill it
+    int size = 1 + varintSize(the_list.size());
+    long last = 0;
+    for (final Long l : the_list) {
+      size = size + varintSize(zigzag(l - last));
+      last = l;
+    }
+    final byte[] result = new byte[size];
+    result[0] = PACKED;
+    int position = writeVarint(result, 1, the_list.size());
+    last = 0;
+    for (final Long l : the_list) {
+      position = writeVarint(result, position, zigzag(l - last));
+      last = l;
+    }
+    return result;
+  }
+
+  /**
+   * Converts the specified database column entry to a list of Longs.
+   *
+   * @param the_column The column entry.
+   */
+  @Override
+  public List<Long> convertToEntityAttribute(final byte[] the_column) {
+    if (the_column == null) {
+      return null;
+    }
+    if (the_column.length == 0 || the_column[0] != PACKED) {
+      return JSON.convertToEntityAttribute(new String(the_column, StandardCharsets.UTF_8));
+    }
+
+    final int[] position = {1};
+    final int count = (int) readVarint(the_column, position);
+    final List<Long> result = new ArrayList<>(count);
+    long last = 0;
+    for (int i = 0; i < count; i++) {
+      final long zigzag = readVarint(the_column, position);
+      last = last + (zigzag >>> 1 ^ -(zigzag & 1));
+      result.add(last);
+    }
+    return result;
+  }
+
+  /**
+   * Maps a signed difference to an unsigned one, small in magnitude to
+   * small.
+   *
+   * @param the_value The difference.
+   * @return the zigzag encoding.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static long zigzag(final long the_value) {
+    return the_value << 1 ^ the_value >> 63;
+  }
+
+  /**
+   * @param the_value An unsigned value.
+   * @return the number of bytes of its varint.
+   */
+  private static int varintSize(final long the_value) {
+    int result = 1;
+    long rest = the_value >>> VARINT_BITS;
+    while (rest != 0) {
+      result = result + 1;
+      rest = rest >>> VARINT_BITS;
+    }
+    return result;
+  }
+
+  /**
+   * Writes a varint.
+   *
+   * @param the_bytes The array to write to.
+   * @param the_position The position to write at.
+   * @param the_value The unsigned value.
+   * @return the position after the varint.
+   */
+  private static int writeVarint(final byte[] the_bytes, final int the_position,
+                                 final long the_value) {
+    int position = the_position;
+    long rest = the_value;
+    while ((rest & ~VARINT_MASK) != 0) {
+      the_bytes[position] = (byte) (rest & VARINT_MASK | VARINT_MORE);
+      position = position + 1;
+      rest = rest >>> VARINT_BITS;
+    }
+    the_bytes[position] = (byte) rest;
+    return position + 1;
+  }
+
+  /**
+   * Reads a varint.
+   *
+   * @param the_bytes The array to read from.
+   * @param the_position The position to read at, in a one-element array;
+   * it is advanced past the varint.
+   * @return the unsigned value.
+   * @exception IllegalArgumentException if the varint is cut off.
+   */
+  private static long readVarint(final byte[] the_bytes, final int[] the_position) {
+    long result = 0;
+    int shift = 0;
+    int b;
+    do {
+      if (the_position[0] >= the_bytes.length) {
+        throw new IllegalArgumentException("truncated packed list");
+      }
+      b = the_bytes[the_position[0]];
+      the_position[0] = the_position[0] + 1;
+      result = result | (long) (b & VARINT_MASK) << shift;
+      shift = shift + VARINT_BITS;
+    } while ((b & VARINT_MORE) != 0);
+    return result;
+  }
+}
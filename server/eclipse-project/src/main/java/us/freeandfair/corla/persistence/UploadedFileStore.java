@@ -0,0 +1,51 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import us.freeandfair.corla.model.UploadedFile;
+
+/**
+ * A place where the contents of uploaded files are kept.
+ */
+public interface UploadedFileStore {
+  /**
+   * Stores the contents of a received file and saves its entity. This must
+   * be called within a transaction.
+   *
+   * @param the_file The entity, which has not yet been saved.
+   * @param the_content The received file; the store may move it.
+   * @return the path where the contents are kept, or null if they are kept
+   * in the database.
+   * @exception IOException if the contents cannot be stored.
+   */
+  Path save(UploadedFile the_file, File the_content) throws IOException;
+
+  /**
+   * @param the_file The entity.
+   * @return true if this store has the contents of the specified file.
+   */
+  boolean contains(UploadedFile the_file);
+
+  /**
+   * Opens the contents of the specified file for reading. Depending on the
+   * store, this may need to be called within a transaction, which must stay
+   * open until the stream has been read.
+   *
+   * @param the_file The entity.
+   * @return the stream.
+   * @exception IOException if the contents cannot be opened.
+   */
+  InputStream open(UploadedFile the_file) throws IOException;
+}
@@ -0,0 +1,111 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.model.UploadedFile;
+
+/**
+ * The stores for uploaded files. New uploads go to the store named by the
+ * uploaded_file_store property, "database" or "directory". Files are read
+ * from whichever store has them, so changing the property does not strand
+ * files that were uploaded before the change.
+ *
+ * The directory store lives in the "store" subdirectory of the upload
+ * archive, so archived uploads can be links to stored contents rather than
+ * separate copies.
+ */
+public final class UploadedFileStores {
+  /**
+   * The name of the property that selects the store for new uploads.
+   */
+  public static final String STORE_PROPERTY = "uploaded_file_store";
+
+  /**
+   * The value of the store property that selects the directory store.
+   */
+  public static final String DIRECTORY = "directory";
+
+  /**
+   * The name of the directory store within the upload archive.
+   */
+  private static final String STORE_DIRECTORY = "store";
+
+  /**
+   * The database store.
+   */
+  private static final DatabaseFileStore DATABASE_STORE = new DatabaseFileStore();
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private UploadedFileStores() {
+    // do nothing
+  }
+
+  /**
+   * Based on operating system, retrieves the upload archive location from
+   * the properties.
+   *
+   * @return the upload archive location.
+   */
+  public static String archiveDirectory() {
+    final Properties properties = Main.properties();
+    final String os_name = System.getProperty("os.name").toLowerCase(Locale.US);
+    final boolean is_windows = os_name.startsWith("windows");
+    final String archive_file_location;
+    if (is_windows) {
+      archive_file_location = properties.getProperty("windows_upload_file_location");
+    } else { // it's UNIX
+      archive_file_location = properties.getProperty("unix_upload_file_location");
+    }
+    return archive_file_location;
+  }
+
+  /**
+   * @return the directory store.
+   */
+  public static DirectoryFileStore directory() {
+    return new DirectoryFileStore(Paths.get(archiveDirectory(), STORE_DIRECTORY));
+  }
+
+  /**
+   * @return the store for new uploads.
+   */
+  public static UploadedFileStore forUploads() {
+    if (DIRECTORY.equalsIgnoreCase(Main.properties().getProperty(STORE_PROPERTY, "").trim())) {
+      return directory();
+    }
+    return DATABASE_STORE;
+  }
+
+  /**
+   * Opens the contents of an uploaded file, from the directory store if it
+   * has them and otherwise from the database. Reading from the database
+   * needs a transaction that stays open until the stream has been read.
+   *
+   * @param the_file The file.
+   * @return the stream.
+   * @exception IOException if the contents cannot be opened.
+   */
+  public static InputStream open(final UploadedFile the_file) throws IOException {
+    final DirectoryFileStore directory = directory();
+    if (directory.contains(the_file)) {
+      return directory.open(the_file);
+    }
+    return DATABASE_STORE.open(the_file);
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * A converter between lists of vote totals (maps from choice names to
+ * integers) and JSON representations of those lists, for database efficiency.
+ */
+@Converter
+public class VoteTotalsListConverter
+  implements AttributeConverter<List<Map<String, Integer>>, String> {
+
+  /**
+   * The type information for a list of vote totals.
+   */
+  private static final Type VOTE_TOTALS_LIST =
+    new TypeToken<List<Map<String, Integer>>>() { }.getType();
+
+  /**
+   * Our Gson instance, which does not do pretty-printing (unlike the global
+   * one defined in Main).
+   */
+  private static final Gson GSON =
+    new GsonBuilder().serializeNulls().disableHtmlEscaping().create();
+
+  /**
+   * Converts the specified list of vote totals to a database column entry.
+   *
+   * @param the_list The list of vote totals.
+   */
+  @Override
+  public String convertToDatabaseColumn(final List<Map<String, Integer>> the_list) {
+    return GSON.toJson(the_list);
+  }
+
+  /**
+   * Converts the specified database column entry to a list of vote totals.
+   *
+   * @param the_column The column entry.
+   */
+  @Override
+  public List<Map<String, Integer>> convertToEntityAttribute(final String the_column) {
+    return GSON.fromJson(the_column, VOTE_TOTALS_LIST);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import us.freeandfair.corla.model.CVRAuditInfo;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Queries having to do with CVRAuditInfo entities.
+ */
+public final class CVRAuditInfoQueries {
+  /**
+   * The most IDs to bind in one "in" list; PostgreSQL allows at most 32767
+   * parameters in a statement.
+   */
+  public static final int MAX_IDS_PER_QUERY = 10000;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private CVRAuditInfoQueries() {
+    // do nothing
+  }
+
+  /**
+   * Split a collection of IDs into distinct chunks small enough for an "in"
+   * list.
+   *
+   * @param the_ids The IDs; may contain duplicates.
+   * @return the chunks.
+   */
+  public static List<List<Long>> chunks(final Collection<Long> the_ids) {
+    final List<List<Long>> result = new ArrayList<>();
+    List<Long> chunk = new ArrayList<>();
+    for (final Long id : new LinkedHashSet<>(the_ids)) {
+      if (chunk.size() == MAX_IDS_PER_QUERY) {
+        result.add(chunk);
+        chunk = new ArrayList<>();
+      }
+      chunk.add(id);
+    }
+    if (!chunk.isEmpty()) {
+      result.add(chunk);
+    }
+    return result;
+  }
+
+  /**
+   * Find which of the specified CVRs have been audited, that is, have a
+   * CVRAuditInfo with a submitted audit CVR. This takes one query per
+   * MAX_IDS_PER_QUERY distinct IDs.
+   *
+   * @param the_cvr_ids The CVR IDs (which are also the CVRAuditInfo IDs).
+   * @return the IDs of the audited CVRs.
+   */
+  public static Set<Long> auditedIDs(final Collection<Long> the_cvr_ids) {
+    final Set<Long> result = new HashSet<>();
+    final Session s = Persistence.currentSession();
+    for (final List<Long> chunk : chunks(the_cvr_ids)) {
+      final Query<Long> q =
+          s.createQuery("select i.my_id from CVRAuditInfo i " +
+                        " where i.my_id in (:ids) and i.my_acvr is not null",
+                        Long.class);
+      q.setParameter("ids", chunk);
+      result.addAll(q.getResultList());
+    }
+    return result;
+  }
+
+  /**
+   * Obtain the CVRAuditInfo objects with the specified IDs, with their CVRs
+   * and audit CVRs, and the contest information of both, loaded into the
+   * session. This takes two queries per MAX_IDS_PER_QUERY distinct IDs: one
+   * for the CVRs and audit CVRs with their contest information, and one for
+   * the CVRAuditInfo objects, which finds those CVRs already in the session.
+   * The CVRs themselves are loaded even if there is no CVRAuditInfo for
+   * them, so creating one does not need another query.
+   *
+   * @param the_cvr_ids The CVR IDs (which are also the CVRAuditInfo IDs).
+   * @return a map from ID to CVRAuditInfo; IDs without a CVRAuditInfo have
+   * no entry.
+   */
+  public static Map<Long, CVRAuditInfo> byIds(final Collection<Long> the_cvr_ids) {
+    final Map<Long, CVRAuditInfo> result = new HashMap<>();
+    final Session s = Persistence.currentSession();
+    for (final List<Long> chunk : chunks(the_cvr_ids)) {
+      // the results are only needed in the session; there is one per
+      // contest of each record, and a record without a CVRAuditInfo
+      // still has to be loaded
+      final Query<CastVoteRecord> records =
+          s.createQuery("select c from CastVoteRecord c " +
+                        " left join fetch c.my_contest_info " +
+                        " where c.my_id in (:ids) " +
+                        "    or c.my_id in (select i.my_acvr.my_id from CVRAuditInfo i " +
+                        "                    where i.my_id in (:ids))",
+                        CastVoteRecord.class);
+      records.setParameter("ids", chunk);
+      records.getResultList();
+
+      final Query<CVRAuditInfo> q =
+          s.createQuery("select i from CVRAuditInfo i " +
+                        " join fetch i.my_cvr " +
+                        " left join fetch i.my_acvr " +
+                        " where i.my_id in (:ids)",
+                        CVRAuditInfo.class);
+      q.setParameter("ids", chunk);
+      for (final CVRAuditInfo info : q.getResultList()) {
+        result.put(info.id(), info);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.query;
+
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import us.freeandfair.corla.model.CVRImportCheckpoint;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Queries having to do with CVRImportCheckpoint entities.
+ */
+public final class CVRImportCheckpointQueries {
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private CVRImportCheckpointQueries() {
+    // do nothing
+  }
+
+  /**
+   * Obtain the checkpoint of the specified county's import, if there is one.
+   *
+   * @param the_county_id The county ID.
+   * @return the checkpoint, or null if there is none.
+   */
+  public static CVRImportCheckpoint forCounty(final Long the_county_id) {
+    final Session s = Persistence.currentSession();
+    final Query<CVRImportCheckpoint> q =
+        s.createQuery("select c from CVRImportCheckpoint c " +
+                      " where c.my_county_id = :county_id",
+                      CVRImportCheckpoint.class);
+    q.setParameter("county_id", the_county_id);
+    final List<CVRImportCheckpoint> result = q.getResultList();
+    if (result.isEmpty()) {
+      return null;
+    }
+    return result.get(0);
+  }
+
+  /**
+   * Deletes the checkpoint of the specified county's import, if there is one.
+   *
+   * @param the_county_id The county ID.
+   * @return the number of checkpoints deleted.
+   */
+  public static int deleteForCounty(final Long the_county_id) {
+    final Session s = Persistence.currentSession();
+    final Query q =
+        s.createNativeQuery("delete from cvr_import_checkpoint where county_id = :county_id");
+    q.setParameter("county_id", the_county_id);
+    return q.executeUpdate();
+  }
+}
@@ -12,7 +12,6 @@
 package us.freeandfair.corla.query;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -70,6 +69,12 @@ public final class CastVoteRecordQueries {
   private static final String COULD_NOT_QUERY_DATABASE =
       "could not query database for CVRs";
 
+  /**
+   * The number of tributes at which atPosition finds CVRs by joining a
+   * temporary table rather than with an "in" list.
+   */
+  private static final int TEMP_TABLE_THRESHOLD = 1000;
+
   /**
    * Private constructor to prevent instantiation.
    */
@@ -419,7 +424,13 @@ public final class CastVoteRecordQueries {
                       tribute.ballotPosition);
   }
 
-  /** select cast_vote_record where uri in :uris **/
+  /**
+   * Find the CVRs at the positions of some tributes, creating phantom
+   * records for positions with no CVR.
+   *
+   * @param tributes the tributes, in random sequence order
+   * @return a CVR for each tribute, in the same order
+   */
   public static List<CastVoteRecord> atPosition(final List<Tribute> tributes) {
 
     if (tributes.isEmpty()) {
@@ -431,6 +442,34 @@ public final class CastVoteRecordQueries {
       .map(t -> t.getUri())
       .collect(Collectors.toList());
 
+    final List<CastVoteRecord> results;
+    if (uris.size() < TEMP_TABLE_THRESHOLD) {
+      results = withUris(uris);
+    } else {
+      results = withUrisByJoin(uris);
+    }
+
+    final Map<String, CastVoteRecord> byUri = new HashMap<>();
+    for (final CastVoteRecord cvr: results) {
+      byUri.putIfAbsent(cvr.getUri(), cvr);
+    }
+
+    // line the cvrs back up into the random order; a position without a CVR
+    // gets one phantom record, however many times it was selected
+    final List<CastVoteRecord> randomOrder = new ArrayList<>(uris.size());
+    for (int i = 0; i < uris.size(); i++) {
+      CastVoteRecord cvr = byUri.get(uris.get(i));
+      if (cvr == null) {
+        cvr = Persistence.persist(phantomRecord(tributes.get(i)));
+        byUri.put(uris.get(i), cvr);
+      }
+      randomOrder.add(cvr);
+    }
+    return randomOrder;
+  }
+
+  /** select cast_vote_record where uri in :uris **/
+  private static List<CastVoteRecord> withUris(final List<String> uris) {
     final Session s = Persistence.currentSession();
     final Query q =
       s.createQuery("select cvr from CastVoteRecord cvr " +
@@ -438,47 +477,36 @@ public final class CastVoteRecordQueries {
 
     q.setParameter("uris", uris);
 
-    final List<CastVoteRecord> results = q.getResultList();
-
-    final Set<String> foundUris = results.stream()
-      .map(cvr -> (String)cvr.getUri())
-      .collect(Collectors.toSet());
-
-    final Set<CastVoteRecord> phantomRecords = tributes.stream()
-      .filter(distinctByKey((Tribute t) -> {return t.getUri();}))
-      // is it faster to let the db do this with an except query?
-      .filter(t -> !foundUris.contains(t.getUri()))
-      .map(t -> phantomRecord(t))
-      .map(Persistence::persist)
-      .collect(Collectors.toSet());
-
-    results.addAll(phantomRecords);
-
-    // this is a dummy list so we can add a cvr at a particular position(that of
-    // the tributes uris)
-    final List<CastVoteRecord> randomOrder =
-      new ArrayList<CastVoteRecord>(Collections.nCopies(uris.size(), null));
+    return q.getResultList();
+  }
 
-    // line the cvrs back up into the random order
-    for (final CastVoteRecord cvr: results) {
-      int index = 0;
-      for (final String uri: uris) {
-        if (uri.equals(cvr.getUri())) {
-          randomOrder.add(index, cvr);
-        }
-        index++;
-      }
-    }
+  /**
+   * The CVRs with some URIs, found by copying the URIs into a temporary
+   * table and joining it with the CVRs on their URI index; unlike an "in"
+   * list, this has no limit on the number of URIs and a plan that does not
+   * grow with them. The table is dropped when the transaction ends.
+   *
+   * @param uris the URIs, possibly with duplicates
+   * @return the CVRs
+   */
+  private static List<CastVoteRecord> withUrisByJoin(final List<String> uris) {
+    final Session s = Persistence.currentSession();
+    s.createNativeQuery("create temporary table if not exists tribute_uri " +
+                        " (uri varchar(255) not null) on commit drop").executeUpdate();
+    s.createNativeQuery("truncate tribute_uri").executeUpdate();
 
-    final List<CastVoteRecord> returnList = randomOrder.stream()
-      .filter(cvr -> null != cvr)
-      .collect(Collectors.toList());
-    if (returnList.size() != uris.size()) {
-      // we got a problem here
-      Main.LOGGER.error("something went wrong with atPosition - returnList.size() != uris.size()");
+    final StringBuilder csv = new StringBuilder();
+    for (final String uri: new HashSet<>(uris)) {
+      csv.append('"').append(uri.replace("\"", "\"\"")).append("\"\n");
     }
+    ImportQueries.csvIn("tribute_uri (uri)", csv.toString());
+    s.createNativeQuery("analyze tribute_uri").executeUpdate();
 
-    return returnList;
+    final Query<CastVoteRecord> q =
+      s.createNativeQuery("select cvr.* from cast_vote_record cvr " +
+                          " join tribute_uri t on cvr.uri = t.uri",
+                          CastVoteRecord.class);
+    return q.getResultList();
   }
 
   /**
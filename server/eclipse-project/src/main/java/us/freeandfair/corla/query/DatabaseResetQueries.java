@@ -60,6 +60,7 @@ public final class DatabaseResetQueries {
         "contest_vote_total",
         "contest_comparison_audit_discrepancy",
         "contest_comparison_audit_disagreement",
+        "comparison_audit_sample",
         "comparison_audit",
         "county_contest_comparison_audit_discrepancy",
         "county_contest_comparison_audit_disagreement",
@@ -70,6 +71,7 @@ public final class DatabaseResetQueries {
         "contest",
         "contest_result",
         "cvr_audit_info",
+        "cvr_import_checkpoint",
         "cast_vote_record",
         "dos_dashboard",
         "round",
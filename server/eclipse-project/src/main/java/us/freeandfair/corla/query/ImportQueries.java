@@ -0,0 +1,119 @@
+package us.freeandfair.corla.query;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.hibernate.query.Query;
+
+import us.freeandfair.corla.persistence.Persistence;
+
+/** import queries **/
+public final class ImportQueries {
+
+  /**
+   * Class-wide logger
+   */
+  public static final Logger LOGGER =
+    LogManager.getLogger(ImportQueries.class);
+
+  /**
+   * The sequence Hibernate uses for our generated IDs.
+   */
+  private static final String ID_SEQUENCE = "hibernate_sequence";
+
+  /** to use the hibernate jdbc connection  **/
+  public static class CopyInWork implements Work {
+
+    /** the table, and optionally the column list, to copy into **/
+    private final String table;
+
+    /** where to read the csv data from **/
+    private final Reader reader;
+
+    /** the number of rows copied **/
+    private long rowCount;
+
+    /** instantiation **/
+    public CopyInWork(final String table,
+                      final Reader reader) {
+
+      this.table = table;
+      this.reader = reader;
+    }
+
+    /** do the work **/
+    @SuppressWarnings("PMD.PreserveStackTrace")
+    public void execute(final Connection conn)
+      throws java.sql.SQLException {
+      try {
+        final CopyManager cm = new CopyManager(conn.unwrap(BaseConnection.class));
+        final String q = String.format("COPY %s FROM STDIN WITH CSV", this.table);
+        this.rowCount = cm.copyIn(q, this.reader);
+      } catch (java.io.IOException e) {
+        throw new java.sql.SQLException(e.getMessage());
+      }
+    }
+
+    /** the number of rows copied **/
+    public long rowCount() {
+      return this.rowCount;
+    }
+  }
+
+  /** no instantiation **/
+  private ImportQueries(){};
+
+  /**
+   * copy the csv rows into the given table on the current session's
+   * connection, so they are part of the running transaction
+   *
+   * @param table the table name, optionally followed by a column list
+   * @param csv the rows, in postgres CSV format
+   * @return the number of rows copied
+   **/
+  public static long csvIn(final String table, final String csv) {
+    final Session s = Persistence.currentSession();
+    final CopyInWork work = new CopyInWork(table, new StringReader(csv));
+    s.doWork(work);
+    LOGGER.debug(String.format("[csvIn: table=%s, rows=%d]", table, work.rowCount()));
+    return work.rowCount();
+  }
+
+  /**
+   * reserve a block of ids from the sequence Hibernate uses, in one
+   * round-trip, for rows that are written without going through Hibernate
+   *
+   * @param count how many ids to reserve
+   * @return the reserved ids, in ascending order
+   **/
+  public static long[] reserveIds(final int count) {
+    final long[] ids = new long[count];
+    if (count == 0) {
+      return ids;
+    }
+
+    final Session s = Persistence.currentSession();
+    final Query q =
+      s.createNativeQuery(String.format("select nextval('%s') from generate_series(1, :count)",
+                                        ID_SEQUENCE));
+    q.setParameter("count", count);
+
+    final List<Number> results = q.getResultList();
+    for (int i = 0; i < count; i++) {
+      ids[i] = results.get(i).longValue();
+    }
+    Arrays.sort(ids);
+    return ids;
+  }
+}
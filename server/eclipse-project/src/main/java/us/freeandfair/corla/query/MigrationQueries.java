@@ -0,0 +1,183 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.query;
+
+import java.sql.Statement;
+import java.util.List;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Schema changes that automatic schema generation does not make, applied
+ * when the server starts.
+ */
+public final class MigrationQueries {
+  /**
+   * Class-wide logger
+   */
+  public static final Logger LOGGER = LogManager.getLogger(MigrationQueries.class);
+
+  /**
+   * The columns written by PackedLongListConverter, as table and column
+   * name pairs; they were JSON text written by LongListConverter.
+   */
+  private static final String[][] PACKED_LONG_LIST_COLUMNS = {
+    {"round", "ballot_sequence"},
+    {"round", "audit_subsequence"},
+  };
+
+  /**
+   * A database function that unpacks a column written by
+   * PackedLongListConverter to the JSON that LongListConverter wrote, so
+   * that SQL exports keep producing JSON lists; legacy JSON bytes are
+   * returned as they are.
+   */
+  private static final String UNPACK_LONG_LIST =
+      "create or replace function unpack_long_list(packed bytea) returns text as $$ " +
+      "declare " +
+      "  pos integer := 1; " +
+      "  shift integer := 0; " +
+      "  b integer; " +
+      "  v bigint := 0; " +
+      "  counted boolean := false; " +
+      "  last bigint := 0; " +
+      "  ids text[] := '{}'; " +
+      "begin " +
+      "  if packed is null then return null; end if; " +
+      "  if length(packed) = 0 or get_byte(packed, 0) <> 1 then " +
+      "    return convert_from(packed, 'UTF8'); " +
+      "  end if; " +
+      "  while pos < length(packed) loop " +
+      "    b := get_byte(packed, pos); " +
+      "    pos := pos + 1; " +
+      "    v := v | ((b & 127)::bigint << shift); " +
+      "    shift := shift + 7; " +
+      "    if b < 128 then " +
+      "      if counted then " +
+      "        last := last + (((v >> 1) & 9223372036854775807) # -(v & 1)); " +
+      "        ids := ids || last::text; " +
+      "      end if; " +
+      "      counted := true; " +
+      "      v := 0; " +
+      "      shift := 0; " +
+      "    end if; " +
+      "  end loop; " +
+      "  return '[' || array_to_string(ids, ',') || ']'; " +
+      "end $$ language plpgsql immutable";
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private MigrationQueries() {
+    // do nothing
+  }
+
+  /**
+   * Makes the file column of uploaded_file nullable, if it is not, since
+   * the contents of files kept in the directory store are not in the
+   * database; automatic schema generation does not relax existing
+   * constraints.
+   *
+   * @return true if the column was changed.
+   */
+  public static boolean allowUploadedFilesOutsideDatabase() {
+    final Session s = Persistence.currentSession();
+    final Query q =
+        s.createNativeQuery("select is_nullable from information_schema.columns " +
+                            " where table_name = 'uploaded_file' and column_name = 'file'");
+    final List<?> nullable = q.getResultList();
+    if (nullable.isEmpty() || !"NO".equals(nullable.get(0))) {
+      return false;
+    }
+    s.createNativeQuery("alter table uploaded_file alter column file drop not null")
+        .executeUpdate();
+    LOGGER.info("[allowUploadedFilesOutsideDatabase: uploaded_file.file made nullable]");
+    return true;
+  }
+
+  /**
+   * Changes the type of the packed long list columns from text to bytea,
+   * if they still are text, and creates the unpack_long_list function for
+   * reading them from SQL. Existing values become the UTF-8 bytes of their
+   * JSON, which PackedLongListConverter reads transparently.
+   *
+   * @return the number of columns changed.
+   */
+  public static int packLongListColumns() {
+    final Session s = Persistence.currentSession();
+    // plain JDBC, because the query parser would take the function's
+    // assignments and casts for named parameters
+    s.doWork(connection -> {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute(UNPACK_LONG_LIST);
+      }
+    });
+    int result = 0;
+    for (final String[] column : PACKED_LONG_LIST_COLUMNS) {
+      final Query q =
+          s.createNativeQuery("select data_type from information_schema.columns " +
+                              " where table_name = :table and column_name = :column");
+      q.setParameter("table", column[0]);
+      q.setParameter("column", column[1]);
+      final List<?> types = q.getResultList();
+      if (!types.isEmpty() && "text".equals(types.get(0))) {
+        s.createNativeQuery(String.format("alter table %1$s alter column %2$s type bytea " +
+                                          "using convert_to(%2$s, 'UTF8')",
+                                          column[0], column[1]))
+            .executeUpdate();
+        LOGGER.info(String.format("[packLongListColumns: %s.%s changed to bytea]",
+                                  column[0], column[1]));
+        result = result + 1;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Moves the contest CVR IDs of each comparison audit from its
+   * contest_cvr_ids column, the JSON list written by LongListConverter, to
+   * rows of the comparison_audit_sample table, and then drops the column,
+   * if it still exists. The round each was drawn in is not known, so it is
+   * left null.
+   *
+   * @return the number of samples moved.
+   */
+  public static int moveContestCVRIds() {
+    final Session s = Persistence.currentSession();
+    final Query q =
+        s.createNativeQuery("select count(*) from information_schema.columns " +
+                            " where table_name = 'comparison_audit' " +
+                            "   and column_name = 'contest_cvr_ids'");
+    if (((Number) q.getSingleResult()).intValue() == 0) {
+      return 0;
+    }
+    final int result =
+        s.createNativeQuery("insert into comparison_audit_sample (audit_id, seq_index, cvr_id) " +
+                            "select ca.id, s.n - 1, cast(s.cvr_id as bigint) " +
+                            "  from (select a.id, a.contest_cvr_ids from comparison_audit a " +
+                            "         where a.contest_cvr_ids is not null " +
+                            "           and a.contest_cvr_ids <> '' " +
+                            "           and not exists (select 1 from comparison_audit_sample cas " +
+                            "                            where cas.audit_id = a.id)) ca, " +
+                            "       json_array_elements_text(cast(ca.contest_cvr_ids as json)) " +
+                            "         with ordinality as s(cvr_id, n)")
+        .executeUpdate();
+    s.createNativeQuery("alter table comparison_audit drop column contest_cvr_ids")
+        .executeUpdate();
+    LOGGER.info(String.format("[moveContestCVRIds: %d samples moved to comparison_audit_sample]",
+                              result));
+    return result;
+  }
+}
@@ -24,7 +24,6 @@ import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 import us.freeandfair.corla.controller.ContestCounter;
-import us.freeandfair.corla.math.Audit;
 import us.freeandfair.corla.model.CastVoteRecord;
 import us.freeandfair.corla.model.CVRAuditInfo;
 import us.freeandfair.corla.model.CVRContestInfo;
@@ -332,20 +331,7 @@ public class ReportRows {
 
   /** risk limit achieved according to math.Audit **/
   public static BigDecimal riskMeasurement(final ComparisonAudit ca) {
-    if (ca.getAuditedSampleCount() > 0
-        && ca.getDilutedMargin().compareTo(BigDecimal.ZERO) > 0) {
-      final BigDecimal result =  Audit.pValueApproximation(ca.getAuditedSampleCount(),
-                                                           ca.getDilutedMargin(),
-                                                           ca.getGamma(),
-                                                           ca.discrepancyCount(-1),
-                                                           ca.discrepancyCount(-2),
-                                                           ca.discrepancyCount(1),
-                                                           ca.discrepancyCount(2));
-      return result.setScale(3, BigDecimal.ROUND_HALF_UP);
-    } else {
-      // full risk (100%) when nothing is known
-      return BigDecimal.ONE;
-    }
+    return ca.riskMeasurement();
   }
 
   /** compare risk sought vs measured **/
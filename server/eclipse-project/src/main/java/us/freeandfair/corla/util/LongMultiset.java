@@ -0,0 +1,171 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.util;
+
+import java.util.Collection;
+
+/**
+ * A multiset of longs, counting how many times each has been added, in an
+ * open-addressed table of primitives (linear probing); adding and counting
+ * take constant time and do not box. Longs can only be added. Used as a
+ * set, an add that returns 1 is the first of its long.
+ */
+public final class LongMultiset {
+  /**
+   * The initial capacity of the table; a power of 2.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * The multiplier for spreading hash codes (the golden ratio, as in
+   * Fibonacci hashing).
+   */
+  private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+  /**
+   * The keys of the table.
+   */
+  private long[] my_keys;
+
+  /**
+   * The count of each key of the table; 0 for a free slot.
+   */
+  private int[] my_counts;
+
+  /**
+   * The number of distinct longs in the multiset.
+   */
+  private int my_distinct;
+
+  /**
+   * The number of longs in the multiset, counting repeats.
+   */
+  private int my_size;
+
+  /**
+   * Constructs an empty multiset.
+   */
+  public LongMultiset() {
+    my_keys = new long[INITIAL_CAPACITY];
+    my_counts = new int[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Constructs a multiset of the specified longs.
+   *
+   * @param the_longs The longs; nulls are ignored.
+   */
+  public LongMultiset(final Collection<Long> the_longs) {
+    this();
+    addAll(the_longs);
+  }
+
+  /**
+   * Adds a long.
+   *
+   * @param the_key The long.
+   * @return the number of times it is in the multiset now.
+   */
+  public int add(final long the_key) {
+    int slot = slot(my_keys, my_counts, the_key);
+    if (my_counts[slot] == 0) {
+      // keep the table at most half full
+      if (2 * (my_distinct + 1) > my_keys.length) {
+        grow();
+        slot = slot(my_keys, my_counts, the_key);
+      }
+      my_keys[slot] = the_key;
+      my_distinct = my_distinct + 1;
+    }
+    my_counts[slot] = my_counts[slot] + 1;
+    my_size = my_size + 1;
+    return my_counts[slot];
+  }
+
+  /**
+   * Adds longs.
+   *
+   * @param the_longs The longs; nulls are ignored.
+   */
+  public void addAll(final Collection<Long> the_longs) {
+    for (final Long l : the_longs) {
+      if (l != null) {
+        add(l);
+      }
+    }
+  }
+
+  /**
+   * @param the_key A long.
+   * @return the number of times it is in the multiset.
+   */
+  public int count(final long the_key) {
+    return my_counts[slot(my_keys, my_counts, the_key)];
+  }
+
+  /**
+   * @param the_key A long.
+   * @return true if it is in the multiset.
+   */
+  public boolean contains(final long the_key) {
+    return count(the_key) > 0;
+  }
+
+  /**
+   * @return the number of longs in the multiset, counting repeats.
+   */
+  public int size() {
+    return my_size;
+  }
+
+  /**
+   * @return the number of distinct longs in the multiset.
+   */
+  public int distinct() {
+    return my_distinct;
+  }
+
+  /**
+   * Doubles the table, rehashing its contents.
+   */
+  private void grow() {
+    final long[] keys = new long[my_keys.length * 2];
+    final int[] counts = new int[my_counts.length * 2];
+    for (int i = 0; i < my_keys.length; i++) {
+      if (my_counts[i] > 0) {
+        final int slot = slot(keys, counts, my_keys[i]);
+        keys[slot] = my_keys[i];
+        counts[slot] = my_counts[i];
+      }
+    }
+    my_keys = keys;
+    my_counts = counts;
+  }
+
+  /**
+   * Finds the slot of a table that holds a long, or the free slot where
+   * it belongs.
+   *
+   * @param the_keys The keys; the length is a power of 2.
+   * @param the_counts The count of each key; 0 for a free slot.
+   * @param the_key The long.
+   * @return the slot.
+   */
+  private static int slot(final long[] the_keys, final int[] the_counts,
+                          final long the_key) {
+    final int mask = the_keys.length - 1;
+    final long hash = the_key * SPREAD;
+    int result = (int) (hash ^ hash >>> 32) & mask;
+    while (the_counts[result] > 0 && the_keys[result] != the_key) {
+      result = (result + 1) & mask;
+    }
+    return result;
+  }
+}
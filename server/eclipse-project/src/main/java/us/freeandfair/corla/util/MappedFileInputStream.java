@@ -0,0 +1,155 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An input stream that reads a file through memory-mapped windows, so the
+ * operating system pages the file in directly instead of copying it through
+ * read buffers.
+ */
+public class MappedFileInputStream extends InputStream {
+  /**
+   * The default size of the mapped windows, in bytes.
+   */
+  private static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024; // 256 MB
+
+  /**
+   * The channel.
+   */
+  private final FileChannel my_channel;
+
+  /**
+   * The size of the file.
+   */
+  private final long my_size;
+
+  /**
+   * The size of the mapped windows.
+   */
+  private final long my_window_size;
+
+  /**
+   * The position in the file of the start of the current window.
+   */
+  private long my_window_start;
+
+  /**
+   * The current window.
+   */
+  private MappedByteBuffer my_window;
+
+  /**
+   * Constructs a new MappedFileInputStream.
+   *
+   * @param the_path The file.
+   * @exception IOException if the file cannot be opened.
+   */
+  public MappedFileInputStream(final Path the_path) throws IOException {
+    this(the_path, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Constructs a new MappedFileInputStream with the specified window size.
+   *
+   * @param the_path The file.
+   * @param the_window_size The window size, in bytes.
+   * @exception IOException if the file cannot be opened.
+   */
+  MappedFileInputStream(final Path the_path, final long the_window_size)
+      throws IOException {
+    super();
+    my_channel = FileChannel.open(the_path, StandardOpenOption.READ);
+    my_size = my_channel.size();
+    my_window_size = the_window_size;
+    my_window = map(0);
+  }
+
+  /**
+   * Maps the window starting at the specified position.
+   *
+   * @param the_start The position.
+   * @return the window.
+   * @exception IOException if the window cannot be mapped.
+   */
+  private MappedByteBuffer map(final long the_start) throws IOException {
+    my_window_start = the_start;
+    return my_channel.map(FileChannel.MapMode.READ_ONLY, the_start,
+                          Math.min(my_window_size, my_size - the_start));
+  }
+
+  /**
+   * Moves to the next window if the current one has been read.
+   *
+   * @return true if there are bytes left to read.
+   * @exception IOException if the next window cannot be mapped.
+   */
+  private boolean fill() throws IOException {
+    if (!my_window.hasRemaining()) {
+      final long next = my_window_start + my_window.capacity();
+      if (next >= my_size) {
+        return false;
+      }
+      my_window = map(next);
+    }
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+    return my_window.get() & 0xFF;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read(final byte[] the_bytes, final int the_offset, final int the_length)
+      throws IOException {
+    if (the_length == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return -1;
+    }
+    final int length = Math.min(the_length, my_window.remaining());
+    my_window.get(the_bytes, the_offset, length);
+    return length;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int available() {
+    return (int) Math.min(Integer.MAX_VALUE,
+                          my_size - my_window_start - my_window.position());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    my_channel.close();
+  }
+}
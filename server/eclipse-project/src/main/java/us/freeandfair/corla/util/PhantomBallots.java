@@ -8,6 +8,7 @@ import java.time.Instant;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import java.util.stream.Collectors;
@@ -22,6 +23,7 @@ import us.freeandfair.corla.model.CountyDashboard;
 
 import us.freeandfair.corla.persistence.Persistence;
 
+import us.freeandfair.corla.query.CVRAuditInfoQueries;
 import us.freeandfair.corla.query.ContestQueries;
 
 /**
@@ -35,15 +37,31 @@ public final class PhantomBallots {
   }
 
   /**
-   * Audit phantom records as if by an audit board.
+   * Audit phantom records as if by an audit board. The audit info of the
+   * phantom records, and the contests of the county, are loaded once for
+   * all of them.
    */
   public static List<CastVoteRecord> auditPhantomRecords(
       final CountyDashboard cdb,
       final List<CastVoteRecord> cvrs) {
+    final List<Long> phantomIds = cvrs.stream()
+        .filter(PhantomBallots::isPhantomRecord)
+        .map(CastVoteRecord::id)
+        .collect(Collectors.toList());
+    if (phantomIds.isEmpty()) {
+      return cvrs;
+    }
+
+    final Map<Long, CVRAuditInfo> cvrAuditInfos = CVRAuditInfoQueries.byIds(phantomIds);
+    // we need to create a discrepancy for every contest that COULD have
+    // appeared on the ballot, which we take to mean all the contests that occur
+    // in the county
+    final Set<Contest> contests = ContestQueries.forCounty(cdb.county());
+
     return cvrs.stream()
         .map(cvr -> {
             return isPhantomRecord(cvr)
-                ? auditPhantomRecord(cdb, cvr)
+                ? auditPhantomRecord(cdb, cvr, cvrAuditInfos.get(cvr.id()), contests)
                 : cvr;
         })
         .collect(Collectors.toList());
@@ -68,22 +86,23 @@ public final class PhantomBallots {
 
   /**
    * Audit a phantom record as if by an audit board.
+   *
+   * @param cdb The dashboard.
+   * @param cvr The phantom record.
+   * @param existingAuditInfo Its audit info, or null if it has none yet.
+   * @param contests The contests of the county.
    */
   private static CastVoteRecord auditPhantomRecord(final CountyDashboard cdb,
-                                                   final CastVoteRecord cvr) {
-    CVRAuditInfo cvrAuditInfo =
-        Persistence.getByID(cvr.id(), CVRAuditInfo.class);
+                                                   final CastVoteRecord cvr,
+                                                   final CVRAuditInfo existingAuditInfo,
+                                                   final Set<Contest> contests) {
+    CVRAuditInfo cvrAuditInfo = existingAuditInfo;
 
     if (null != cvrAuditInfo && null != cvrAuditInfo.acvr()) {
       // CVR has already been audited.
       return cvr;
     }
 
-    // we need to create a discrepancy for every contest that COULD have
-    // appeared on the ballot, which we take to mean all the contests that occur
-    // in the county
-    final Set<Contest> contests = ContestQueries.forCounty(cdb.county());
-
     final List<CVRContestInfo> phantomContestInfos = contests.stream()
         .map(c -> {
             return new CVRContestInfo(c,
@@ -7,7 +7,9 @@
 SELECT
    cr.min_margin,
    cr.contest_name,
-   ca.contest_cvr_ids
+   (SELECT '[' || string_agg(cas.cvr_id::text, ',' ORDER BY cas.seq_index) || ']'
+      FROM comparison_audit_sample AS cas
+      WHERE cas.audit_id = ca.id) AS contest_cvr_ids
 FROM
    comparison_audit AS ca
 LEFT JOIN
@@ -0,0 +1,120 @@
+package us.freeandfair.corla.controllers;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.annotations.*;
+
+import us.freeandfair.corla.controller.AuditSimulator;
+import us.freeandfair.corla.math.Audit;
+import us.freeandfair.corla.model.AuditReason;
+import us.freeandfair.corla.model.BallotManifestInfo;
+import us.freeandfair.corla.model.ContestResult;
+
+import static org.testng.Assert.*;
+
+public class AuditSimulatorTest {
+
+  private final BigDecimal riskLimit = BigDecimal.valueOf(0.05);
+
+  private ForkJoinPool pool;
+
+  @BeforeClass
+  public void startPool() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @AfterClass
+  public void stopPool() {
+    pool.shutdown();
+  }
+
+  private BallotManifestInfo bmi(final long countyId, final String batchId,
+                                 final long start, final long end) {
+    return new BallotManifestInfo(countyId, 1, batchId, (int) (end - start + 1),
+                                  "bin", start, end);
+  }
+
+  private AuditSimulator.Target target(final String name, final double margin) {
+    final ContestResult cr = new ContestResult(name);
+    cr.setDilutedMargin(BigDecimal.valueOf(margin));
+    cr.setAuditReason(AuditReason.STATE_WIDE_CONTEST);
+    final Set<BallotManifestInfo> bmis = new TreeSet<>(new BallotManifestInfo.Sort());
+    bmis.add(bmi(1L, "1", 1L, 4000L));
+    bmis.add(bmi(1L, "2", 4001L, 6000L));
+    bmis.add(bmi(2L, "1", 1L, 4000L));
+    return new AuditSimulator.Target(cr, bmis);
+  }
+
+  @Test()
+  public void withoutDiscrepanciesOneRoundSuffices() {
+    final AuditSimulator.Target target = target("Governor", 0.05);
+    final AuditSimulator simulator =
+        new AuditSimulator(Collections.singletonList(target), riskLimit,
+                           new AuditSimulator.Rates(0, 0, 0, 0));
+    final AuditSimulator.Result result = simulator.simulate(50, 7L, pool);
+    final int sampleSize = Audit.optimistic(riskLimit, BigDecimal.valueOf(0.05), Audit.GAMMA,
+                                            0, 0, 0, 0).intValue();
+
+    assertEquals(result.trials(), 50);
+    assertEquals(result.countyIDs(), Arrays.asList(1L, 2L));
+    assertEquals(result.handCountTrials(), 0);
+    for (int trial = 0; trial < 50; trial++) {
+      assertEquals(result.rounds(trial), 1);
+      final long ballots = result.countyBallots(1L, trial) + result.countyBallots(2L, trial);
+      // duplicates are audited once
+      assertTrue(ballots <= sampleSize);
+      assertTrue(ballots > sampleSize * 9 / 10);
+    }
+    assertEquals(result.roundsPercentile(99), 1L);
+    assertTrue(result.countyBallotsPercentile(1L, 50) > result.countyBallotsPercentile(2L, 50));
+  }
+
+  @Test()
+  public void resultsDependOnlyOnTheSeed() {
+    final List<AuditSimulator.Target> targets =
+        Arrays.asList(target("Governor", 0.05), target("Treasurer", 0.1));
+    final AuditSimulator.Rates rates = new AuditSimulator.Rates(0.001, 0.002, 0.004, 0.001);
+    final AuditSimulator.Result a =
+        new AuditSimulator(targets, riskLimit, rates).simulate(200, 42L, pool);
+    final ForkJoinPool single = new ForkJoinPool(1);
+    final AuditSimulator.Result b;
+    try {
+      b = new AuditSimulator(targets, riskLimit, rates).simulate(200, 42L, single);
+    } finally {
+      single.shutdown();
+    }
+
+    boolean moreRounds = false;
+    for (int trial = 0; trial < 200; trial++) {
+      assertEquals(a.rounds(trial), b.rounds(trial));
+      assertEquals(a.countyBallots(1L, trial), b.countyBallots(1L, trial));
+      assertEquals(a.countyBallots(2L, trial), b.countyBallots(2L, trial));
+      moreRounds |= a.rounds(trial) > 1;
+    }
+    assertTrue(moreRounds);
+    assertTrue(a.roundsPercentile(50) <= a.roundsPercentile(95));
+    assertTrue(a.roundsPercentile(95) <= a.roundsPercentile(99));
+  }
+
+  @Test()
+  public void overwhelmingDiscrepanciesLeadToAHandCount() {
+    final AuditSimulator.Result result =
+        new AuditSimulator(Collections.singletonList(target("Governor", 0.01)), riskLimit,
+                           new AuditSimulator.Rates(0, 0, 0, 0.5))
+        .simulate(4, 1L, pool);
+    assertEquals(result.handCountTrials(), 4);
+    assertEquals(result.countyBallots(1L, 0), 6000L);
+    assertEquals(result.countyBallots(2L, 0), 4000L);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void ratesMustNotExceedOne() {
+    new AuditSimulator.Rates(0.5, 0, 0.5, 0.1);
+  }
+}
@@ -0,0 +1,54 @@
+package us.freeandfair.corla.controllers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.annotations.*;
+
+import us.freeandfair.corla.controller.BallotSelection;
+
+import static org.testng.Assert.*;
+
+public class AuditedPrefixLengthTest {
+
+  private static Set<Long> audited(final Long... ids) {
+    return new HashSet<>(Arrays.asList(ids));
+  }
+
+  @Test()
+  public void stopsAtTheFirstUnauditedID() {
+    final List<Long> ids = Arrays.asList(4L, 2L, 9L, 7L, 3L);
+    assertEquals(BallotSelection.auditedPrefixLength(ids, audited(4L, 2L, 7L, 3L)),
+                 Integer.valueOf(2));
+    assertEquals(BallotSelection.auditedPrefixLength(ids, audited(2L, 9L, 7L, 3L)),
+                 Integer.valueOf(0));
+    assertEquals(BallotSelection.auditedPrefixLength(ids, audited(4L, 2L, 9L, 7L, 3L)),
+                 Integer.valueOf(5));
+    assertEquals(BallotSelection.auditedPrefixLength(ids, audited()), Integer.valueOf(0));
+  }
+
+  @Test()
+  public void countsDuplicatesInThePrefix() {
+    // a CVR drawn more than once is audited once, and counts every time
+    final List<Long> ids = Arrays.asList(5L, 5L, 6L, 5L, 8L, 6L);
+    assertEquals(BallotSelection.auditedPrefixLength(ids, audited(5L, 6L)),
+                 Integer.valueOf(4));
+    assertEquals(BallotSelection.auditedPrefixLength(ids, audited(5L)),
+                 Integer.valueOf(2));
+    assertEquals(BallotSelection.auditedPrefixLength(ids, audited(5L, 6L, 8L)),
+                 Integer.valueOf(6));
+  }
+
+  @Test()
+  public void emptyListHasNoPrefix() {
+    assertEquals(BallotSelection.auditedPrefixLength(Collections.<Long>emptyList(),
+                                                     audited(1L, 2L)),
+                 Integer.valueOf(0));
+    // no query is needed to find that out
+    assertEquals(BallotSelection.auditedPrefixLength(Collections.<Long>emptyList()),
+                 Integer.valueOf(0));
+  }
+}
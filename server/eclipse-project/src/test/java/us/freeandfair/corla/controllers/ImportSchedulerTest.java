@@ -0,0 +1,96 @@
+package us.freeandfair.corla.controllers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.controller.ImportScheduler;
+
+public class ImportSchedulerTest {
+
+  private ImportSchedulerTest (){};
+
+  /**
+   * an import that waits for a latch, recording the order it ran in; it
+   * counts down started when it runs, and finished when the scheduler asks
+   * for its count, which the scheduler does once it has counted the import
+   * as finished
+   **/
+  private static class Job implements ImportScheduler.ImportJob {
+    private final Long countyId;
+    private final String name;
+    private final CountDownLatch release;
+    private final CountDownLatch started;
+    private final CountDownLatch finished;
+    private final List<String> ran;
+
+    Job(final Long countyId, final String name, final CountDownLatch release,
+        final CountDownLatch started, final CountDownLatch finished,
+        final List<String> ran) {
+      this.countyId = countyId;
+      this.name = name;
+      this.release = release;
+      this.started = started;
+      this.finished = finished;
+      this.ran = ran;
+    }
+
+    public Long countyId() { return countyId; }
+
+    public int importedCount() {
+      finished.countDown();
+      return 10;
+    }
+
+    public void run() {
+      ran.add(name);
+      started.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Test()
+  public void testCountiesTakeTurns() throws InterruptedException {
+    final ImportScheduler scheduler = new ImportScheduler(1);
+    final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch finished = new CountDownLatch(4);
+
+    scheduler.submit(new Job(1L, "a1", release, started, finished, ran));
+    scheduler.submit(new Job(1L, "a2", release, started, finished, ran));
+    scheduler.submit(new Job(1L, "a3", release, started, finished, ran));
+    scheduler.submit(new Job(2L, "b1", release, started, finished, ran));
+
+    // a1 is running, so county 1's next import and county 2 are waiting
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertEquals(ran, Collections.singletonList("a1"));
+    assertEquals(scheduler.metrics().activeImports(), 1);
+    assertEquals(scheduler.metrics().queueDepth(), 3);
+    assertEquals(scheduler.queuePosition(1L), OptionalInt.of(1));
+    assertEquals(scheduler.queuePosition(2L), OptionalInt.of(2));
+    assertEquals(scheduler.queuePosition(3L), OptionalInt.empty());
+
+    release.countDown();
+    // the scheduler holds its lock from counting the last import as
+    // finished until it is done, so metrics() sees the final state
+    assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+    assertEquals(ran.get(0), "a1");
+    assertEquals(ran.get(1), "a2");
+    assertEquals(ran.get(2), "b1", "county 2 does not wait for all of county 1");
+    assertEquals(ran.get(3), "a3");
+    assertEquals(scheduler.metrics().queueDepth(), 0);
+    assertEquals(scheduler.metrics().activeImports(), 0);
+  }
+}
@@ -0,0 +1,80 @@
+package us.freeandfair.corla.controllers;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.testng.annotations.*;
+
+import us.freeandfair.corla.controller.BallotSelection;
+import us.freeandfair.corla.controller.ManifestIndex;
+import us.freeandfair.corla.controller.BallotSelection.MissingBallotManifestException;
+import us.freeandfair.corla.model.BallotManifestInfo;
+
+import static org.testng.Assert.*;
+
+public class ManifestIndexTest {
+
+  private BallotManifestInfo bmi(final long countyId, final String batchId,
+                                 final long start, final long end) {
+    return new BallotManifestInfo(countyId, 1, batchId, (int) (end - start + 1),
+                                  "bin", start, end);
+  }
+
+  private Set<BallotManifestInfo> manifests() {
+    final Set<BallotManifestInfo> bmis = new TreeSet<>(new BallotManifestInfo.Sort());
+    bmis.add(bmi(1L, "1", 1L, 10L));
+    bmis.add(bmi(1L, "2", 11L, 11L));
+    bmis.add(bmi(1L, "3", 12L, 30L));
+    bmis.add(bmi(2L, "1", 1L, 7L));
+    bmis.add(bmi(3L, "1", 1L, 4L));
+    bmis.add(bmi(3L, "2", 5L, 9L));
+    return bmis;
+  }
+
+  @Test()
+  public void matchesTheLinearScan() {
+    final Set<BallotManifestInfo> bmis = manifests();
+    final ManifestIndex index = new ManifestIndex(bmis);
+    assertEquals(index.size(), 6);
+    assertEquals(index.ballotCount(), 46L);
+    for (int rand = 1; rand <= 46; rand++) {
+      final BallotManifestInfo expected = BallotSelection.selectCountyId((long) rand, bmis);
+      assertSame(index.holding(rand), expected, "rand " + rand);
+      assertEquals(index.sequencePosition(rand), (int) expected.translateRand(rand),
+                   "rand " + rand);
+    }
+  }
+
+  @Test()
+  public void doesNotDependOnProjectedFields() {
+    final Set<BallotManifestInfo> bmis = manifests();
+    final ManifestIndex index = new ManifestIndex(bmis);
+    // another contest's projection overwrites the shared records
+    bmis.forEach(bmi -> bmi.setUltimate(1000L));
+    assertEquals(index.holding(31).countyID(), Long.valueOf(2L));
+    assertEquals(index.sequencePosition(31), 1);
+    assertEquals(index.sequencePosition(46), 5);
+  }
+
+  @Test()
+  public void findsTheBatchHoldingEachPosition() {
+    // batches of 3, 0, 4 and 1 ballots
+    final long[] ends = {3, 3, 7, 8};
+    final int[] expected = {-1, 0, 0, 0, 2, 2, 2, 2, 3, -1};
+    for (int position = 0; position < expected.length; position++) {
+      assertEquals(ManifestIndex.indexHolding(ends, position), expected[position],
+                   "position " + position);
+    }
+    assertEquals(ManifestIndex.indexHolding(new long[0], 1), -1);
+  }
+
+  @Test(expectedExceptions = MissingBallotManifestException.class)
+  public void rejectsRandomsPastTheEnd() {
+    new ManifestIndex(manifests()).holding(47);
+  }
+
+  @Test(expectedExceptions = MissingBallotManifestException.class)
+  public void rejectsZero() {
+    new ManifestIndex(manifests()).holding(0);
+  }
+}
@@ -0,0 +1,53 @@
+package us.freeandfair.corla.crypto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class HashingOutputStreamTest {
+
+  @Test()
+  public void matchesHashCheckerAndCountsTerminators() throws Exception {
+    final String[] contents = {
+      "",
+      "ColoradoRLA",
+      "a,b\nc,d\n",
+      "a,b\r\nc,d\r\ne",
+      "a\rb\r\r\nc\n\n",
+      "élection,✓\r\n"
+    };
+    final int[] lines = {0, 0, 2, 2, 5, 1};
+    for (int c = 0; c < contents.length; c++) {
+      final String content = contents[c];
+      final File file = File.createTempFile("hashing", ".csv");
+      file.deleteOnExit();
+      final HashingOutputStream hos = new HashingOutputStream(new FileOutputStream(file));
+      final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+      // split the write so a CR LF pair can straddle two calls
+      final int half = bytes.length / 2;
+      hos.write(bytes, 0, half);
+      for (int i = half; i < bytes.length; i++) {
+        hos.write(bytes[i]);
+      }
+      hos.close();
+
+      assertEquals(hos.hash(), HashChecker.hashFile(file), content);
+      assertEquals(hos.lineCount(), lines[c], content);
+      assertEquals(hos.byteCount(), file.length(), content);
+    }
+  }
+
+  @Test()
+  public void passesBytesThrough() throws Exception {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final HashingOutputStream hos = new HashingOutputStream(baos);
+    hos.write("ColoradoRLA".getBytes(StandardCharsets.UTF_8));
+    assertEquals(baos.toString("UTF-8"), "ColoradoRLA");
+    assertEquals(hos.hash(),
+                 "F9A25DA7060735572E32FCF72C33EE73476E589F7F02256DAFFB4C618D8F9EA2");
+  }
+}
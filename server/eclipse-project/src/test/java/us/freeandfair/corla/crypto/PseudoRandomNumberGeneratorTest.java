@@ -11,6 +11,11 @@
 
 package us.freeandfair.corla.crypto;
 
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -56,4 +61,108 @@ public class PseudoRandomNumberGeneratorTest {
     Assert.assertEquals((Long)violations, (Long)0L);
 
   }
+
+  /**
+   * Golden vectors generated by the LinkedList-backed generator, with
+   * replacement and with a negative minimum.
+   */
+  @Test()
+  public void testGoldenVectors() {
+    final List<Integer> replaced =
+        new PseudoRandomNumberGenerator("12345678901234567890", true, 1, 1000000)
+        .getRandomNumbers(0, 29);
+    Assert.assertEquals(replaced, Arrays.asList(
+        729426, 940921, 282929, 264056, 191438, 143587, 894944, 854386, 273845, 467155,
+        1971, 638275, 765707, 202905, 31696, 649226, 622155, 877042, 139851, 58535,
+        889765, 796575, 680668, 118007, 44617, 628515, 187366, 500599, 139362, 655951));
+
+    final List<Integer> negative =
+        new PseudoRandomNumberGenerator("98765432109876543210", false, -20, 60)
+        .getRandomNumbers(0, 29);
+    Assert.assertEquals(negative, Arrays.asList(
+        36, 13, 41, 42, 47, -12, 35, 30, 20, 60, -4, 10, -5, -2, -3, 38, -16, 48, 43,
+        -13, -15, 55, 29, 24, 46, 1, -17, -14, -8, 12));
+  }
+
+  /**
+   * Draws most of a domain without replacement, in several requests, and
+   * compares the draws with the original algorithm.
+   */
+  @Test()
+  public void testMatchesListAlgorithm() throws NoSuchAlgorithmException {
+    final String seed = "01234567890123456789";
+    final PseudoRandomNumberGenerator gen =
+        new PseudoRandomNumberGenerator(seed, false, 1, 5000);
+    final List<Integer> numbers = new ArrayList<>(gen.getRandomNumbers(0, 9));
+    numbers.addAll(gen.getRandomNumbers(10, 999));
+    numbers.addAll(gen.getRandomNumbers(1000, 2999));
+    Assert.assertEquals(gen.getRandomNumbers(5, 7), numbers.subList(5, 8));
+    Assert.assertEquals(numbers, listAlgorithm(seed, false, 1, 5000, 3000));
+  }
+
+  /**
+   * Draws with replacement by index, in bulk across the fork-join pool,
+   * and in sequence, and compares the draws with the original algorithm.
+   */
+  @Test()
+  public void testNumberAtAndFill() throws NoSuchAlgorithmException {
+    final String seed = "55555555556666666666";
+    final List<Integer> expected = listAlgorithm(seed, true, -3, Integer.MAX_VALUE - 1, 10000);
+
+    final PseudoRandomNumberGenerator gen =
+        new PseudoRandomNumberGenerator(seed, true, -3, Integer.MAX_VALUE - 1);
+    Assert.assertEquals(gen.numberAt(9999), (int) expected.get(9999));
+    Assert.assertEquals(gen.numberAt(0), (int) expected.get(0));
+
+    final int[] filled = new int[9000];
+    gen.fill(filled, 1000, 9999);
+    for (int i = 0; i < filled.length; i++) {
+      Assert.assertEquals(filled[i], (int) expected.get(1000 + i), "index " + (1000 + i));
+    }
+
+    Assert.assertEquals(gen.getRandomNumbers(0, 9), expected.subList(0, 10));
+    Assert.assertEquals(gen.getRandomNumbers(5, 9999), expected.subList(5, 10000));
+    gen.generateNext();
+    Assert.assertEquals(gen.getRandomNumbers(10000, 10000),
+                        listAlgorithm(seed, true, -3, Integer.MAX_VALUE - 1, 10001)
+                        .subList(10000, 10001));
+  }
+
+  /**
+   * Fills without replacement from the generated sequence.
+   */
+  @Test()
+  public void testFillWithoutReplacement() {
+    final PseudoRandomNumberGenerator gen =
+        new PseudoRandomNumberGenerator("98765432109876543210", false, -20, 60);
+    final int[] filled = new int[3];
+    gen.fill(filled, 27, 29);
+    Assert.assertEquals(filled, new int[] {-14, -8, 12});
+    Assert.assertEquals(gen.numberAt(5), -12);
+  }
+
+  /**
+   * The original algorithm: BigInteger arithmetic and, without replacement,
+   * excluding repeats by searching a list.
+   */
+  private List<Integer> listAlgorithm(final String the_seed,
+                                      final boolean the_with_replacement,
+                                      final int the_minimum,
+                                      final int the_maximum, final int the_length)
+      throws NoSuchAlgorithmException {
+    final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    final BigInteger range = BigInteger.valueOf((long) the_maximum - the_minimum + 1);
+    final List<Integer> result = new ArrayList<>();
+    int count = 0;
+    while (result.size() < the_length) {
+      count++;
+      final byte[] hash =
+          digest.digest((the_seed + "," + count).getBytes(StandardCharsets.UTF_8));
+      final int pick = the_minimum + new BigInteger(1, hash).mod(range).intValueExact();
+      if (the_with_replacement || !result.contains(pick)) {
+        result.add(pick);
+      }
+    }
+    return result;
+  }
 }
@@ -0,0 +1,73 @@
+package us.freeandfair.corla.csv;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.testng.annotations.*;
+
+import us.freeandfair.corla.model.County;
+
+public class CVRExportValidateTest {
+
+  private final County county = new County("Arapahoe", 3L);
+
+  private static final String HEADERS =
+      "Test Election,5.2.16.1,,,,,,,,,\n" +
+      ",,,,,,Mayor (Vote For=1),Mayor (Vote For=1),Mayor (Vote For=1)," +
+      "Council (Vote For=2),Council (Vote For=2)\n" +
+      ",,,,,,Alice,Bob,Write-in,Carol,Dave\n" +
+      "CvrNumber,TabulatorNum,BatchId,RecordId,ImprintedId,BallotType,,,,,\n";
+
+  private List<Result> validate(final String rows, final int max) throws IOException {
+    return new DominionCVRExportParser(HEADERS + rows, county).validate(max);
+  }
+
+  @Test()
+  public void validExportHasNoErrors() throws IOException {
+    final List<Result> errors = validate(
+        "1,1,1,1,1-1-1,Ballot 1,1,0,0,1,1\n" +
+        "2,1,1,2,1-1-2,Ballot 1,,,,,\n" +
+        "3,1,1,3,1-1-3,Ballot 1,0,1,1,0,1\n", 100);
+    assertTrue(errors.isEmpty(), "a write-in mark is not an overvote");
+  }
+
+  @Test()
+  public void reportsEveryBadRow() throws IOException {
+    final List<Result> errors = validate(
+        "1,1,1,1,1-1-1,Ballot 1,1,1,0,0,0\n" +
+        "2,1,1,2,1-1-2,Ballot 1,1,0,0\n" +
+        "3,1,1,3,1-1-3,Ballot 1,0,1,0,0,0\n" +
+        "x4,1,1,4,1-1-4,Ballot 1,0,2,0,0,0\n", 100);
+
+    assertEquals(errors.size(), 3);
+    assertEquals(errors.get(0).errorRowNum, Integer.valueOf(5));
+    assertTrue(errors.get(0).errorMessage.contains("overvote in contest Mayor"));
+    assertEquals(errors.get(1).errorRowNum, Integer.valueOf(6));
+    assertEquals(errors.get(1).errorMessage, "expected 11 columns, found 9");
+    assertEquals(errors.get(2).errorRowNum, Integer.valueOf(8));
+    assertTrue(errors.get(2).errorMessage.contains("CvrNumber is not a number"));
+    assertTrue(errors.get(2).errorMessage.contains("invalid vote mark \"2\""));
+  }
+
+  @Test()
+  public void stopsAtMaximumErrors() throws IOException {
+    final StringBuilder rows = new StringBuilder();
+    for (int i = 1; i <= 50; i++) {
+      rows.append(i).append(",1,1,").append(i).append(",1-1-").append(i)
+          .append(",Ballot 1,1,1,0,0,0\n");
+    }
+    assertEquals(validate(rows.toString(), 10).size(), 10);
+  }
+
+  @Test()
+  public void reportsMissingHeaders() throws IOException {
+    final String csv = HEADERS.replace("CvrNumber", "Cvr") +
+                       "1,1,1,1,1-1-1,Ballot 1,1,0,0,1,1\n";
+    final List<Result> errors =
+        new DominionCVRExportParser(csv, county).validate(100);
+    assertEquals(errors.size(), 1);
+    assertTrue(errors.get(0).errorMessage.contains("CvrNumber missing"));
+  }
+}
@@ -0,0 +1,86 @@
+package us.freeandfair.corla.csv;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.*;
+
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+
+public class CVRParsePipelineTest {
+
+  private String csv(final int rows) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 1; i <= rows; i++) {
+      sb.append(i).append(",1,1-").append(i).append('\n');
+    }
+    return sb.toString();
+  }
+
+  private CastVoteRecord convert(final DominionCSVDecoder.Record line,
+                                 final int sequenceNumber) {
+    final int cvrNumber = line.intValue(0);
+    return new CastVoteRecord(RecordType.UPLOADED, null, 1L, cvrNumber, sequenceNumber,
+                              line.intValue(1), "1", cvrNumber,
+                              line.get(2), "1", null);
+  }
+
+  private List<CVRParsePipeline.Row> drain(final CVRParsePipeline pipeline) {
+    final List<CVRParsePipeline.Row> rows = new ArrayList<>();
+    List<CVRParsePipeline.Row> chunk = pipeline.nextChunk();
+    while (chunk != null) {
+      rows.addAll(chunk);
+      chunk = pipeline.nextChunk();
+    }
+    return rows;
+  }
+
+  @Test()
+  public void preservesRecordOrder() throws IOException {
+    final DominionCSVDecoder decoder = new DominionCSVDecoder(new StringReader(csv(1003)));
+    try (CVRParsePipeline pipeline =
+             new CVRParsePipeline(decoder.copies(), this::convert, 4, 10, 0)) {
+      final List<CVRParsePipeline.Row> rows = drain(pipeline);
+
+      assertEquals(rows.size(), 1003);
+      for (int i = 0; i < rows.size(); i++) {
+        assertNull(rows.get(i).error());
+        assertEquals(rows.get(i).cvr().cvrNumber(), Integer.valueOf(i + 1));
+        assertEquals(rows.get(i).cvr().sequenceNumber(), Integer.valueOf(i),
+                     "sequence numbers follow file order");
+      }
+    }
+  }
+
+  @Test()
+  public void reportsFirstFailingRow() throws IOException {
+    final String bad = csv(500).replace("\n250,", "\nx250,").replace("\n400,", "\nx400,");
+    final DominionCSVDecoder decoder = new DominionCSVDecoder(new StringReader(bad));
+    try (CVRParsePipeline pipeline =
+             new CVRParsePipeline(decoder.copies(), this::convert, 4, 7, 0)) {
+      CVRParsePipeline.Row failed = null;
+      int converted = 0;
+      List<CVRParsePipeline.Row> chunk = pipeline.nextChunk();
+      while (chunk != null && failed == null) {
+        for (final CVRParsePipeline.Row row : chunk) {
+          if (row.error() != null) {
+            failed = row;
+            break;
+          }
+          converted++;
+        }
+        chunk = pipeline.nextChunk();
+      }
+
+      assertNotNull(failed);
+      assertEquals(failed.line().recordNumber(), 250L);
+      assertTrue(failed.error() instanceof NumberFormatException);
+      assertEquals(converted, 249, "every row before the failure is handed back");
+    }
+  }
+}
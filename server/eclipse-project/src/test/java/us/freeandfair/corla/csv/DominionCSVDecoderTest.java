@@ -0,0 +1,114 @@
+package us.freeandfair.corla.csv;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import org.testng.annotations.*;
+
+public class DominionCSVDecoderTest {
+
+  private static final String CSV =
+      "Test Election,5.2.16.1\r\n" +
+      ",,\"Mayor, City of Denver (Vote For=1)\",\"Mayor, City of Denver (Vote For=1)\"\r\n" +
+      "\r\n" +
+      "=\"1\",=\"1-1-1\",1,\"he said \"\"no\"\"\"\n" +
+      "2,,,\r" +
+      "\"multi\nline\",x\"y,-17,\"\"  \n" +
+      ",";
+
+  private DominionCSVDecoder decoder(final String csv) {
+    return new DominionCSVDecoder(new StringReader(csv));
+  }
+
+  @Test()
+  public void decodesLikeCommonsCSV() throws IOException {
+    final DominionCSVDecoder decoder = decoder(CSV);
+    int count = 0;
+    for (final CSVRecord expected : CSVParser.parse(CSV, CSVFormat.DEFAULT)) {
+      assertTrue(decoder.next());
+      final DominionCSVDecoder.Record actual = decoder.current();
+      final List<String> values = new ArrayList<>();
+      expected.iterator().forEachRemaining(values::add);
+      assertEquals(actual.values(), values);
+      assertEquals(actual.recordNumber(), expected.getRecordNumber());
+      count++;
+    }
+    assertFalse(decoder.next());
+    assertEquals(count, 6);
+  }
+
+  @Test()
+  public void readRawLeavesTheRestForDecoding() throws IOException {
+    final DominionCSVDecoder decoder = decoder(CSV);
+    final String header = decoder.readRaw(2);
+    final List<CSVRecord> records = CSVParser.parse(header, CSVFormat.DEFAULT).getRecords();
+    assertEquals(records.size(), 2);
+    assertEquals(records.get(1).get(2), "Mayor, City of Denver (Vote For=1)");
+
+    assertTrue(decoder.next());
+    assertEquals(decoder.current().recordNumber(), 3L);
+    assertEquals(decoder.current().get(0), "=\"1\"");
+  }
+
+  @Test()
+  public void decodesFields() throws IOException {
+    final DominionCSVDecoder decoder = decoder("=\"42\",=\"1-1-1\",-7,+3,1,0,,2,=\"\"\n");
+    assertTrue(decoder.next());
+    final DominionCSVDecoder.Record record = decoder.current();
+    assertEquals(record.intValue(0), 42);
+    assertEquals(record.value(1), "1-1-1");
+    assertEquals(record.intValue(2), -7);
+    assertEquals(record.intValue(3), 3);
+    assertEquals(record.mark(4), DominionCSVDecoder.MARKED);
+    assertEquals(record.mark(5), DominionCSVDecoder.UNMARKED);
+    assertEquals(record.mark(6), DominionCSVDecoder.ABSENT);
+    assertEquals(record.mark(7), DominionCSVDecoder.UNMARKED);
+    assertEquals(record.value(8), "");
+  }
+
+  @Test()
+  public void parsesIntsLikeIntegerParseInt() throws IOException {
+    final String[] values = {"2147483647", "-2147483648", "2147483648", "-2147483649",
+                             "99999999999999999999", "-", "+", "", "1x", "0x1", " 1"};
+    final DominionCSVDecoder decoder = decoder("\"" + String.join("\",\"", values) + "\"");
+    assertTrue(decoder.next());
+    for (int i = 0; i < values.length; i++) {
+      Integer expected;
+      try {
+        expected = Integer.parseInt(values[i]);
+      } catch (final NumberFormatException e) {
+        expected = null;
+      }
+      Integer actual;
+      try {
+        actual = decoder.current().intValue(i);
+      } catch (final NumberFormatException e) {
+        actual = null;
+      }
+      assertEquals(actual, expected, values[i]);
+    }
+  }
+
+  @Test()
+  public void copiesAreIndependent() {
+    final List<DominionCSVDecoder.Record> records = new ArrayList<>();
+    decoder("a,b\nc,d\n").copies().forEachRemaining(records::add);
+    assertEquals(records.size(), 2);
+    assertEquals(records.get(0).toString(), "a,b");
+    assertEquals(records.get(1).toString(), "c,d");
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void rejectsUnterminatedQuote() throws IOException {
+    final DominionCSVDecoder decoder = decoder("1,\"2\n3\n");
+    decoder.next();
+  }
+}
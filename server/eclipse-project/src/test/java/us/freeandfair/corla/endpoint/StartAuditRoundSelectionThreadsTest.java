@@ -0,0 +1,176 @@
+package us.freeandfair.corla.endpoint;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.controller.BallotSelection.Selection;
+import us.freeandfair.corla.model.AuditReason;
+import us.freeandfair.corla.model.BallotManifestInfo;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.ComparisonAudit;
+import us.freeandfair.corla.model.ContestResult;
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.BallotManifestInfoQueries;
+import us.freeandfair.corla.query.CastVoteRecordQueries;
+
+import java.math.BigDecimal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.AfterTest;
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.query.Setup;
+
+/**
+ * The selection workers read the manifests in their own sessions, so the
+ * manifests and CVRs here are committed, and removed afterward. Everything
+ * runs on threads of its own, so as not to touch the transaction the other
+ * integration tests share.
+ */
+@Test(groups = {"integration"})
+public class StartAuditRoundSelectionThreadsTest {
+
+  private static final List<Long> COUNTY_IDS = Arrays.asList(63L, 64L, 65L);
+
+  private static final String SEED = "01234567890123456789";
+
+  private static final BigDecimal RISK_LIMIT = BigDecimal.valueOf(0.1);
+
+  private static final BigDecimal MARGIN = BigDecimal.valueOf(0.05);
+
+  private static final BigDecimal GAMMA = BigDecimal.valueOf(1.03905);
+
+  private StartAuditRoundSelectionThreadsTest() {};
+
+  /** runs the work on a new thread, in a transaction of its own **/
+  private static <T> T inTransaction(final Callable<T> work, final boolean commit)
+      throws Exception {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      return executor.submit(() -> {
+          Persistence.beginTransaction();
+          try {
+            final T result = work.call();
+            if (commit) {
+              Persistence.commitTransaction();
+            }
+            return result;
+          } finally {
+            if (Persistence.canTransactionRollback()) {
+              Persistence.rollbackTransaction();
+            }
+          }
+        }).get();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static Void deleteFixtures() {
+    for (final Long countyId : COUNTY_IDS) {
+      CastVoteRecordQueries.deleteAll(countyId);
+      BallotManifestInfoQueries.deleteMatching(countyId);
+    }
+    return null;
+  }
+
+  /** a few batches for each county, and a CVR at every position **/
+  private static Void saveFixtures() {
+    for (final Long countyId : COUNTY_IDS) {
+      long last = 0L;
+      for (int batch = 1; batch <= 3; batch++) {
+        final int size = 20 + (int) (countyId % 7) * batch;
+        final BallotManifestInfo bmi =
+            new BallotManifestInfo(countyId, 1, String.valueOf(batch), size, "bin",
+                                   last + 1L, last + size);
+        Persistence.save(bmi);
+        last = last + size;
+        for (int position = 1; position <= size; position++) {
+          final CastVoteRecord cvr =
+              new CastVoteRecord(CastVoteRecord.RecordType.UPLOADED, null, countyId,
+                                 position, position, 1, String.valueOf(batch), position,
+                                 "1-" + batch + "-" + position, "a",
+                                 Collections.emptyList());
+          Persistence.save(cvr);
+        }
+      }
+    }
+    return null;
+  }
+
+  @BeforeTest()
+  public void setUp() throws Exception {
+    Setup.setProperties();
+    inTransaction(StartAuditRoundSelectionThreadsTest::deleteFixtures, true);
+    inTransaction(StartAuditRoundSelectionThreadsTest::saveFixtures, true);
+  }
+
+  @AfterTest()
+  public void tearDown() throws Exception {
+    inTransaction(StartAuditRoundSelectionThreadsTest::deleteFixtures, true);
+  }
+
+  private static ComparisonAudit audit(final String name, final Long... countyIds) {
+    final ContestResult cr = new ContestResult(name);
+    cr.setDilutedMargin(MARGIN);
+    cr.setAuditReason(AuditReason.STATE_WIDE_CONTEST);
+    final HashSet<County> counties = new HashSet<>();
+    for (final Long countyId : countyIds) {
+      counties.add(new County("test" + countyId, countyId));
+    }
+    cr.addCounties(counties);
+    return new ComparisonAudit(cr, RISK_LIMIT, MARGIN, GAMMA,
+                               AuditReason.STATE_WIDE_CONTEST);
+  }
+
+  /**
+   * the generated numbers and CVR IDs of each selection, then the contest
+   * CVR IDs of each audit, drawn with the given number of threads
+   **/
+  private static List<List<?>> selections(final int threads) throws Exception {
+    final Properties properties = new Properties();
+    properties.putAll(Setup.properties);
+    properties.setProperty(StartAuditRound.SELECTION_THREADS_PROPERTY,
+                           String.valueOf(threads));
+    new Main(properties);
+
+    return inTransaction(() -> {
+        // two contests share their counties, and so a manifest index
+        final List<ComparisonAudit> audits =
+            Arrays.asList(audit("A", 63L, 64L), audit("B", 64L, 65L),
+                          audit("C", 63L), audit("D", 64L, 63L));
+        final List<Selection> selections =
+            new StartAuditRound().makeSelections(audits, SEED, RISK_LIMIT);
+        final List<List<?>> result = new ArrayList<>();
+        for (final Selection selection : selections) {
+          result.add(selection.generatedNumbers);
+          result.add(selection.contestCVRIds());
+        }
+        for (final ComparisonAudit audit : audits) {
+          result.add(audit.getContestCVRIds());
+        }
+        return result;
+      }, false);
+  }
+
+  @Test()
+  public void selectionsDoNotDependOnThreads() throws Exception {
+    final List<List<?>> single = selections(1);
+    final List<List<?>> parallel = selections(3);
+    assertEquals(single.size(), 12);
+    for (final List<?> drawn : single) {
+      assertFalse(drawn.isEmpty());
+    }
+    assertEquals(parallel, single);
+  }
+}
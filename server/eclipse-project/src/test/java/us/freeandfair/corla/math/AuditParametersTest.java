@@ -0,0 +1,34 @@
+package us.freeandfair.corla.math;
+
+import java.math.BigDecimal;
+
+import org.testng.annotations.Test;
+
+import static java.math.MathContext.DECIMAL128;
+import static org.testng.Assert.*;
+
+import static ch.obermuhlner.math.big.BigDecimalMath.log;
+
+public final class AuditParametersTest {
+  @Test()
+  public void testCachedLogs() {
+    final BigDecimal riskLimit = BigDecimal.valueOf(0.05);
+    final AuditParameters parameters = AuditParameters.of(Audit.GAMMA, riskLimit);
+    assertSame(AuditParameters.of(Audit.GAMMA, BigDecimal.valueOf(0.05)), parameters);
+
+    final BigDecimal invgamma = BigDecimal.ONE.divide(Audit.GAMMA, DECIMAL128);
+    assertEquals(parameters.logRiskLimit(), log(riskLimit, DECIMAL128));
+    assertEquals(parameters.logTwoUnder(), log(BigDecimal.ONE.add(invgamma), DECIMAL128));
+    assertEquals(parameters.logTwoOver(),
+                 log(BigDecimal.ONE.subtract(invgamma), DECIMAL128));
+
+    final double[] terms = parameters.doubleTerms(1, 2, 3, 4);
+    assertEquals(terms[0], Math.log(0.05), 1e-15);
+    assertEquals(terms[4], 4 * parameters.logTwoOver().doubleValue(), 1e-12);
+  }
+
+  @Test(expectedExceptions = ArithmeticException.class)
+  public void testRejectsGammaOfOne() {
+    AuditParameters.of(BigDecimal.ONE, BigDecimal.valueOf(0.05));
+  }
+}
@@ -2,6 +2,8 @@ package us.freeandfair.corla.math;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
 
 import org.testng.annotations.Test;
 
@@ -111,4 +113,61 @@ public final class AuditTest {
         BigDecimal.valueOf(1.000).setScale(3)
     );
   }
+
+  @Test()
+  public void testFastPathsMatchExact() {
+    final Random random = new Random(20181018L);
+    final double[] riskLimits = {0.001, 0.01, 0.03, 0.05, 0.1, 0.2, 0.5, 0.9};
+    final double[] gammas = {1.01, 1.03905, 1.1, 1.2, 2.0};
+    final long[] ballotCounts = {100, 1000, 10000, 100000, 1000000, 3000000};
+
+    for (int i = 0; i < 2000; i++) {
+      final long ballots = ballotCounts[random.nextInt(ballotCounts.length)];
+      final int margin = 1 + random.nextInt((int) Math.min(ballots, Integer.MAX_VALUE));
+      final BigDecimal dilutedMargin = Audit.dilutedMargin(margin, ballots);
+      final BigDecimal riskLimit =
+          BigDecimal.valueOf(riskLimits[random.nextInt(riskLimits.length)]);
+      final BigDecimal gamma = BigDecimal.valueOf(gammas[random.nextInt(gammas.length)]);
+      final int twoUnder = random.nextInt(4);
+      final int oneUnder = random.nextInt(6);
+      final int oneOver = random.nextInt(6);
+      final int twoOver = random.nextInt(4);
+      final String params = String.format("risk=%s margin=%s gamma=%s %d %d %d %d",
+                                          riskLimit, dilutedMargin, gamma,
+                                          twoUnder, oneUnder, oneOver, twoOver);
+
+      assertEquals(Audit.optimistic(riskLimit, dilutedMargin, gamma,
+                                    twoUnder, oneUnder, oneOver, twoOver),
+                   Audit.exactOptimistic(riskLimit, dilutedMargin, gamma,
+                                         twoUnder, oneUnder, oneOver, twoOver),
+                   params);
+
+      final int audited = random.nextInt(5000);
+      final BigDecimal exact =
+          Audit.pValueApproximation(audited, dilutedMargin, gamma,
+                                    oneUnder, twoUnder, oneOver, twoOver)
+          .setScale(3, RoundingMode.HALF_UP);
+      assertEquals(Audit.roundedPValueApproximation(audited, dilutedMargin, gamma,
+                                                    oneUnder, twoUnder, oneOver,
+                                                    twoOver, 3),
+                   exact, params + " audited=" + audited);
+    }
+  }
+
+  @Test()
+  public void testFastPathsAtBoundaries() {
+    // the risk limit makes the sample size exactly 34 before rounding up
+    final BigDecimal gamma = BigDecimal.valueOf(1.2);
+    final BigDecimal dilutedMargin = BigDecimal.valueOf(0.05);
+    final BigDecimal riskLimit =
+        BigDecimal.valueOf(Math.exp(-34 * 0.05 / 2.4));
+    assertEquals(Audit.optimistic(riskLimit, dilutedMargin, gamma, 0, 0, 0, 0),
+                 Audit.exactOptimistic(riskLimit, dilutedMargin, gamma, 0, 0, 0, 0));
+
+    // a p-value of at least 1 is exactly 1
+    assertEquals(Audit.roundedPValueApproximation(0, dilutedMargin, gamma, 0, 0, 0, 2, 3),
+                 BigDecimal.ONE.setScale(3));
+    assertEquals(Audit.optimistic(riskLimit, BigDecimal.ZERO, gamma, 0, 0, 0, 0),
+                 BigDecimal.ZERO);
+  }
 }
@@ -0,0 +1,95 @@
+package us.freeandfair.corla.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.*;
+
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.persistence.VoteTotalsListConverter;
+
+import static org.testng.Assert.*;
+
+public class CVRImportCheckpointTest {
+
+  private final County county = new County("Arapahoe", 3L);
+
+  private Contest contest(final long id, final String name, final String... choices) {
+    final List<Choice> list = new ArrayList<>();
+    for (final String c : choices) {
+      list.add(new Choice(c, "", false, false));
+    }
+    final Contest contest = new Contest(name, county, "", list, 1, 1, (int) id);
+    contest.setID(id);
+    return contest;
+  }
+
+  private CastVoteRecord cvr(final int n, final Contest contest, final String... votes) {
+    final List<CVRContestInfo> info = new ArrayList<>();
+    if (contest != null) {
+      info.add(new CVRContestInfo(contest, null, null, Arrays.asList(votes)));
+    }
+    return new CastVoteRecord(RecordType.UPLOADED, null, county.id(), n, n, 1,
+                              "1", n, "1-1-" + n, "1", info);
+  }
+
+  @Test()
+  public void restoredTalliesMatchUninterruptedCount() {
+    final Contest mayor = contest(1L, "Mayor", "Alice", "Bob");
+    final Contest measure = contest(2L, "Measure 1", "Yes", "No");
+    final List<CastVoteRecord> cvrs = Arrays.asList(
+        cvr(1, mayor, "Alice"), cvr(2, mayor, "Bob"), cvr(3, measure, "Yes"),
+        cvr(4, mayor, "Alice"), cvr(5, null), cvr(6, measure, "No"),
+        cvr(7, mayor), cvr(8, measure, "Yes"));
+
+    final List<CountyContestResult> uninterrupted = Arrays.asList(
+        new CountyContestResult(county, mayor), new CountyContestResult(county, measure));
+    for (final CastVoteRecord cvr : cvrs) {
+      for (final CountyContestResult r : uninterrupted) {
+        r.addCVR(cvr);
+      }
+    }
+
+    // an import that commits after 5 CVRs and then fails
+    final List<CountyContestResult> first = Arrays.asList(
+        new CountyContestResult(county, mayor), new CountyContestResult(county, measure));
+    for (final CastVoteRecord cvr : cvrs.subList(0, 5)) {
+      for (final CountyContestResult r : first) {
+        r.addCVR(cvr);
+      }
+    }
+    final CVRImportCheckpoint checkpoint = new CVRImportCheckpoint(county.id(), "ABC");
+    checkpoint.update(5, first);
+    // the tallies go through the database column
+    final VoteTotalsListConverter converter = new VoteTotalsListConverter();
+    final List<java.util.Map<String, Integer>> stored =
+        converter.convertToEntityAttribute(converter.convertToDatabaseColumn(
+            Collections.singletonList(checkpoint.voteTotals(0))));
+    assertEquals(stored.get(0), checkpoint.voteTotals(0));
+    assertEquals(checkpoint.contestIDs(), Arrays.asList(1L, 2L));
+
+    // the retry picks up from the checkpoint
+    final List<CountyContestResult> resumed = Arrays.asList(
+        new CountyContestResult(county, mayor), new CountyContestResult(county, measure));
+    for (int i = 0; i < resumed.size(); i++) {
+      resumed.get(i).restoreTallies(checkpoint.voteTotals(i),
+                                    checkpoint.contestBallotCount(i),
+                                    checkpoint.recordCount());
+    }
+    for (final CastVoteRecord cvr : cvrs.subList(5, cvrs.size())) {
+      for (final CountyContestResult r : resumed) {
+        r.addCVR(cvr);
+      }
+    }
+
+    for (int i = 0; i < resumed.size(); i++) {
+      assertEquals(resumed.get(i).voteTotals(), uninterrupted.get(i).voteTotals());
+      assertEquals(resumed.get(i).contestBallotCount(),
+                   uninterrupted.get(i).contestBallotCount());
+      assertEquals(resumed.get(i).countyBallotCount(),
+                   uninterrupted.get(i).countyBallotCount());
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package us.freeandfair.corla.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Random;
+
+import org.testng.annotations.*;
+
+import us.freeandfair.corla.math.Audit;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+
+import static org.testng.Assert.*;
+
+public class ComparisonAuditTest {
+
+  private final BigDecimal dilutedMargin = BigDecimal.valueOf(0.05);
+
+  private final BigDecimal gamma = BigDecimal.valueOf(1.03905);
+
+  private ComparisonAudit audit(final List<Long> cvrIds) {
+    final ContestResult cr = new ContestResult("Council");
+    cr.setDilutedMargin(dilutedMargin);
+    cr.setAuditReason(AuditReason.STATE_WIDE_CONTEST);
+    final ComparisonAudit ca =
+        new ComparisonAudit(cr, BigDecimal.valueOf(0.1), dilutedMargin, gamma,
+                            AuditReason.STATE_WIDE_CONTEST);
+    ca.addContestCVRIds(cvrIds, 1);
+    return ca;
+  }
+
+  private CVRAuditInfo info(final long id) {
+    final CastVoteRecord cvr =
+        new CastVoteRecord(RecordType.UPLOADED, null, 1L, (int) id, (int) id, 1,
+                           "1", (int) id, "1-1-" + id, "1", Collections.emptyList());
+    cvr.setID(id);
+    return new CVRAuditInfo(cvr);
+  }
+
+  private BigDecimal exact(final ComparisonAudit ca) {
+    if (ca.getAuditedSampleCount() == 0) {
+      return BigDecimal.ONE;
+    }
+    return Audit.pValueApproximation(ca.getAuditedSampleCount(), dilutedMargin, gamma,
+                                     ca.discrepancyCount(-1), ca.discrepancyCount(-2),
+                                     ca.discrepancyCount(1), ca.discrepancyCount(2))
+        .setScale(3, RoundingMode.HALF_UP);
+  }
+
+  @Test()
+  public void riskMeasurementFollowsTheCounts() {
+    final List<Long> cvrIds = new ArrayList<>();
+    for (long id = 1; id <= 200; id++) {
+      cvrIds.add(id);
+    }
+    final ComparisonAudit ca = audit(cvrIds);
+    assertEquals(ca.riskMeasurement(), BigDecimal.ONE);
+
+    final Random random = new Random(19);
+    final List<CVRAuditInfo> recorded = new ArrayList<>();
+    final List<Integer> types = new ArrayList<>();
+    for (long id = 1; id <= 200; id++) {
+      ca.signalSampleAudited(1, id);
+      if (random.nextInt(10) == 0) {
+        final CVRAuditInfo cai = info(id);
+        final int type = random.nextInt(5) - 2;
+        ca.recordDiscrepancy(cai, type);
+        recorded.add(cai);
+        types.add(type);
+      }
+      if (!recorded.isEmpty() && random.nextInt(20) == 0) {
+        ca.removeDiscrepancy(recorded.remove(0), types.remove(0));
+      }
+      if (random.nextInt(30) == 0) {
+        ca.signalSampleUnaudited(1, id);
+      }
+      assertEquals(ca.riskMeasurement(), exact(ca), "after " + id);
+    }
+    assertEquals(ca.logPValue(),
+                 Audit.logPValueApproximation(ca.getAuditedSampleCount(), dilutedMargin,
+                                              gamma, ca.discrepancyCount(-1),
+                                              ca.discrepancyCount(-2),
+                                              ca.discrepancyCount(1),
+                                              ca.discrepancyCount(2)),
+                 1e-9);
+  }
+
+  @Test()
+  public void uncoveredDiscrepanciesDoNotCount() {
+    final ComparisonAudit ca = audit(Collections.singletonList(1L));
+    ca.signalSampleAudited(1, 1L);
+    final double before = ca.logPValue();
+    ca.recordDiscrepancy(info(2L), 2);
+    assertEquals(ca.logPValue(), before);
+    ca.recordDiscrepancy(info(1L), 2);
+    assertTrue(ca.logPValue() > before);
+  }
+
+  @Test()
+  public void multiplicityFollowsTheSelection() {
+    final ComparisonAudit ca = audit(new ArrayList<>(Arrays.asList(5L, 7L, 5L)));
+    assertEquals(ca.multiplicity(5L), 2);
+    assertTrue(ca.isCovering(7L));
+    assertFalse(ca.isCovering(6L));
+
+    ca.addContestCVRIds(Arrays.asList(6L, 5L), 2);
+    assertEquals(ca.multiplicity(5L), 3);
+    assertEquals(ca.multiplicity(6L), 1);
+    assertEquals(ca.multiplicity(8L), 0);
+    assertFalse(ca.isCovering(null));
+
+    assertEquals(ca.getContestCVRIds(), Arrays.asList(5L, 7L, 5L, 6L, 5L));
+    assertEquals(ca.samples().get(2), new ComparisonAuditSample(5L, 1));
+    assertEquals(ca.samples().get(4), new ComparisonAuditSample(5L, 2));
+  }
+
+  private Contest mayor() {
+    final List<Choice> choices = new ArrayList<>();
+    for (final String name : Arrays.asList("Alice", "Bob", "Carol")) {
+      choices.add(new Choice(name, "", false, false));
+    }
+    return new Contest("Mayor", new County("Denver", 16L), "", choices, 1, 1, 0);
+  }
+
+  private CastVoteRecord ballot(final RecordType type, final Contest contest,
+                                final String... choices) {
+    final CVRContestInfo info =
+        new CVRContestInfo(contest, null, null, Arrays.asList(choices));
+    return new CastVoteRecord(type, null, 16L, 1, 1, 1, "1", 1, "1-1-1", "1",
+                              Collections.singletonList(info));
+  }
+
+  @Test()
+  public void indexedDiscrepanciesMatchChoiceNames() {
+    final ContestResult cr = new ContestResult("Mayor");
+    cr.setDilutedMargin(dilutedMargin);
+    cr.setAuditReason(AuditReason.STATE_WIDE_CONTEST);
+    cr.setWinnersAllowed(1);
+    cr.setWinners(new HashSet<>(Arrays.asList("Alice")));
+    cr.setLosers(new HashSet<>(Arrays.asList("Bob", "Carol")));
+    final ComparisonAudit ca =
+        new ComparisonAudit(cr, BigDecimal.valueOf(0.1), dilutedMargin, gamma,
+                            AuditReason.STATE_WIDE_CONTEST);
+    final Contest contest = mayor();
+    // an equal contest that is a different object is compared by choice name
+    final Contest copy = mayor();
+
+    final String[][][] pairs = {
+      {{"Alice"}, {"Alice"}},
+      {{"Alice"}, {"Bob"}},
+      {{"Bob"}, {"Alice"}},
+      {{"Alice"}, {}},
+      {{}, {"Alice", "Bob"}},
+      {{"Alice"}, {"Alice", "Bob"}},
+      {{"Carol"}, {"Bob"}},
+    };
+    final Integer[] expected = {null, 2, -1, 1, null, 1, 1};
+    for (int i = 0; i < pairs.length; i++) {
+      final CastVoteRecord cvr = ballot(RecordType.UPLOADED, contest, pairs[i][0]);
+      for (final Contest acvr_contest : Arrays.asList(contest, copy)) {
+        final CastVoteRecord acvr =
+            ballot(RecordType.AUDITOR_ENTERED, acvr_contest, pairs[i][1]);
+        final OptionalInt discrepancy = ca.computeDiscrepancy(cvr, acvr);
+        if (expected[i] == null) {
+          assertFalse(discrepancy.isPresent(), "pair " + i);
+        } else {
+          assertEquals(discrepancy.getAsInt(), (int) expected[i], "pair " + i);
+        }
+      }
+    }
+  }
+
+  @Test()
+  public void contestIndexFollowsTheContestInfo() {
+    final Contest contest = mayor();
+    final CastVoteRecord cvr = ballot(RecordType.UPLOADED, contest, "Bob");
+    final ContestResult cr = new ContestResult("Mayor");
+    assertEquals(cvr.contestInfoForContestResult(cr).get().choices(), Arrays.asList("Bob"));
+    assertTrue(cvr.contestIndex().forContestName("Mayor").contains(1));
+    assertNull(cvr.contestIndex().forContestName("Governor"));
+
+    cvr.setContestInfo(Collections.singletonList
+                       (new CVRContestInfo(contest, null, null, Arrays.asList("Carol"))));
+    assertFalse(cvr.contestIndex().forContestName("Mayor").contains(1));
+    assertTrue(cvr.contestIndex().forContestName("Mayor").contains(2));
+  }
+}
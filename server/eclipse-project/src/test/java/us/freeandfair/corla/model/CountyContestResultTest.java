@@ -0,0 +1,54 @@
+package us.freeandfair.corla.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.*;
+
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+
+import static org.testng.Assert.*;
+
+public class CountyContestResultTest {
+
+  private final County county = new County("Arapahoe", 3L);
+
+  private CastVoteRecord cvr(final int n, final Contest contest, final String... votes) {
+    final List<CVRContestInfo> info = new ArrayList<>();
+    if (contest != null) {
+      info.add(new CVRContestInfo(contest, null, null, Arrays.asList(votes)));
+    }
+    return new CastVoteRecord(RecordType.UPLOADED, null, county.id(), n, n, 1,
+                              "1", n, "1-1-" + n, "1", info);
+  }
+
+  @Test()
+  public void addTalliesMatchesAddCVR() {
+    final List<Choice> choices = Arrays.asList(
+        new Choice("Alice", "", false, false), new Choice("Bob", "", false, false),
+        new Choice("Write-in", "", false, true), new Choice("Carol", "", true, false));
+    final Contest council = new Contest("Council", county, "", choices, 2, 2, 0);
+    council.setID(1L);
+
+    final CountyContestResult byCVR = new CountyContestResult(county, council);
+    byCVR.addCVR(cvr(1, council, "Alice", "Carol"));
+    byCVR.addCVR(cvr(2, null));
+    byCVR.addCVR(cvr(3, council, "Alice"));
+    byCVR.addCVR(cvr(4, council));
+    byCVR.updateResults();
+
+    // the same ballots, counted by choice column; the columns of other
+    // contests come before and after, and the fictitious "Write-in" column
+    // has marks that must not count
+    final int[] votes = {9, 9, 2, 0, 5, 1, 9};
+    final CountyContestResult byTally = new CountyContestResult(county, council);
+    byTally.addTallies(votes, 2, 3, 4);
+    byTally.updateResults();
+
+    assertEquals(byTally.voteTotals(), byCVR.voteTotals());
+    assertEquals(byTally.contestBallotCount(), byCVR.contestBallotCount());
+    assertEquals(byTally.countyBallotCount(), byCVR.countyBallotCount());
+    assertEquals(byTally.winners(), byCVR.winners());
+  }
+}
@@ -0,0 +1,51 @@
+package us.freeandfair.corla.persistence;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.commons.io.IOUtils;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.crypto.HashChecker;
+
+public class DirectoryFileStoreTest {
+
+  private Path upload(final String contents) throws Exception {
+    final Path file = Files.createTempFile("upload", ".csv");
+    Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  @Test()
+  public void storesContentsByHash() throws Exception {
+    final Path directory = Files.createTempDirectory("store");
+    final DirectoryFileStore store = new DirectoryFileStore(directory);
+    final Path first = upload("ColoradoRLA");
+    final String hash = HashChecker.hashFile(first.toFile());
+
+    assertFalse(store.contains(hash));
+    final Path stored = store.put(first, hash);
+    assertEquals(stored, directory.resolve("F9").resolve(hash));
+    assertFalse(Files.exists(first), "the upload is moved, not copied");
+    assertTrue(store.contains(hash));
+    try (InputStream in = store.open(hash)) {
+      assertEquals(IOUtils.toString(in, StandardCharsets.UTF_8), "ColoradoRLA");
+    }
+
+    // the same contents again are kept once
+    final Path second = upload("ColoradoRLA");
+    assertEquals(store.put(second, hash), stored);
+    assertFalse(Files.exists(second));
+    assertEquals(Files.list(stored.getParent()).count(), 1L);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void rejectsMalformedHash() {
+    new DirectoryFileStore(Paths.get("/tmp")).path("../../etc/passwd");
+  }
+}
@@ -0,0 +1,75 @@
+package us.freeandfair.corla.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.*;
+
+import static org.testng.Assert.*;
+
+public class PackedLongListConverterTest {
+
+  private final PackedLongListConverter converter = new PackedLongListConverter();
+
+  private List<Long> roundTrip(final List<Long> list) {
+    return converter.convertToEntityAttribute(converter.convertToDatabaseColumn(list));
+  }
+
+  @Test()
+  public void roundTripsAnyList() {
+    assertNull(roundTrip(null));
+    assertEquals(roundTrip(Collections.emptyList()), Collections.emptyList());
+    assertEquals(roundTrip(Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L, 1L)),
+                 Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L, 1L));
+    final Random random = new Random(22);
+    final List<Long> list = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      list.add(random.nextLong() >> random.nextInt(64));
+    }
+    assertEquals(roundTrip(list), list);
+  }
+
+  @Test()
+  public void packsSelectionsMuchSmallerThanJSON() {
+    // a selection: random CVR IDs from a range of a million, with repeats
+    final Random random = new Random(5);
+    final List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      ids.add(24000000L + random.nextInt(1000000));
+    }
+    final int json = new LongListConverter().convertToDatabaseColumn(ids).length();
+    final int packed = converter.convertToDatabaseColumn(ids).length;
+    assertTrue(packed * 2 < json, "packed " + packed + " json " + json);
+
+    // a ballot sequence: sorted CVR IDs
+    Collections.sort(ids);
+    assertTrue(converter.convertToDatabaseColumn(ids).length * 4 <
+               new LongListConverter().convertToDatabaseColumn(ids).length());
+  }
+
+  @Test()
+  public void readsLegacyJSON() {
+    final byte[] legacy = "[3,1,4,1,5]".getBytes(StandardCharsets.UTF_8);
+    assertEquals(converter.convertToEntityAttribute(legacy),
+                 Arrays.asList(3L, 1L, 4L, 1L, 5L));
+    assertNull(converter.convertToEntityAttribute("null".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test()
+  public void writesListsWithNullsAsJSON() {
+    final List<Long> list = Arrays.asList(2L, null, 7L);
+    final byte[] column = converter.convertToDatabaseColumn(list);
+    assertEquals(column[0], (byte) '[');
+    assertEquals(converter.convertToEntityAttribute(column), list);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void rejectsTruncatedLists() {
+    final byte[] column = converter.convertToDatabaseColumn(Arrays.asList(1L, 300L));
+    converter.convertToEntityAttribute(Arrays.copyOf(column, column.length - 1));
+  }
+}
@@ -0,0 +1,74 @@
+package us.freeandfair.corla.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.*;
+
+import static org.testng.Assert.*;
+
+public class CVRAuditInfoChunksTest {
+
+  private static List<Long> ids(final int count) {
+    final List<Long> result = new ArrayList<>();
+    for (long id = 1; id <= count; id++) {
+      result.add(id);
+    }
+    return result;
+  }
+
+  private static List<Long> flatten(final List<List<Long>> chunks) {
+    final List<Long> result = new ArrayList<>();
+    chunks.forEach(result::addAll);
+    return result;
+  }
+
+  @Test()
+  public void exactlyOneFullChunk() {
+    final List<List<Long>> chunks =
+        CVRAuditInfoQueries.chunks(ids(CVRAuditInfoQueries.MAX_IDS_PER_QUERY));
+    assertEquals(CVRAuditInfoQueries.MAX_IDS_PER_QUERY, 10000);
+    assertEquals(chunks.size(), 1);
+    assertEquals(chunks.get(0), ids(10000));
+  }
+
+  @Test()
+  public void oneMoreStartsAnotherChunk() {
+    final List<List<Long>> chunks = CVRAuditInfoQueries.chunks(ids(10001));
+    assertEquals(chunks.size(), 2);
+    assertEquals(chunks.get(0).size(), 10000);
+    assertEquals(chunks.get(1), Collections.singletonList(10001L));
+    assertEquals(flatten(chunks), ids(10001));
+  }
+
+  @Test()
+  public void duplicatesAreDropped() {
+    final List<List<Long>> chunks =
+        CVRAuditInfoQueries.chunks(Arrays.asList(3L, 1L, 3L, 2L, 1L, 3L));
+    assertEquals(chunks, Collections.singletonList(Arrays.asList(3L, 1L, 2L)));
+  }
+
+  @Test()
+  public void duplicatesDoNotCountTowardTheChunkSize() {
+    // 10000 distinct IDs, each twice, fit in one chunk
+    final List<Long> twice = new ArrayList<>(ids(10000));
+    twice.addAll(ids(10000));
+    final List<List<Long>> chunks = CVRAuditInfoQueries.chunks(twice);
+    assertEquals(chunks.size(), 1);
+    assertEquals(chunks.get(0), ids(10000));
+
+    // and a duplicate in a second chunk's worth is not repeated there
+    twice.add(10001L);
+    twice.add(5L);
+    final List<List<Long>> more = CVRAuditInfoQueries.chunks(twice);
+    assertEquals(more.size(), 2);
+    assertEquals(more.get(1), Collections.singletonList(10001L));
+  }
+
+  @Test()
+  public void noIDsNoChunks() {
+    assertTrue(CVRAuditInfoQueries.chunks(Collections.<Long>emptyList()).isEmpty());
+  }
+}
@@ -0,0 +1,126 @@
+package us.freeandfair.corla.query;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.stat.Statistics;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.AfterTest;
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.model.Choice;
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CVRAuditInfo;
+import us.freeandfair.corla.persistence.Persistence;
+
+@Test(groups = {"integration"})
+public class CVRAuditInfoQueriesTest {
+
+  @BeforeTest()
+  public void setUp() {
+    Setup.setProperties();
+    Persistence.beginTransaction();
+  }
+
+  @AfterTest()
+  public void tearDown() {
+    try {
+    Persistence.rollbackTransaction();
+    } catch (Exception e) {
+    }
+  }
+
+  private List<CVRContestInfo> contestInfo(final Long countyId) {
+    final County c = new County("test" + countyId.toString(), countyId);
+    final Choice choice = new Choice("why?", "", false, false);
+    final Contest co = new Contest("test", c, "", Arrays.asList(choice), 1, 1, 1);
+    co.setID(countyId);
+    Persistence.save(c);
+    Persistence.save(co);
+
+    final List<CVRContestInfo> result = new ArrayList<>();
+    result.add(new CVRContestInfo(co, null, null, Arrays.asList("why?")));
+    return result;
+  }
+
+  /** some CVRs, every other one audited, and the last without audit info **/
+  private List<Long> auditedCVRs(final Long countyId, final int count) {
+    final List<CVRContestInfo> contest_info = contestInfo(countyId);
+    final List<Long> result = new ArrayList<>();
+    for (int i = 1; i <= count; i++) {
+      final CastVoteRecord cvr =
+          new CastVoteRecord(CastVoteRecord.RecordType.UPLOADED, null, countyId, i, 1, 1,
+                             "1", i, "1-1-" + i, "a", contest_info);
+      Persistence.save(cvr);
+      result.add(cvr.id());
+      if (i == count) {
+        break;
+      }
+      final CVRAuditInfo cai = new CVRAuditInfo(cvr);
+      if (i % 2 == 0) {
+        final CastVoteRecord acvr =
+            new CastVoteRecord(CastVoteRecord.RecordType.AUDITOR_ENTERED, Instant.now(),
+                               countyId, i, null, 1, "1", i, "1-1-" + i, "a", contest_info);
+        acvr.setCvrId(cvr.id());
+        Persistence.save(acvr);
+        cai.setACVR(acvr);
+      }
+      Persistence.save(cai);
+    }
+    Persistence.flush();
+    Persistence.currentSession().clear();
+    return result;
+  }
+
+  /** the statements run to load and read the audit infos of the CVRs **/
+  private long statementsToLoad(final List<Long> ids) {
+    final Statistics stats =
+        Persistence.currentSession().getSessionFactory().getStatistics();
+    stats.setStatisticsEnabled(true);
+    stats.clear();
+
+    final Map<Long, CVRAuditInfo> infos = CVRAuditInfoQueries.byIds(ids);
+    for (final Long id : ids) {
+      final CVRAuditInfo info = infos.get(id);
+      if (info == null) {
+        assertNotNull(Persistence.getByID(id, CastVoteRecord.class).contestInfo());
+      } else {
+        assertEquals(info.cvr().contestInfo().size(), 1);
+        if (info.acvr() != null) {
+          assertEquals(info.acvr().contestInfo().size(), 1);
+        }
+      }
+    }
+
+    final long result = stats.getPrepareStatementCount();
+    stats.setStatisticsEnabled(false);
+    return result;
+  }
+
+  @Test()
+  public void byIdsTest() {
+    final List<Long> ids = auditedCVRs(91L, 5);
+    final Map<Long, CVRAuditInfo> infos = CVRAuditInfoQueries.byIds(ids);
+    assertEquals(infos.size(), 4);
+    assertNull(infos.get(ids.get(4)));
+    assertNull(infos.get(ids.get(0)).acvr());
+    assertEquals(infos.get(ids.get(1)).acvr().getCvrId(), ids.get(1));
+  }
+
+  @Test()
+  public void byIdsQueryCountTest() {
+    final long few = statementsToLoad(auditedCVRs(92L, 3));
+    final long many = statementsToLoad(auditedCVRs(93L, 60));
+    // two queries, and one for the contest
+    assertTrue(few <= 3, "statements: " + few);
+    assertEquals(many, few);
+  }
+}
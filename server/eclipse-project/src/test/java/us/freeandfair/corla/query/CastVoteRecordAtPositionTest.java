@@ -0,0 +1,162 @@
+package us.freeandfair.corla.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.AfterTest;
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.model.Choice;
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.Tribute;
+import us.freeandfair.corla.persistence.Persistence;
+
+@Test(groups = {"integration"})
+public class CastVoteRecordAtPositionTest {
+
+  @BeforeTest()
+  public void setUp() {
+    Setup.setProperties();
+    Persistence.beginTransaction();
+  }
+
+  @AfterTest()
+  public void tearDown() {
+    try {
+    Persistence.rollbackTransaction();
+    } catch (Exception e) {
+    }
+  }
+
+  /** uploaded CVRs at positions 1 to count of batch "1" of scanner 1 **/
+  private Map<Integer, CastVoteRecord> uploadedCVRs(final Long countyId, final int count) {
+    final County c = new County("test" + countyId.toString(), countyId);
+    final Choice choice = new Choice("why?", "", false, false);
+    final Contest co = new Contest("test", c, "", Arrays.asList(choice), 1, 1, 1);
+    co.setID(countyId);
+    Persistence.save(c);
+    Persistence.save(co);
+    final List<CVRContestInfo> contest_info = new ArrayList<>();
+    contest_info.add(new CVRContestInfo(co, null, null, Arrays.asList("why?")));
+
+    final Map<Integer, CastVoteRecord> result = new HashMap<>();
+    for (int position = 1; position <= count; position++) {
+      final CastVoteRecord cvr =
+          new CastVoteRecord(RecordType.UPLOADED, null, countyId, position, position, 1,
+                             "1", position, "1-1-" + position, "a", contest_info);
+      Persistence.save(cvr);
+      result.put(position, cvr);
+    }
+    Persistence.flush();
+    return result;
+  }
+
+  private Tribute tribute(final Long countyId, final int position) {
+    final Tribute t = new Tribute();
+    t.countyId = countyId;
+    t.scannerId = 1;
+    t.batchId = "1";
+    t.ballotPosition = position;
+    t.contestName = "test";
+    t.setUri();
+    return t;
+  }
+
+  /**
+   * tributes for positions drawn from 1 to positions, with repeats, in a
+   * scrambled order
+   **/
+  private List<Tribute> tributes(final Long countyId, final int count, final int positions) {
+    final List<Tribute> result = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      result.add(tribute(countyId, (int) ((i * 7919L) % positions) + 1));
+    }
+    return result;
+  }
+
+  /**
+   * the CVRs follow the tributes, uploaded CVRs are found, and each missing
+   * position has exactly one phantom record however often it is drawn
+   **/
+  private void checkAtPosition(final Long countyId, final int uploaded,
+                               final int count, final int positions) {
+    final Map<Integer, CastVoteRecord> cvrs = uploadedCVRs(countyId, uploaded);
+    final List<Tribute> tributes = tributes(countyId, count, positions);
+
+    final List<CastVoteRecord> result = CastVoteRecordQueries.atPosition(tributes);
+
+    assertEquals(result.size(), tributes.size());
+    final Map<String, CastVoteRecord> phantoms = new HashMap<>();
+    final Set<Integer> repeated = new TreeSet<>();
+    final Set<Integer> seen = new TreeSet<>();
+    for (int i = 0; i < tributes.size(); i++) {
+      final Tribute t = tributes.get(i);
+      final CastVoteRecord cvr = result.get(i);
+      assertEquals(cvr.getUri(), t.getUri(), "tribute " + i);
+      if (!seen.add(t.ballotPosition)) {
+        repeated.add(t.ballotPosition);
+      }
+      if (t.ballotPosition <= uploaded) {
+        assertSame(cvr, cvrs.get(t.ballotPosition), "tribute " + i);
+      } else {
+        assertEquals(cvr.recordType(), RecordType.PHANTOM_RECORD, "tribute " + i);
+        final CastVoteRecord phantom = phantoms.putIfAbsent(cvr.getUri(), cvr);
+        if (phantom != null) {
+          assertSame(cvr, phantom, "tribute " + i);
+        }
+      }
+    }
+    // the draw really did repeat positions, found and missing
+    assertTrue(repeated.stream().anyMatch(p -> p <= uploaded));
+    assertTrue(repeated.stream().anyMatch(p -> p > uploaded));
+
+    final Map<CastVoteRecord, Boolean> distinct = new IdentityHashMap<>();
+    result.forEach(cvr -> distinct.put(cvr, true));
+    assertEquals(distinct.size(), seen.size());
+
+    Persistence.flush();
+    final long missing = seen.stream().filter(p -> p > uploaded).count();
+    assertEquals(CastVoteRecordQueries.countMatching(countyId, RecordType.PHANTOM_RECORD)
+                 .getAsLong(), missing);
+
+    // drawing the same positions again finds the phantoms rather than
+    // making more
+    final List<CastVoteRecord> again =
+        CastVoteRecordQueries.atPosition(tributes(countyId, count, positions));
+    for (int i = 0; i < again.size(); i++) {
+      assertEquals(again.get(i).id(), result.get(i).id(), "tribute " + i);
+    }
+    Persistence.flush();
+    assertEquals(CastVoteRecordQueries.countMatching(countyId, RecordType.PHANTOM_RECORD)
+                 .getAsLong(), missing);
+  }
+
+  @Test()
+  public void atPositionWithInListTest() {
+    // fewer tributes than the temporary table threshold of 1000
+    checkAtPosition(81L, 20, 60, 25);
+  }
+
+  @Test()
+  public void atPositionWithJoinTest() {
+    // more tributes than the temporary table threshold of 1000
+    checkAtPosition(82L, 800, 1500, 1000);
+  }
+
+  @Test()
+  public void atPositionOfNoTributesTest() {
+    assertTrue(CastVoteRecordQueries.atPosition(new ArrayList<Tribute>()).isEmpty());
+  }
+}
@@ -0,0 +1,45 @@
+package us.freeandfair.corla.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.*;
+
+import static org.testng.Assert.*;
+
+public class LongMultisetTest {
+
+  @Test()
+  public void countsMatchFrequency() {
+    final Random random = new Random(21);
+    final List<Long> longs = new ArrayList<>();
+    final LongMultiset multiset = new LongMultiset();
+    for (int i = 0; i < 5000; i++) {
+      // a mix of small, sequential-looking and negative keys
+      final long l = random.nextInt(3) == 0 ? -random.nextInt(100)
+                                            : random.nextInt(3000) * 1024L;
+      longs.add(l);
+      assertEquals(multiset.add(l), Collections.frequency(longs, l));
+    }
+    assertEquals(multiset.size(), longs.size());
+    assertEquals(multiset.distinct(), new HashSet<>(longs).size());
+    for (long l = -200; l < 3000 * 1024L; l += 256) {
+      assertEquals(multiset.count(l), Collections.frequency(longs, l), "key " + l);
+      assertEquals(multiset.contains(l), longs.contains(l), "key " + l);
+    }
+  }
+
+  @Test()
+  public void ignoresNulls() {
+    final LongMultiset multiset = new LongMultiset(Arrays.asList(3L, null, 3L, 0L));
+    assertEquals(multiset.size(), 3);
+    assertEquals(multiset.distinct(), 2);
+    assertEquals(multiset.count(3L), 2);
+    assertTrue(multiset.contains(0L));
+    assertFalse(multiset.contains(4L));
+  }
+}
@@ -0,0 +1,64 @@
+package us.freeandfair.corla.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class MappedFileInputStreamTest {
+
+  private byte[] bytes(final int n) {
+    final byte[] result = new byte[n];
+    for (int i = 0; i < n; i++) {
+      result[i] = (byte) (i * 31);
+    }
+    return result;
+  }
+
+  private byte[] readAll(final InputStream in, final int bufferSize) throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[bufferSize];
+    int n = in.read(buffer);
+    while (n != -1) {
+      out.write(buffer, 0, n);
+      n = in.read(buffer);
+    }
+    return out.toByteArray();
+  }
+
+  @Test()
+  public void readsAcrossWindows() throws Exception {
+    final Path file = Files.createTempFile("mapped", ".csv");
+    file.toFile().deleteOnExit();
+    final byte[] contents = bytes(1000);
+    Files.write(file, contents);
+
+    // windows of 64 bytes, buffers that do not line up with them
+    try (InputStream in = new MappedFileInputStream(file, 64)) {
+      assertEquals(in.available(), 1000);
+      assertEquals(readAll(in, 100), contents);
+      assertEquals(in.read(), -1);
+      assertEquals(in.available(), 0);
+    }
+
+    try (InputStream in = new MappedFileInputStream(file, 64)) {
+      for (int i = 0; i < contents.length; i++) {
+        assertEquals(in.read(), contents[i] & 0xFF);
+      }
+      assertEquals(in.read(), -1);
+    }
+  }
+
+  @Test()
+  public void readsEmptyFile() throws Exception {
+    final Path file = Files.createTempFile("mapped", ".csv");
+    file.toFile().deleteOnExit();
+    try (InputStream in = new MappedFileInputStream(file)) {
+      assertEquals(in.read(), -1);
+      assertEquals(in.read(new byte[10], 0, 10), -1);
+    }
+  }
+}